@@ -6,35 +6,76 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
+import android.graphics.Matrix;
 import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
 import android.util.Log;
+import android.view.GestureDetector;
 import android.view.MotionEvent;
-import android.view.View;
+import android.view.ScaleGestureDetector;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
 
 import java.util.ArrayList;
 
 import ked.atc_simulator.Entities.Parking;
-import ked.atc_simulator.Entities.Plane;
 import ked.atc_simulator.Entities.Runway;
 import ked.atc_simulator.Entities.Taxiway;
+import ked.atc_simulator.Gameplay.ConflictProbe;
+import ked.atc_simulator.Gameplay.FeatureIndex;
+import ked.atc_simulator.Gameplay.Fleet;
 import ked.atc_simulator.Gameplay.GameMgr;
+import ked.atc_simulator.Gameplay.World;
 import ked.atc_simulator.R;
-import ked.atc_simulator.Utils.CoordinateConverter;
+import ked.atc_simulator.Utils.IntList;
+import ked.atc_simulator.Utils.Point;
 
 /**
- *  Extension de la classe View permettant de dessiner les différents éléments (avions, pistes, ...)
- *  de l'application
+ *  Extension de la classe SurfaceView permettant de dessiner les différents éléments (avions, pistes, ...)
+ *  de l'application. Les images sont dessinées par un thread d'affichage au rythme de l'écran (voir RenderThread),
+ *  tant que la surface existe et que le jeu est au premier plan
  */
-public class CanvasView extends View {
+public class CanvasView extends SurfaceView implements SurfaceHolder.Callback {
 
     private GameMgr gameMgr;
+    private World world;
     private Canvas canvas;
     private Paint paintWhite, paintText;
     private Paint paintBlack;
     private Paint paintBlue;
+    private Paint paintRed;
     private Bitmap backward, forward;
-    private String sentence;
-    private Context context;
+    private volatile String sentence; // Écrite par le thread UI, lue par le thread d'affichage
+    private Point interpolatedBase;
+    private PlanePath planePath;
+    private ArrayList<RunwayPath> runwayPaths;
+    private ArrayList<TaxiwayPath> taxiwayPaths;
+    private ArrayList<ParkingPath> parkingPaths;
+    private FeatureIndex runwayIndex, taxiwayIndex, parkingIndex; // Un numéro d'élément est sa position dans la liste de paths
+    private static final float FEATURE_MARGIN = 40; // En coordonnées, pour les noms écrits à côté des paths
+    private static final float PLANE_MARGIN = 120; // En coordonnées, pour le dessin de l'avion et son nom
+    private static final String SKIP_LABEL = ">>| " + GameMgr.SKIP_MINUTES + " min", SKIPPING_LABEL = ">>|...";
+    private String rateLabel; // Texte du taux d'avance rapide, refait seulement quand le taux change
+    private int rateLabelValue;
+    private Bitmap airportLayer; // Pistes, taxiways et parkings déjà dessinés, utilisée seulement par le thread d'affichage
+    private volatile boolean airportDirty; // L'aéroport doit être redessiné à la prochaine image
+    private volatile int surfaceWidth, surfaceHeight;
+    private RenderThread renderThread; // null quand rien n'est affiché
+    private boolean surfaceReady, resumed; // Thread UI uniquement
+    private final Viewport viewport;
+    private final ScaleGestureDetector scaleDetector;
+    private final GestureDetector gestureDetector;
+    private volatile boolean gestureInProgress; // Un doigt est sur la carte, l'aéroport n'est pas redessiné pendant ce temps
+    private boolean hudTouch; // Décidé au premier doigt : appui sur les boutons ou geste sur la carte, jusqu'au dernier doigt levé
+
+    // Utilisés seulement par le thread d'affichage
+    private final Matrix gameToScreen, layerMatrix, layerToScreen; // layerMatrix : la matrice avec laquelle l'aéroport a été dessiné
+    private final float[] labelPosition;
+    private final Matrix screenToGame;
+    private final RectF visible; // Partie du jeu visible à l'écran, en coordonnées du jeu
+    private final IntList visibleItems;
+    private int layerVersion;
 
     /**
      * Constructeur de la classe CanvasView
@@ -44,20 +85,19 @@ public class CanvasView extends View {
     public CanvasView(Context context, GameMgr gameMgr){
         super(context);
         this.gameMgr = gameMgr;
+        this.world = gameMgr.getWorld();
         backward = BitmapFactory.decodeResource(getResources(), R.drawable.backward);
         forward = BitmapFactory.decodeResource(getResources(), R.drawable.forward);
         sentence = "";
-        this.context = context;
-    }
+        interpolatedBase = new Point(0, 0);
+        rateLabelValue = gameMgr.getRate();
+        rateLabel = "x" + rateLabelValue;
 
-    /**
-     * Fonction appelée automatiquement quand la view est dessinée
-     * @param canvas
-     */
-    public void onDraw(Canvas canvas){
+        // Les pinceaux sont créés une seule fois, rien n'est alloué pendant le dessin
         paintWhite = new Paint();
         paintWhite.setStyle(Paint.Style.FILL_AND_STROKE);
         paintWhite.setColor(Color.WHITE);
+        paintWhite.setTextSize(30.0f);
 
         paintText = new Paint();
         paintText.setStyle(Paint.Style.FILL_AND_STROKE);
@@ -68,45 +108,246 @@ public class CanvasView extends View {
         paintBlue.setStyle(Paint.Style.FILL_AND_STROKE);
         paintBlue.setColor(Color.BLUE);
 
+        paintRed = new Paint();
+        paintRed.setStyle(Paint.Style.FILL_AND_STROKE);
+        paintRed.setColor(Color.RED);
+
         paintBlack = new Paint();
         paintBlack.setStyle(Paint.Style.FILL_AND_STROKE);
         paintBlack.setColor(Color.BLACK);
         paintBlack.setTextSize(45.0f);
-        paintWhite.setTextSize(30.0f);
-        resetPlanes();
 
+        //Le modèle ne connait pas Android : on construit ici les paths à dessiner à partir de l'aéroport
+        //Ils restent en coordonnées du jeu, le canvas les passe à l'écran avec la matrice du viewport
+        planePath = new PlanePath(interpolatedBase, 0); // Un seul path, recalculé pour chaque avion
+        runwayPaths = new ArrayList<>();
+        for (Runway r : world.getAirport().getRunways())
+            runwayPaths.add(new RunwayPath(r.getBase(), r.getLenght(), r.getHeading()));
+        taxiwayPaths = new ArrayList<>();
+        for (Taxiway t : world.getAirport().getTaxiways())
+            taxiwayPaths.add(new TaxiwayPath(new Point(t.getX(), t.getY()), t.getLenght(), t.getHeading()));
+        parkingPaths = new ArrayList<>();
+        for (Parking p : world.getAirport().getParkings())
+            parkingPaths.add(new ParkingPath(p.getBase(), p.getLenght(), p.getHeading()));
+        // Seuls les éléments dans la partie visible sont dessinés, retrouvés par leur rectangle englobant
+        RectF bounds = new RectF();
+        runwayIndex = new FeatureIndex();
+        for (RunwayPath path : runwayPaths)
+            addToIndex(runwayIndex, path, bounds);
+        taxiwayIndex = new FeatureIndex();
+        for (TaxiwayPath path : taxiwayPaths)
+            addToIndex(taxiwayIndex, path, bounds);
+        parkingIndex = new FeatureIndex();
+        for (ParkingPath path : parkingPaths)
+            addToIndex(parkingIndex, path, bounds);
+
+        viewport = new Viewport();
+        gameToScreen = new Matrix();
+        layerMatrix = new Matrix();
+        layerToScreen = new Matrix();
+        labelPosition = new float[2];
+        screenToGame = new Matrix();
+        visible = new RectF();
+        visibleItems = new IntList(64);
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector detector) {
+                viewport.zoomBy(detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onScroll(MotionEvent first, MotionEvent current, float distanceX, float distanceY) {
+                if (!scaleDetector.isInProgress())
+                    viewport.panBy(-distanceX, -distanceY);
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(MotionEvent e) {
+                viewport.reset(); // Retour à la vue de tout l'aéroport
+                return true;
+            }
+        });
+
+        getHolder().addCallback(this);
+    }
+
+    /**
+     * Dessine une image, appelée par le thread d'affichage
+     * @param canvas
+     */
+    void render(Canvas canvas){
         this.canvas = canvas;
-        canvas.drawColor(Color.BLACK);
-        drawTaxiways(paintBlue,paintBlack); // Dessine les taxiways
-        drawRunway(paintBlue, paintBlack); // Dessine les pistes
-        drawParkings(paintBlue,paintBlack);// Dessine les parkings
-        drawPlanes(paintWhite); // dessine les avions
+        int version = viewport.copyMatrix(gameToScreen);
+        gameToScreen.invert(screenToGame);
+        visible.set(0, 0, surfaceWidth, surfaceHeight);
+        screenToGame.mapRect(visible);
+        if (airportDirty || airportLayer == null || (version != layerVersion && !gestureInProgress))
+            buildAirportLayer(surfaceWidth, surfaceHeight, version);
+        if (airportLayer == null) {
+            canvas.drawColor(Color.BLACK);
+        } else if (version == layerVersion) {
+            canvas.drawBitmap(airportLayer, 0, 0, null); // L'aéroport ne bouge pas, il est dessiné une seule fois
+        } else { // Pendant un geste, l'image de l'aéroport suit le zoom, elle est redessinée nette à la fin
+            layerMatrix.invert(layerToScreen);
+            layerToScreen.postConcat(gameToScreen);
+            canvas.drawColor(Color.BLACK);
+            canvas.drawBitmap(airportLayer, layerToScreen, null);
+        }
+        synchronized (world) { // La simulation tourne dans son propre thread, on lit un état cohérent
+            drawPlanes(paintWhite, paintRed); // dessine les avions
+        }
 
 
         canvas.drawBitmap(backward, 0,0, paintWhite); // Flèche d'avance rapide en arrière
         canvas.drawBitmap(forward, 200, 0, paintWhite); // Flèche d'avance rapide en avant
 
-        canvas.drawText("x"+gameMgr.getRate(),200,200,paintWhite); // Affichage du taux d'avance rapide
+        int rate = gameMgr.getRate();
+        if (rate != rateLabelValue) {
+            rateLabelValue = rate;
+            rateLabel = "x" + rate;
+        }
+        canvas.drawText(rateLabel,200,200,paintWhite); // Affichage du taux d'avance rapide
+        canvas.drawText(gameMgr.isSkipping() ? SKIPPING_LABEL : SKIP_LABEL,0,200,paintWhite); // Saut en avant
         canvas.drawText(sentence,500,100,paintWhite); // Affichage de la phrase
     }
 
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        surfaceReady = true;
+        updateRendering();
+    }
+
+    /**
+     * Fonction appelée automatiquement quand la taille de la surface change, l'aéroport est redessiné à la nouvelle taille
+     * @param holder
+     * @param format
+     * @param width
+     * @param height
+     */
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        surfaceWidth = width;
+        surfaceHeight = height;
+        viewport.setSize(width, height);
+        invalidateAirport();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        surfaceReady = false;
+        updateRendering(); // Attend la fin de l'image en cours : la surface n'est plus utilisée en sortant
+    }
+
+    /**
+     * Reprend l'affichage, à appeler quand le jeu revient au premier plan
+     */
+    public void resume() {
+        resumed = true;
+        updateRendering();
+    }
+
     /**
-     *  Gestion des onTouchEvent pour les flèches d'avance rapide
+     * Met l'affichage en pause, à appeler quand le jeu passe en arrière plan
+     */
+    public void pause() {
+        resumed = false;
+        updateRendering();
+    }
+
+    /**
+     * Démarre ou arrête le thread d'affichage : il tourne quand la surface existe et que le jeu est au premier plan
+     */
+    private void updateRendering() {
+        boolean render = surfaceReady && resumed;
+        if (render && renderThread == null) {
+            renderThread = new RenderThread(this, getHolder());
+            renderThread.startRendering();
+        } else if (!render && renderThread != null) {
+            renderThread.stopRendering();
+            renderThread = null;
+        }
+    }
+
+    /**
+     * Redessine l'aéroport à la prochaine image, par exemple après un changement de plan
+     */
+    public void invalidateAirport() {
+        airportDirty = true;
+    }
+
+    /**
+     * Ajoute un path à un index avec son rectangle englobant, agrandi pour son nom
+     * @param index
+     * @param path
+     * @param bounds - Rectangle réutilisé pour le calcul
+     */
+    private static void addToIndex(FeatureIndex index, Path path, RectF bounds) {
+        path.computeBounds(bounds, true);
+        index.add(bounds.left - FEATURE_MARGIN, bounds.top - FEATURE_MARGIN, bounds.right + FEATURE_MARGIN, bounds.bottom + FEATURE_MARGIN);
+    }
+
+    /**
+     * Dessine les pistes, les taxiways, les parkings et leurs noms dans une image hors écran, avec la matrice du viewport
+     * @param width
+     * @param height
+     * @param version - La version de la matrice (voir Viewport)
+     */
+    private void buildAirportLayer(int width, int height, int version) {
+        if (width <= 0 || height <= 0)
+            return; // La surface n'a pas encore sa taille
+        airportDirty = false;
+        if (airportLayer != null)
+            airportLayer.recycle();
+        airportLayer = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565); // Opaque : deux fois moins de mémoire
+        layerMatrix.set(gameToScreen);
+        layerVersion = version;
+        Canvas airportCanvas = new Canvas(airportLayer);
+        airportCanvas.drawColor(Color.BLACK);
+        airportCanvas.concat(gameToScreen);
+        drawTaxiways(airportCanvas, paintBlue, paintBlack); // Dessine les taxiways
+        drawRunway(airportCanvas, paintBlue, paintBlack); // Dessine les pistes
+        drawParkings(airportCanvas, paintBlue, paintBlack);// Dessine les parkings
+    }
+
+    /**
+     *  Gestion des onTouchEvent pour les flèches d'avance rapide, le zoom à deux doigts et le déplacement de la vue
      * @param ev
      * @return
      */
     @Override
     public boolean onTouchEvent(MotionEvent ev){
-        float x = ev.getX();
-        float y = ev.getY();
-        if(x <= 200 && y <= 150){
-            Log.i("touch","backward");
-            gameMgr.backward();
-        } else if (x <= 400 && y <= 150) {
-            gameMgr.forward();
-            Log.i("touch","forward");
+        int action = ev.getActionMasked();
+        if (action == MotionEvent.ACTION_DOWN) {
+            float x = ev.getX();
+            float y = ev.getY();
+            hudTouch = x <= 400 && y <= 250;
+            if(x <= 200 && y <= 150){
+                Log.i("touch","backward");
+                gameMgr.backward();
+            } else if (x <= 400 && y <= 150) {
+                gameMgr.forward();
+                Log.i("touch","forward");
+            } else if (x <= 200 && y <= 250) {
+                gameMgr.skipAhead();
+            }
+        }
+        if (hudTouch) { // Un appui sur les boutons ne fait rien d'autre, même si le doigt glisse sur la carte
+            if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)
+                hudTouch = false;
+            return true;
         }
 
+        // Les détecteurs reçoivent tout le geste, du premier au dernier doigt
+        scaleDetector.onTouchEvent(ev);
+        gestureDetector.onTouchEvent(ev);
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)
+            gestureInProgress = false;
+        else if (action == MotionEvent.ACTION_POINTER_UP)
+            gestureInProgress = ev.getPointerCount() - 1 > 0; // Le doigt levé est encore compté dans cet évènement
+        else gestureInProgress = true;
         return true;
     }
 
@@ -119,59 +360,99 @@ public class CanvasView extends View {
     }
 
     /**
-     * Dessine les avions
+     * Dessine les avions à leur position interpolée entre les deux derniers ticks de simulation
+     * Les avions pour lesquels un conflit est prévu sont dessinés avec paintConflict
      * @param paint
+     * @param paintConflict
      */
-    public void drawPlanes(Paint paint){
-        Log.i("Refresh","Draw planes");
-        ArrayList<Plane> planes = gameMgr.getPlanes();
-        for(Plane p : planes){
-            canvas.drawPath(p.getPath(),paint);
-            // Affiche le nom de l'avion en dessous du dessin
-            canvas.drawText(p.getName(), CoordinateConverter.GetXDipsFromCoordinate(context,p.getPath().getStartPoint().x), CoordinateConverter.GetYDipsFromCoordinate(context,p.getPath().getStartPoint().y+30),paintText);
+    public void drawPlanes(Paint paint, Paint paintConflict){
+        float alpha = gameMgr.getSimulationLoop().getInterpolation();
+        Fleet fleet = world.getFleet();
+        ConflictProbe conflictProbe = world.getConflictProbe();
+        visibleItems.clear();
+        world.findPlanesIn(visible.left - PLANE_MARGIN, visible.top - PLANE_MARGIN,
+                visible.right + PLANE_MARGIN, visible.bottom + PLANE_MARGIN, visibleItems); // Les avions hors de l'écran sont ignorés
+        canvas.save();
+        canvas.concat(gameToScreen); // Les avions sont dessinés en coordonnées du jeu
+        for(int k = 0; k < visibleItems.size(); ++k){
+            int i = visibleItems.get(k);
+            interpolatedBase.x = fleet.getInterpolatedX(i, alpha);
+            interpolatedBase.y = fleet.getInterpolatedY(i, alpha);
+            planePath.rewind(); // Pour effacer l'avion précédent
+            planePath.updatePoints(interpolatedBase, fleet.getInterpolatedHeading(i, alpha));
+            canvas.drawPath(planePath, conflictProbe.isInConflict(i) ? paintConflict : paint);
+        }
+        canvas.restore();
+        for(int k = 0; k < visibleItems.size(); ++k){
+            int i = visibleItems.get(k);
+            // Affiche le nom de l'avion en dessous du dessin, à l'écran pour que sa taille ne change pas avec le zoom
+            labelPosition[0] = fleet.getInterpolatedX(i, alpha) - 25;
+            labelPosition[1] = fleet.getInterpolatedY(i, alpha) + 35;
+            gameToScreen.mapPoints(labelPosition);
+            canvas.drawText(fleet.getName(i), labelPosition[0], labelPosition[1], paintText);
         }
     }
 
     /**
      * Dessine les pistes
+     * @param canvas
      * @param paint
      * @param paintBlack
      */
-    public void drawRunway(Paint paint, Paint paintBlack){
+    public void drawRunway(Canvas canvas, Paint paint, Paint paintBlack){
         paintBlack.setTextSize(45.0f);
-        ArrayList<Runway> runways = gameMgr.getAirport().getRunways();
-        for(Runway r : runways){
-            canvas.drawPath(r.getPath(),paint);
+        ArrayList<Runway> runways = world.getAirport().getRunways();
+        visibleItems.clear();
+        runwayIndex.query(visible.left, visible.top, visible.right, visible.bottom, visibleItems); // Seulement ceux à l'écran
+        for(int k = 0; k < visibleItems.size(); ++k){
+            int i = visibleItems.get(k);
+            Runway r = runways.get(i);
+            RunwayPath path = runwayPaths.get(i);
+            canvas.drawPath(path,paint);
             // Affiche le numéro de la piste
-            canvas.drawTextOnPath(""+r.getNumber(), r.getPath(), 5.0f, -2.0f,paintBlack);
+            canvas.drawTextOnPath(""+r.getNumber(), path, 5.0f, -2.0f,paintBlack);
         }
     }
 
     /**
      * Dessine les taxiways
+     * @param canvas
      * @param paint
      * @param paintBlack
      */
-    public void drawTaxiways(Paint paint, Paint paintBlack){
+    public void drawTaxiways(Canvas canvas, Paint paint, Paint paintBlack){
         paintBlack.setTextSize(23.0f);
-        ArrayList<Taxiway> taxiways = gameMgr.getAirport().getTaxiways();
-        for(Taxiway t : taxiways){
-            Log.i("Drawing","drawing "+t.getNom());
-            t.getPath().logPoints();
-            canvas.drawPath(t.getPath(),paint);
+        ArrayList<Taxiway> taxiways = world.getAirport().getTaxiways();
+        visibleItems.clear();
+        taxiwayIndex.query(visible.left, visible.top, visible.right, visible.bottom, visibleItems); // Seulement ceux à l'écran
+        for(int k = 0; k < visibleItems.size(); ++k){
+            int i = visibleItems.get(k);
+            Taxiway t = taxiways.get(i);
+            TaxiwayPath path = taxiwayPaths.get(i);
+            canvas.drawPath(path,paint);
             //Affiche le nom du taxiway
-            canvas.drawTextOnPath(t.getNom(), t.getPath(), t.gethOffset(), t.getvOffset(),paintBlack);
+            canvas.drawTextOnPath(t.getNom(), path, t.gethOffset(), t.getvOffset(),paintBlack);
         }
     }
 
-    public void drawParkings(Paint paint, Paint paintText){
+    /**
+     * Dessine les parkings
+     * @param canvas
+     * @param paint
+     * @param paintText
+     */
+    public void drawParkings(Canvas canvas, Paint paint, Paint paintText){
         paintText.setTextSize(23.0f);
-        ArrayList<Parking> parkings = gameMgr.getAirport().getParkings();
-        for(Parking p : parkings){
-            Log.i("Drawing","drawing parking "+p.getName());
-            canvas.drawPath(p.getPath(),paint);
+        ArrayList<Parking> parkings = world.getAirport().getParkings();
+        visibleItems.clear();
+        parkingIndex.query(visible.left, visible.top, visible.right, visible.bottom, visibleItems); // Seulement ceux à l'écran
+        for(int k = 0; k < visibleItems.size(); ++k){
+            int i = visibleItems.get(k);
+            Parking p = parkings.get(i);
+            ParkingPath path = parkingPaths.get(i);
+            canvas.drawPath(path,paint);
             //Afficher le nom du parking
-            canvas.drawTextOnPath(p.getName(), p.getPath(), p.gethOffSet(), p.getvOffSet(), paintText);
+            canvas.drawTextOnPath(p.getName(), path, p.gethOffSet(), p.getvOffSet(), paintText);
         }
     }
 
@@ -180,16 +461,4 @@ public class CanvasView extends View {
      * @return
      */
     public Canvas getCanvas(){ return canvas; }
-
-    /**
-     * Fonction appelée à chaque rafraichissement permettant de calculer les positions des avions
-     */
-    public void resetPlanes(){
-        ArrayList<Plane> planes = gameMgr.getPlanes();
-        gameMgr.cleanupPlanes();
-        for(Plane p : planes){
-            p.getPath().rewind(); // Pour effacer les avions du rafaichissement précédent
-            p.calculateNewParams();
-        }
-    }
 }
@@ -6,8 +6,7 @@ import android.graphics.RectF;
 
 import java.util.ArrayList;
 
-import ked.atc_simulator.GameActivity;
-import ked.atc_simulator.Utils.CoordinateConverter;
+import ked.atc_simulator.Utils.Point;
 
 /**
  * Extension de la classe path gérant le dessin sur les canvas
@@ -21,7 +20,7 @@ public class ParkingPath extends Path {
         private ArrayList<Point> points;
 
 
-    public ParkingPath(GameActivity context, Point base, float lenght, float heading){
+    public ParkingPath(Point base, float lenght, float heading){
         points = new ArrayList<>();
         points.add(new Point(base.x-10,base.y-lenght/2));
         points.add(new Point(base.x-10, base.y+lenght/2));
@@ -29,9 +28,9 @@ public class ParkingPath extends Path {
         points.add(new Point(base.x+10,base.y-lenght/2));
 
 
-        this.moveTo( CoordinateConverter.GetXDipsFromCoordinate(context,points.get(0).x), CoordinateConverter.GetYDipsFromCoordinate(context,points.get(0).y));
+        this.moveTo( points.get(0).x, points.get(0).y);
         for (int i = 1; i < points.size(); i++){
-            this.lineTo( CoordinateConverter.GetXDipsFromCoordinate(context,points.get(i).x), CoordinateConverter.GetYDipsFromCoordinate(context,points.get(i).y));
+            this.lineTo( points.get(i).x, points.get(i).y);
         }
 
         Matrix mMatrix = new Matrix();
@@ -6,11 +6,7 @@ import android.graphics.Path;
 import android.graphics.RectF;
 import android.util.Log;
 
-import java.lang.reflect.Array;
-import java.util.ArrayList;
-
-import ked.atc_simulator.GameActivity;
-import ked.atc_simulator.Utils.CoordinateConverter;
+import ked.atc_simulator.Utils.Point;
 
 /**
  * Extension de la classe path gérant le dessin sur les canvas
@@ -18,21 +14,26 @@ import ked.atc_simulator.Utils.CoordinateConverter;
  */
 public class PlanePath extends Path {
 
-    private ArrayList<Point> points;
-    private GameActivity context;
+    private static final int POINT_COUNT = 8;
+
+    private final Point[] points; // Créés une fois, recalculés à chaque mise à jour
+    private final Matrix rotation;
+    private final RectF bounds;
     private float heading; // Le cap
 
     /**
      * Constructeur de la classe PlanePath
-     * @param context
-     * @param planePos
+     * @param planePos - En coordonnées du jeu
      * @param initialHeading
      */
-    public PlanePath(GameActivity context, Point planePos, float initialHeading){
-        this.context = context;
+    public PlanePath(Point planePos, float initialHeading){
         this.heading = initialHeading;
 
-        points = new ArrayList<>();
+        points = new Point[POINT_COUNT];
+        for (int i = 0; i < POINT_COUNT; ++i)
+            points[i] = new Point(0, 0);
+        rotation = new Matrix();
+        bounds = new RectF();
         updatePoints(planePos ,heading);
 
         Log.i("Heading",""+initialHeading);
@@ -46,32 +47,35 @@ public class PlanePath extends Path {
     public void updatePoints(Point planePos, float heading){
         this.heading = heading;
 
-        points.clear(); //On vide la liste de points
-        /*Puis on ajoute les nouveaux, chaque point est calculé en fonction de la position de l'avion
+        /*On recalcule les points, chaque point est calculé en fonction de la position de l'avion
             qui se situe a peu prêt à l'intersection de ses deux rectangles
         */
-        points.add(new Point(planePos.x-25,planePos.y+5));
-        points.add(new Point(planePos.x-25, planePos.y-5));
-        points.add(new Point(planePos.x-5, planePos.y-5));
-        points.add(new Point(planePos.x-5, planePos.y-45));
-        points.add(new Point(planePos.x+5, planePos.y-45));
-        points.add(new Point(planePos.x+5, planePos.y-5));
-        points.add(new Point(planePos.x+25,planePos.y-5));
-        points.add(new Point(planePos.x+25,planePos.y+5));
+        setPoint(0, planePos.x-25, planePos.y+5);
+        setPoint(1, planePos.x-25, planePos.y-5);
+        setPoint(2, planePos.x-5, planePos.y-5);
+        setPoint(3, planePos.x-5, planePos.y-45);
+        setPoint(4, planePos.x+5, planePos.y-45);
+        setPoint(5, planePos.x+5, planePos.y-5);
+        setPoint(6, planePos.x+25, planePos.y-5);
+        setPoint(7, planePos.x+25, planePos.y+5);
 
         // Move to permet de reset le path
-        //CoordinateConverter est une classe statique qui me permet de gérer toutes les tailles d'écrans, plus de détails dans la classe en question
-        this.moveTo( CoordinateConverter.GetXDipsFromCoordinate(context,points.get(0).x), CoordinateConverter.GetYDipsFromCoordinate(context,points.get(0).y));
-        for (int i = 1; i < points.size(); i++){
+        // Le path reste en coordonnées du jeu, le passage à l'écran est fait par le canvas (voir Viewport)
+        this.moveTo(points[0].x, points[0].y);
+        for (int i = 1; i < POINT_COUNT; i++){
             //lineTo permet de dessiner une ligne entre le dernier point et celui passé en paramètre
-            this.lineTo( CoordinateConverter.GetXDipsFromCoordinate(context,points.get(i).x), CoordinateConverter.GetYDipsFromCoordinate(context,points.get(i).y));
+            this.lineTo(points[i].x, points[i].y);
         }
         //Cette manipulation permet de tourner le path en fonction du cap
-        Matrix mMatrix = new Matrix();
-        RectF bounds = new RectF();
+        rotation.reset();
         this.computeBounds(bounds, true);
-        mMatrix.postRotate( heading, bounds.centerX(), bounds.centerY());
-        this.transform(mMatrix);
+        rotation.postRotate( heading, bounds.centerX(), bounds.centerY());
+        this.transform(rotation);
+    }
+
+    private void setPoint(int i, float x, float y) {
+        points[i].x = x;
+        points[i].y = y;
     }
 
     /**
@@ -79,6 +83,6 @@ public class PlanePath extends Path {
      * @return
      */
     public Point getStartPoint(){
-        return points.get(0);
+        return points[0];
     }
 }
@@ -0,0 +1,82 @@
+package ked.atc_simulator.Canvas;
+
+import android.graphics.Canvas;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
+import android.view.SurfaceHolder;
+
+/**
+ * Thread d'affichage de CanvasView : il dessine une image à chaque rafraîchissement de l'écran
+ * Le rythme est donné par le Choreographer de ce thread, l'affichage ne passe donc plus par le thread UI
+ * Si une image prend trop de temps, le Choreographer saute simplement le rafraîchissement suivant
+ */
+class RenderThread extends HandlerThread implements Choreographer.FrameCallback {
+
+    private final CanvasView view;
+    private final SurfaceHolder holder;
+    private Handler handler;
+    private Choreographer choreographer; // Celui de ce thread, créé par sa boucle
+    private boolean rendering; // Lu et écrit uniquement par ce thread
+
+    /**
+     * Constructeur de la classe RenderThread
+     * @param view
+     * @param holder - La surface où dessiner
+     */
+    RenderThread(CanvasView view, SurfaceHolder holder) {
+        super("RenderThread");
+        this.view = view;
+        this.holder = holder;
+    }
+
+    /**
+     * Démarre le thread et demande la première image
+     */
+    void startRendering() {
+        start();
+        handler = new Handler(getLooper()); // getLooper() attend que la boucle du thread soit prête
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                choreographer = Choreographer.getInstance();
+                rendering = true;
+                choreographer.postFrameCallback(RenderThread.this);
+            }
+        });
+    }
+
+    /**
+     * Arrête l'affichage et attend la fin de l'image en cours, la surface peut ensuite être détruite
+     */
+    void stopRendering() {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                rendering = false;
+                choreographer.removeFrameCallback(RenderThread.this);
+                quit();
+            }
+        });
+        try {
+            join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!rendering)
+            return;
+        choreographer.postFrameCallback(this); // L'image suivante est demandée avant de dessiner celle-ci
+        Canvas canvas = holder.lockCanvas();
+        if (canvas == null)
+            return; // La surface n'est pas encore prête
+        try {
+            view.render(canvas);
+        } finally {
+            holder.unlockCanvasAndPost(canvas);
+        }
+    }
+}
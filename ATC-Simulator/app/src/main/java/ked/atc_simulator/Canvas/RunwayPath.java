@@ -7,8 +7,7 @@ import android.graphics.RectF;
 
 import java.util.ArrayList;
 
-import ked.atc_simulator.GameActivity;
-import ked.atc_simulator.Utils.CoordinateConverter;
+import ked.atc_simulator.Utils.Point;
 
 /**
  * Extension de la classe path gérant le dessin sur les canvas
@@ -23,12 +22,11 @@ public class RunwayPath extends Path {
 
     /**
      * Constructeur de la classe RunwayPath
-     * @param context
-     * @param base
+     * @param base - En coordonnées du jeu
      * @param lenght
      * @param heading
      */
-    public RunwayPath(GameActivity context, Point base, float lenght, float heading){
+    public RunwayPath(Point base, float lenght, float heading){
         points = new ArrayList<>();
         points.add(new Point(base.x-20,base.y-lenght/2));
         points.add(new Point(base.x-20, base.y+lenght/2));
@@ -36,9 +34,9 @@ public class RunwayPath extends Path {
         points.add(new Point(base.x+20,base.y-lenght/2));
 
 
-        this.moveTo( CoordinateConverter.GetXDipsFromCoordinate(context,points.get(0).x), CoordinateConverter.GetYDipsFromCoordinate(context,points.get(0).y));
+        this.moveTo( points.get(0).x, points.get(0).y);
         for (int i = 1; i < points.size(); i++){
-            this.lineTo( CoordinateConverter.GetXDipsFromCoordinate(context,points.get(i).x), CoordinateConverter.GetYDipsFromCoordinate(context,points.get(i).y));
+            this.lineTo( points.get(i).x, points.get(i).y);
         }
 
         Matrix mMatrix = new Matrix();
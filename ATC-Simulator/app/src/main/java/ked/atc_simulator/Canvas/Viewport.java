@@ -0,0 +1,105 @@
+package ked.atc_simulator.Canvas;
+
+import android.graphics.Matrix;
+
+import ked.atc_simulator.Gameplay.World;
+
+/**
+ * Passage des coordonnées du jeu (0 à 1920 en x, 0 à 1080 en y) aux pixels de l'écran, avec zoom et déplacement
+ * Sans zoom, le jeu remplit toute la surface, comme avant sur toutes les tailles d'écran. La matrice n'est recalculée
+ * que quand la taille, le zoom ou le déplacement changent, et elle est appliquée au canvas en une fois :
+ * les paths et la simulation restent en coordonnées du jeu
+ *
+ * Elle est modifiée par le thread UI (gestes) et lue par le thread d'affichage, les accès sont donc synchronisés
+ */
+public class Viewport {
+
+    public static final float MIN_ZOOM = 1;
+    public static final float MAX_ZOOM = 4;
+
+    private final Matrix gameToScreen;
+    private int width, height;
+    private float zoom; // Zoom demandé par le joueur, 1 pour voir tout le jeu
+    private float offsetX, offsetY; // Position à l'écran du coin haut gauche du jeu, en pixels
+    private int version; // Change à chaque modification de la matrice
+
+    /**
+     * Constructeur de la classe Viewport
+     */
+    public Viewport() {
+        gameToScreen = new Matrix();
+        zoom = 1;
+    }
+
+    /**
+     * Setter pour la taille de la surface en pixels
+     * @param width
+     * @param height
+     */
+    public synchronized void setSize(int width, int height) {
+        if (width > 0 && this.width > 0) { // Le même point du jeu reste au bord gauche et en haut
+            offsetX *= (float) width / this.width;
+            offsetY *= (float) height / this.height;
+        }
+        this.width = width;
+        this.height = height;
+        update();
+    }
+
+    /**
+     * Zoome autour d'un point de l'écran, qui reste sous le doigt
+     * @param factor - Rapport entre le nouveau zoom et le zoom actuel
+     * @param focusX - En pixels
+     * @param focusY - En pixels
+     */
+    public synchronized void zoomBy(float factor, float focusX, float focusY) {
+        float newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        float applied = newZoom / zoom;
+        offsetX = focusX - (focusX - offsetX) * applied;
+        offsetY = focusY - (focusY - offsetY) * applied;
+        zoom = newZoom;
+        update();
+    }
+
+    /**
+     * Déplace la vue
+     * @param dx - En pixels, positif pour déplacer le jeu vers la droite
+     * @param dy - En pixels, positif pour déplacer le jeu vers le bas
+     */
+    public synchronized void panBy(float dx, float dy) {
+        offsetX += dx;
+        offsetY += dy;
+        update();
+    }
+
+    /**
+     * Revient à la vue de tout le jeu
+     */
+    public synchronized void reset() {
+        zoom = 1;
+        offsetX = 0;
+        offsetY = 0;
+        update();
+    }
+
+    /**
+     * Copie la matrice qui passe des coordonnées du jeu aux pixels de l'écran
+     * @param out
+     * @return la version de la matrice, qui change à chaque modification
+     */
+    public synchronized int copyMatrix(Matrix out) {
+        out.set(gameToScreen);
+        return version;
+    }
+
+    /**
+     * Recalcule la matrice, le jeu couvre toujours toute la surface : on ne peut pas le déplacer hors de l'écran
+     */
+    private void update() {
+        offsetX = Math.max(width - width * zoom, Math.min(0, offsetX));
+        offsetY = Math.max(height - height * zoom, Math.min(0, offsetY));
+        gameToScreen.setScale(zoom * width / World.WIDTH, zoom * height / World.HEIGHT);
+        gameToScreen.postTranslate(offsetX, offsetY);
+        ++version;
+    }
+}
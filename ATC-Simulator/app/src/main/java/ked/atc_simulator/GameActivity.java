@@ -17,21 +17,10 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import ked.atc_simulator.Canvas.CanvasView;
-import ked.atc_simulator.Canvas.Point;
-import ked.atc_simulator.Entities.Parking;
-import ked.atc_simulator.Entities.Plane;
-import ked.atc_simulator.Entities.Runway;
-import ked.atc_simulator.Entities.Taxiway;
 import ked.atc_simulator.Gameplay.GameMgr;
-import ked.atc_simulator.Gameplay.ParkingRoute;
-import ked.atc_simulator.Gameplay.Route;
-import ked.atc_simulator.State.ArrivingState;
-import ked.atc_simulator.State.DepartingState;
-import ked.atc_simulator.State.PlaneState;
+import ked.atc_simulator.Gameplay.World;
 import ked.atc_simulator.Utils.XMLParser;
 
 public class GameActivity extends AppCompatActivity {
@@ -40,15 +29,10 @@ public class GameActivity extends AppCompatActivity {
     private ConstraintLayout boardLayout;
     private GameMgr gameMgr;
     private CanvasView c;
-    private Timer t;
     protected PowerManager.WakeLock mWakeLock;
     private XMLParser parser;
     private boolean resetSave;
 
-    public final Plane emptyPlane = new Plane();
-    public final ParkingRoute emptyParkingRoute = new ParkingRoute();
-    public final Route emptyRoute = new Route();
-
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -60,6 +44,7 @@ public class GameActivity extends AppCompatActivity {
         choicesLayout = (LinearLayout) findViewById(R.id.choicesLayout);
 
         gameMgr = new GameMgr(this);
+        World world = gameMgr.getWorld();
 
         parser = new XMLParser();
 
@@ -77,9 +62,7 @@ public class GameActivity extends AppCompatActivity {
                 Log.i("Parser", "EntryNumber : " + entries.size());
                 for (XMLParser.Entry entry : entries) {
                     Log.i("Parser", "EntryName : " + entry.nom);
-                    Route route = gameMgr.getRouteByName(entry.route);
-                    PlaneState state = gameMgr.getPlaneStateByName(entry.planeState);
-                    gameMgr.addPlane(new Plane(this, entry.nom, entry.x, entry.y, entry.heading, entry.behavior, route, state));
+                    world.loadPlane(entry.nom, entry.x, entry.y, entry.heading, entry.behavior, entry.route, entry.planeState);
                 }
                 resultStream.close();
             } catch (FileNotFoundException e) {
@@ -98,34 +81,16 @@ public class GameActivity extends AppCompatActivity {
                 Log.i("Parser", e.toString());
             }
             Log.i("Parser", "File Dir:" + save.getAbsolutePath());
-            gameMgr.addPlane(new Plane(this, "R328FS", 475, 715, 0, 3, gameMgr.getCharlie(), new DepartingState(gameMgr)));
-            gameMgr.addPlane(new Plane(this, "N851TB", 150, 850, 90, 1, gameMgr.getUpwind(), new ArrivingState(gameMgr)));
+            world.createStartingPlanes();
         }
-        gameMgr.createMockupPlanes();
+        world.createMockupPlanes();
+        gameMgr.startRecording();
 
 
+        //La view dessine dans son propre thread au rythme de l'écran, la simulation avance dans le sien (voir SimulationLoop)
         c = new CanvasView(this, gameMgr);
         boardLayout.addView(c);
 
-        t = new Timer();
-        t.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                runOnUiThread(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        c.invalidate();
-                        Log.i("Refresh", "Refreshing");
-                    }
-
-                });
-            }
-
-        }, 0, 1000);
-
-        setRefreshRate(1);
-
          /* This code together with the one in onDestroy()
          * will make the screen be always on until this Activity gets destroyed. */
         final PowerManager pm = (PowerManager) getSystemService(this.POWER_SERVICE);
@@ -162,33 +127,18 @@ public class GameActivity extends AppCompatActivity {
         choicesLayout.addView(button);
     }
 
-    /**
-     * Change le taux de rafraichissement en supprimant le timer en cours et supprimant
-     * le précédent
-     *
-     * @param rate
-     */
-    public void setRefreshRate(int rate) {
-        t.cancel();
-        t.purge();
-
-        t = new Timer();
-        //Set the schedule function and rate
-        t.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                runOnUiThread(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        c.invalidate();
-                        Log.i("Refresh", "Refreshing");
-                    }
-
-                });
-            }
+    @Override
+    protected void onResume() {
+        super.onResume();
+        gameMgr.getSimulationLoop().start();
+        c.resume();
+    }
 
-        }, 0, 1000 / rate);
+    @Override
+    protected void onPause() {
+        c.pause();
+        gameMgr.getSimulationLoop().stop(); // Le monde ne tourne pas quand le jeu n'est pas affiché
+        super.onPause();
     }
 
     //Permet de garder l'écran tout le temps allumé
@@ -206,7 +156,9 @@ public class GameActivity extends AppCompatActivity {
         }
         if (!resetSave) {
             try {
-                parser.write(getApplicationContext(), gameMgr.getPlanes());
+                synchronized (gameMgr.getWorld()) {
+                    parser.write(getApplicationContext(), gameMgr.getWorld().getPlanes());
+                }
             } catch (FileNotFoundException e) {
                 Log.i("Parser", e.toString());
             } catch (IllegalArgumentException e) {
@@ -222,10 +174,11 @@ public class GameActivity extends AppCompatActivity {
     @Override
     public void onDestroy() {
         this.mWakeLock.release();
-        t.cancel();
         if (!resetSave) {
             try {
-                parser.write(getApplicationContext(), gameMgr.getPlanes());
+                synchronized (gameMgr.getWorld()) {
+                    parser.write(getApplicationContext(), gameMgr.getWorld().getPlanes());
+                }
             } catch (FileNotFoundException e) {
                 Log.i("Parser", e.toString());
             } catch (IllegalArgumentException e) {
@@ -236,6 +189,7 @@ public class GameActivity extends AppCompatActivity {
                 Log.i("Parser", e.toString());
             }
         }
+        gameMgr.release(); // Une fois la partie sauvegardée
         super.onDestroy();
     }
 
@@ -6,340 +6,149 @@ import android.content.DialogInterface;
 import android.util.Log;
 import android.widget.Toast;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
-import ked.atc_simulator.Canvas.Point;
-import ked.atc_simulator.Entities.Airport;
-import ked.atc_simulator.Entities.Parking;
-import ked.atc_simulator.Entities.Plane;
-import ked.atc_simulator.Entities.Runway;
-import ked.atc_simulator.Entities.Taxiway;
+import ked.atc_simulator.BuildConfig;
 import ked.atc_simulator.GameActivity;
 import ked.atc_simulator.R;
-import ked.atc_simulator.State.ArrivingState;
-import ked.atc_simulator.State.DepartingState;
-import ked.atc_simulator.State.PlaneState;
-import ked.atc_simulator.Utils.Options;
+import ked.atc_simulator.Utils.ObjectPool;
 
 /**
- * Cette classe contient et gère les éléments du jeu
+ * Cette classe fait le lien entre le modèle du jeu (World, sans Android) et l'application :
+ * boucle de simulation, avance rapide, constructeur de phrases et boites de dialogue
  */
-public class GameMgr {
+public class GameMgr implements WorldListener {
 
-    private ArrayList<Plane> planes, mockupPlanes;
-    private Airport airport;
-
-    private Route alpha, bravo, charlie, downwind, base, finale, upwind, crosswind, crosswindRN;
-    private ArrayList<ParkingRoute> parkingRoutes;
-    private RunwayRoute runwayTO, runwayLanding;
+    private World world;
     private GameActivity context;
     private SentenceBuilder sentenceBuilder;
-    private ArrayList<Route> routes;
-    private boolean gameOver;
+    private SimulationLoop simulationLoop;
+    private SessionRecorder recorder;
+    private final Runnable refreshChoices = new Runnable() { // Posté à chaque apparition ou départ d'un avion
+        @Override
+        public void run() {
+            if (getSentenceBuilder().isSentenceEmpty()) {
+                context.clearChoices();
+                getSentenceBuilder().buildSentence();
+            }
+        }
+    };
+
+    public static final String RECORDING_FILE = "last_game_over.atcr"; // Enregistrement de la dernière partie perdue
+    public static final String LAYOUT_ASSET = "default.layout"; // Plan de l'aéroport, dans les assets
+
+    // Taux d'avance rapide proposés : au delà de x10 il y a plusieurs ticks par image, seul le dernier état est dessiné
+    private static final int[] RATES = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+    public static final int SKIP_MINUTES = 5; // Durée sautée par skipAhead()
 
     public int rate;
+    private int rateIndex;
 
     /**
      * Constructeur de la classe GameManager
      * @param context
      */
     public GameMgr(GameActivity context) {
-        planes = new ArrayList<Plane>();
-        mockupPlanes = new ArrayList<>();
-        airport = new Airport();
-        routes = new ArrayList<>();
-        parkingRoutes = new ArrayList<>();
-
-        gameOver = false;
-        rate = 1; // refresh rate
+        ObjectPool.setLeakChecks(BuildConfig.DEBUG); // Avant la création des réserves du monde
         this.context = context;
-        this.sentenceBuilder = new SentenceBuilder(this);
-
-        airport.addRunway(new Runway(context,975,540,1000,270));
-        airport.addTaxiway(new Taxiway(context,460,555,100,180,"Alpha",5f,-1f));
-        airport.addTaxiway(new Taxiway(context,1480,555,100,180,"Bravo",5f,-1f));
-        airport.addTaxiway(new Taxiway(context,970,180,962,270,"Charlie",460f,-1f));
-
-        airport.addParking(new Parking(context,"P1",new Point(470,690),50,0,15f,-1f));
-        airport.addParking(new Parking(context,"P2",new Point(675,690),50,0,15f,-1f));
-        airport.addParking(new Parking(context,"P3",new Point(875,690),50,0,15f,-1f));
-        airport.addParking(new Parking(context,"P4",new Point(1075,690),50,0,15f,-1f));
-        airport.addParking(new Parking(context,"P5",new Point(1275,690),50,0,15f,-1f));
-        airport.addParking(new Parking(context,"P6",new Point(1475,690),50,0,15f,-1f));
-
-        //Création des différentes routes
-        finale = new Route(175, 90, "Final", 1, 3,context.emptyRoute);
-        finale.setStartPoint(new Point(150, 545));
-        routes.add(finale);
-
-        crosswind = new Route(175, 0, "Crosswind", 3, 3,context.emptyRoute);
-        crosswind.setStartPoint(new Point(1750, 850));
-        routes.add(crosswind);
-
-        upwind = new Route(175, 90, "Upwind", 3, 3,context.emptyRoute);
-        upwind.setStartPoint(new Point(150, 850));
-        routes.add(upwind);
-
-        base = new Route(175, 180, "Base", 3, 3,context.emptyRoute);
-        base.setStartPoint(new Point(150, 200));
-        routes.add(base);
-
-        downwind = new Route(175, 270, "Downwind", 3, 3,context.emptyRoute);
-        downwind.setStartPoint(new Point(1750, 200));
-        routes.add(downwind);
-
-        crosswindRN = new Route(175, 0, "CrosswindRN", 3, 3,context.emptyRoute);
-        crosswindRN.setStartPoint(new Point(1750, 545));
-        routes.add(crosswindRN);
-
-        runwayLanding = new RunwayRoute(150, 90, 1000, "RunwayLanding", 9, 3,context.emptyRoute);
-        runwayLanding.setStartPoint(new Point(465, 545));
-        routes.add(runwayLanding);
-
-        runwayTO = new RunwayRoute(150, 90, 1000, "RunwayTO", 3, 3,context.emptyRoute);
-        runwayTO.setStartPoint(new Point(465, 545));
-        routes.add(runwayTO);
-
-        alpha = new Route(30, 0, "Alpha", 3, 3,context.emptyRoute);
-        alpha.setStartPoint(new Point(465, 685));
-        routes.add(alpha);
-
-        charlie = new Route(30, 270, "Charlie", 3, 3,context.emptyRoute);
-        charlie.setStartPoint(new Point(1490, 685));
-        routes.add(charlie);
-
-        bravo = new Route(30, 180, "Bravo", 9, 3,context.emptyRoute);
-        bravo.setStartPoint(new Point(1490, 545));
-        routes.add(bravo);
-
-        //On dit a chaque route quelle est la suivante
-        crosswind.setNextRoute(downwind);
-        upwind.setNextRoute(crosswind);
-        base.setNextRoute(upwind);
-        downwind.setNextRoute(base);
-        crosswindRN.setNextRoute(downwind);
-        runwayLanding.setNextRoute(bravo);
-        runwayTO.setNextRoute(crosswindRN);
-        alpha.setNextRoute(runwayTO);
-        charlie.setNextRoute(alpha);
-        bravo.setNextRoute(charlie);
-        finale.setNextRoute(runwayLanding);
-
-        //Création des routes de parking
-        int i = 1;
-        for(Parking p : getAirport().getParkings()){
-            ParkingRoute pr = new ParkingRoute(30,0,"P"+i,3,3,context.emptyRoute);
-            pr.setStartPoint(new Point((475+(i-1)*200),665));
-            pr.setEndPoint((475+(i-1)*200),715);
-            pr.setNextRoute(charlie);
-            parkingRoutes.add(pr);
-            Log.i("ParkingRoute","Created a parking route "+pr.getName()+" with startPoint :("+pr.getStartPoint().x+","+pr.getStartPoint().y+") and endPoint :("+pr.getEndPoint().x+","+pr.getEndPoint().y+")");
-            ++i;
-        }
+        world = new World(loadLayout(LAYOUT_ASSET));
+        world.setListener(this);
 
+        rateIndex = 0;
+        rate = RATES[rateIndex]; // refresh rate
+        this.sentenceBuilder = new SentenceBuilder(this);
+        this.simulationLoop = new SimulationLoop(world);
+        this.recorder = new SessionRecorder(world);
     }
 
     /**
-     * Getter pour une route en fonction de son nom
-     * @param name
+     * Charge un plan d'aéroport des assets, avec son cache binaire dans le dossier de cache de l'application
+     * Si le plan ne peut pas être lu, c'est le plan par défaut du modèle qui est utilisé
+     * @param asset
      * @return
      */
-    public Route getRouteByName(String name) {
-        for (Route r : routes) {
-            if (r.getName().equals(name))
-                return r;
-        }
-        for (ParkingRoute r : parkingRoutes){
-            if(r.getName().equals(name)){
-                return r;
+    private AirportLayout loadLayout(String asset) {
+        InputStream in = null;
+        try {
+            in = context.getAssets().open(asset);
+            return LayoutLoader.load(in, new File(context.getCacheDir(), asset + ".bin"));
+        } catch (IOException e) {
+            Log.i("Layout", e.toString());
+            return AirportLayout.getDefault();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    Log.i("Layout", e.toString());
+                }
             }
         }
-        return null;
-    }
-
-    public void createMockupPlanes(){
-        //Création des modèles d'avions
-        mockupPlanes.add(new Plane(context, "R328FS", 475, 715, 0,3, parkingRoutes.get(0), new DepartingState(this)));
-        mockupPlanes.add(new Plane(context, "N851TB", 150, 850, 90,1, upwind, new ArrivingState(this)));
-        mockupPlanes.add(new Plane(context, "J458DS", 1750, 200, 270,1, downwind, new ArrivingState(this)));
-        mockupPlanes.add(new Plane(context, "ZEQ54D", 675, 715, 0,3, parkingRoutes.get(1), new DepartingState(this)));
-
-        mockupPlanes.add(new Plane(context, "F8X65Z", 875, 715, 270,3, parkingRoutes.get(2), new DepartingState(this)));
-        mockupPlanes.add(new Plane(context, "AB74ZE", 150, 850, 90,1, upwind, new ArrivingState(this)));
-        mockupPlanes.add(new Plane(context, "PO15AZ", 1750, 200, 270,1, downwind, new ArrivingState(this)));
-        mockupPlanes.add(new Plane(context, "ZEQ54D", 1075, 715, 0,3, parkingRoutes.get(3), new DepartingState(this)));
-
-        mockupPlanes.add(new Plane(context, "SD47AZ", 1275, 715, 270,3, parkingRoutes.get(4), new DepartingState(this)));
-        mockupPlanes.add(new Plane(context, "UF48XW", 150, 850, 90,1, upwind, new ArrivingState(this)));
-        mockupPlanes.add(new Plane(context, "LKI85X", 1750, 200, 270,1, downwind, new ArrivingState(this)));
-        mockupPlanes.add(new Plane(context, "ZEQ54D", 1450, 715, 0,3, parkingRoutes.get(5), new DepartingState(this)));
-
-        mockupPlanes.add(new Plane(context, "Q54DEZ", 875, 715, 270,3, parkingRoutes.get(2), new DepartingState(this)));
-        mockupPlanes.add(new Plane(context, "AEG48X", 150, 850, 90,1, upwind, new ArrivingState(this)));
-        mockupPlanes.add(new Plane(context, "JEF48T", 1750, 200, 270,1, downwind, new ArrivingState(this)));
-        mockupPlanes.add(new Plane(context, "ZEQ54D", 475, 715, 0,3, parkingRoutes.get(4), new DepartingState(this)));
     }
 
     /**
-     * Getter pour une parking route en fonction de son nom
-     * @param name
-     * @return
+     * Démarre l'enregistrement de la partie, à appeler une fois les avions chargés et avant le démarrage de la simulation
      */
-    public ParkingRoute getParkingRouteByName(String name) {
-        for (ParkingRoute r : parkingRoutes){
-            if(r.getName().equals(name)){
-                return r;
-            }
+    public void startRecording() {
+        synchronized (world) {
+            recorder.start();
         }
-        return context.emptyParkingRoute;
     }
 
     /**
-     * Getter pour les parking routes
-     * @return
-     */
-    public ArrayList<ParkingRoute> getParkingRoutes(){ return parkingRoutes; }
-
-    /**
-     * Retourne un état d'avion en fonction de son nom
-     * @param name
-     * @return
-     */
-    public PlaneState getPlaneStateByName(String name) {
-        if (name.equals("ArrivingState"))
-            return new ArrivingState(this);
-        else if (name.equals("DepartingState"))
-            return new DepartingState(this);
-        else return null;
-    }
-
-    /**
-     * Getter pour la liste des avions
-     * @return
-     */
-    public ArrayList<Plane> getPlanes() {
-        return planes;
-    }
-
-    /**
-     * Getter pour l'aéroport
-     * @return
-     */
-    public Airport getAirport() {
-        return airport;
-    }
-
-    /**
-     * Ajoute un avion
-     * @param plane
-     */
-    public void addPlane(Plane plane) {
-        planes.add(plane);
-    }
-
-    /**
-     * Supprimer un avion
-     * @param plane
-     */
-    public void removePlane(Plane plane) {
-        planes.remove(plane);
-    }
-
-    /**
-     * Getter pour la route Alpha
-     * @return
-     */
-    public Route getAlpha() {
-        return alpha;
-    }
-
-    /**
-     * Getter pour la route Bravo
-     * @return
-     */
-    public Route getBravo() {
-        return bravo;
-    }
-
-    /**
-     * Getter pour la route Charlie
-     * @return
+     * Ecrit l'enregistrement de la partie jusqu'au tick en cours dans un fichier de l'application
+     * Il peut être rejoué sans affichage avec SessionReplayer
+     * @param fileName
      */
-    public Route getCharlie() {
-        return charlie;
-    }
-
-    /**
-     * Getter pour la route Downwind
-     * @return
-     */
-    public Route getDownwind() {
-        return downwind;
-    }
-
-    /**
-     * Getter pour la route Base
-     * @return
-     */
-    public Route getBase() {
-        return base;
-    }
-
-    /**
-     * Getter pour la route Finale
-     * @return
-     */
-    public Route getFinale() {
-        return finale;
-    }
-
-    /**
-     * Getter pour la route Upwind
-     * @return
-     */
-    public Route getUpwind() {
-        return upwind;
-    }
-
-    /**
-     * Getter pour la route Crosswind
-     * @return
-     */
-    public Route getCrosswind() {
-        return crosswind;
-    }
-
-    /**
-     * Getter pour la route CrosswindRN
-     * @return
-     */
-    public Route getCrosswindRN() {
-        return crosswindRN;
+    public void saveRecording(String fileName) {
+        File file = new File(context.getFilesDir(), fileName);
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            synchronized (world) {
+                recorder.writeTo(out);
+            }
+            Log.i("Recorder", "Session saved: " + file.getAbsolutePath());
+        } catch (IOException e) {
+            Log.i("Recorder", e.toString());
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    Log.i("Recorder", e.toString());
+                }
+            }
+        }
     }
 
     /**
-     * Getter pour la route RunwayTO
+     * Getter pour le monde
+     * Il sert aussi de verrou : tout accès depuis le thread UI doit se faire dans un bloc synchronized (world)
      * @return
      */
-    public RunwayRoute getRunwayTO() {
-        return runwayTO;
+    public World getWorld() {
+        return world;
     }
 
     /**
-     * Getter pour la route RunwayLanding
+     * Getter pour le contexte
      * @return
      */
-    public RunwayRoute getRunwayLanding() {
-        return runwayLanding;
+    public GameActivity getContext() {
+        return context;
     }
 
     /**
-     * Getter pour le contexte
+     * Getter pour la boucle de simulation
      * @return
      */
-    public GameActivity getContext() {
-        return context;
+    public SimulationLoop getSimulationLoop() {
+        return simulationLoop;
     }
 
     /**
@@ -351,145 +160,111 @@ public class GameMgr {
     }
 
     /**
-     * Retourne un avion en fonction de son nom
-     * Retourne l'objet emptyPlane si l'avion n'existe pas
-     * @param name
-     * @return
+     * Construit un nouveau constructeur de phrases
      */
-    public Plane getPlaneByName(String name) {
-        for (Plane p : planes) {
-            if (p.getName().equals(name)) {
-                return p;
-            }
-        }
-        return context.emptyPlane;
+    public void newSentenceBuilder() {
+        sentenceBuilder.releaseCurrPlane();
+        sentenceBuilder = new SentenceBuilder(this);
     }
 
     /**
-     * Construit un nouveau constructeur de phrases
+     * Fin de vie du gestionnaire, à appeler une fois la partie sauvegardée et la simulation arrêtée
+     * Rend les avions à leur réserve ; en debug, vérifie qu'aucune vue d'avion n'est restée retenue
      */
-    public void newSentenceBuilder() {
-        sentenceBuilder = new SentenceBuilder(this);
+    public void release() {
+        simulationLoop.stop();
+        sentenceBuilder.releaseCurrPlane();
+        synchronized (world) {
+            Fleet fleet = world.getFleet();
+            fleet.clear();
+            fleet.checkNoLeaks();
+        }
     }
 
     /**
      * Avance rapide
-     * Augmente de rafraichissement
+     * Augmente le nombre de ticks de simulation par seconde
      */
     public void forward() {
-        if (rate < 10) {
-            ++rate;
-            context.setRefreshRate(rate);
-            Log.i("touch", "rate = " + rate + " ms: " + (1000 / rate));
+        if (rateIndex < RATES.length - 1) {
+            rate = RATES[++rateIndex];
+            simulationLoop.setRate(rate);
+            Log.i("touch", "rate = " + rate);
         }
     }
 
     /**
      * Avance rapide
-     * Réduit le rafraichissement
+     * Réduit le nombre de ticks de simulation par seconde
      */
     public void backward() {
-        if (rate > 1) {
-            --rate;
-            context.setRefreshRate(rate);
-            Log.i("touch", "rate = " + rate + " ms: " + (1000 / rate));
+        if (rateIndex > 0) {
+            rate = RATES[--rateIndex];
+            simulationLoop.setRate(rate);
+            Log.i("touch", "rate = " + rate);
         }
     }
 
     /**
-     * Getter pour le taux de rafraichissement
-     * @return
+     * Saut en avant de SKIP_MINUTES minutes de jeu
+     * Les ticks sont calculés aussi vite que possible par le thread de simulation, sans attendre l'affichage
      */
-    public int getRate() {
-        return rate;
+    public void skipAhead() {
+        simulationLoop.skipAhead(Math.round(SKIP_MINUTES * SimulationLoop.TICKS_PER_MINUTE / simulationLoop.getTimeStep()));
+        Log.i("touch", "skip " + SKIP_MINUTES + " min");
     }
 
     /**
-     * Cette fonction vérifie qu'un avion n'est pas déjà en jeu
-     * @param p
+     * Vérifie si un saut en avant est en cours
      * @return
      */
-    public boolean isPlaneAlreadySpawned(Plane p){
-        if(!getPlaneByName(p.getName()).equals(context.emptyPlane)){ // Il ne peut pas y avoir d'avions ayant le même nom dans tous les cas
-            return true;
-        }else return false;
+    public boolean isSkipping() {
+        return simulationLoop.getSkipRemaining() > 0;
     }
 
     /**
-     * Cette fonction vérifie qu'un avion n'est pas trop proche d'un autre
-     * @param p
+     * Getter pour le taux d'avance rapide
      * @return
      */
-    public boolean isPlaneTooCloseToAnotherPlane(Plane p){
-        for(Plane plane : planes){
-            float diffX = (plane.getBase().x)-(p.getBase().x);
-            float diffY = (plane.getBase().y)-(p.getBase().y);
-
-            if(!p.equals(plane) && diffX <= 10 && diffX > -10 && diffY <= 10 && diffY > -10){
-                Log.i("Proximity",plane.getName()+" is too close from "+p.getName()+" diff("+diffX+","+diffY+")");
-                return true;
-            }
-        }
-        return false;
+    public int getRate() {
+        return rate;
     }
 
-    public void gameOver(){
-            AlertDialog.Builder builder = new AlertDialog.Builder(context, R.style.Theme_AppCompat_DayNight);
-
-            builder.setMessage(R.string.game_over_text)
-                    .setTitle(R.string.game_over_title);
-            // Add the buttons
-            builder.setNeutralButton(R.string.game_over_ok, new DialogInterface.OnClickListener() {
-                public void onClick(DialogInterface dialog, int id) {
-                    context.resetSave();
-                    Toast.makeText(context, context.getResources().getString(R.string.options_reset_save_toast_text), Toast.LENGTH_SHORT).show();
-                    context.finish();
-                }
-            });
-
-            AlertDialog dialog = builder.create();
-            dialog.show();
-            gameOver = true;
+    /**
+     * Fin de partie, appelée depuis le thread de simulation
+     * La boite de dialogue est créée sur le thread UI
+     */
+    @Override
+    public void onGameOver(){
+        context.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                saveRecording(RECORDING_FILE); // Pour pouvoir rejouer la partie perdue
+
+                AlertDialog.Builder builder = new AlertDialog.Builder(context, R.style.Theme_AppCompat_DayNight);
+
+                builder.setMessage(R.string.game_over_text)
+                        .setTitle(R.string.game_over_title);
+                // Add the buttons
+                builder.setNeutralButton(R.string.game_over_ok, new DialogInterface.OnClickListener() {
+                    public void onClick(DialogInterface dialog, int id) {
+                        context.resetSave();
+                        Toast.makeText(context, context.getResources().getString(R.string.options_reset_save_toast_text), Toast.LENGTH_SHORT).show();
+                        context.finish();
+                    }
+                });
+
+                AlertDialog dialog = builder.create();
+                dialog.show();
+            }
+        });
     }
 
     /**
-     * Cette fonction va checker les coordonées des avions et enlever les objets en dehors des coordonnées
-     * Elle va aussi rajouter quelques avions, le nombre ici est 2 et arbitraire. Il pourrait être augmenté
-     * dans l'application elle même comme un choix de difficulté
+     * Met à jour le choix des avions sur le thread UI si aucune phrase n'est en cours
      */
-    public void cleanupPlanes() {
-        Log.i("Cleanup","Currently "+planes.size()+" planes");
-        for (int i = 0; i < planes.size(); ++i) {
-            Plane p = planes.get(i);
-            if(isPlaneTooCloseToAnotherPlane(p) && !gameOver) {
-                gameOver();
-            }
-            else if (p.isOutOfScreen() || p.isMarkedForRemoval()) {
-                Log.i("Cleanup","Deleting "+p.getName());
-                planes.remove(i);
-                if(getSentenceBuilder().isSentenceEmpty()) {
-                    //On met à jour le choix des avions
-                    context.clearChoices();
-                    getSentenceBuilder().buildSentence();
-                }
-            }
-        }
-        while (planes.size() < (Options.getDifficulty()+1)*2) {
-            Random r = new Random();
-            Plane p;
-            Log.i("Cleanup","Planes size is now "+planes.size());
-            do {
-                int rand = r.nextInt(mockupPlanes.size()-1);
-                p = mockupPlanes.get(rand);
-            } while (isPlaneAlreadySpawned(p) || isPlaneTooCloseToAnotherPlane(p));
-            //On ajoute un nouvel avion basé sur le mockup
-            addPlane(new Plane(context,p.getName(),p.getBase().x,p.getBase().y,p.getHeading(),p.getBehavior(),p.getRoute(),p.getPlaneState()));
-            Log.i("Cleanup","Added a new planes based on "+p.getName());
-            if(getSentenceBuilder().isSentenceEmpty()) {
-                //On met à jour le choix des avions
-                context.clearChoices();
-                getSentenceBuilder().buildSentence();
-            }
-        }
+    @Override
+    public void onPlanesChanged() {
+        context.runOnUiThread(refreshChoices);
     }
 }
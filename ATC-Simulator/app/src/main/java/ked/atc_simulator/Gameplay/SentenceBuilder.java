@@ -5,13 +5,13 @@ import android.view.View;
 import android.widget.Button;
 
 import java.util.ArrayList;
+import java.util.Locale;
 
 import ked.atc_simulator.Entities.Parking;
 import ked.atc_simulator.Entities.Plane;
 import ked.atc_simulator.GameActivity;
 import ked.atc_simulator.R;
-import ked.atc_simulator.State.ArrivingState;
-import ked.atc_simulator.State.DepartingState;
+import ked.atc_simulator.Utils.IntList;
 
 /**
  * Classe permettant de construire les phrases que le joueur dit aux avions
@@ -20,9 +20,11 @@ import ked.atc_simulator.State.DepartingState;
 public class SentenceBuilder {
 
     private GameMgr gameMgr;
+    private World world;
     private String sentence;
     private GameActivity gameActivity;
     private Plane currPlane;
+    private boolean currPlaneRetained; // La vue de currPlane est retenue dans la flotte (voir Fleet.retain())
     private int behavior;
 
     /**
@@ -31,6 +33,7 @@ public class SentenceBuilder {
      */
     public SentenceBuilder(GameMgr gameMgr){
         this.gameMgr = gameMgr;
+        this.world = gameMgr.getWorld();
         sentence = "";
         gameActivity = gameMgr.getContext();
         behavior = 3;
@@ -47,19 +50,26 @@ public class SentenceBuilder {
      */
     public void buildSentence(){
         sentence = "";
-        ArrayList<Plane> planes = gameMgr.getPlanes();
-        Log.i("Sentence","Got "+planes.size()+" planes");
+        releaseCurrPlane(); // La phrase précédente est finie ou abandonnée
+        ArrayList<String> names = new ArrayList<>();
+        synchronized (world) { // La flotte est modifiée par le thread de simulation, on copie les noms des avions
+            for (Plane p : world.getPlanes())
+                names.add(p.getName());
+        }
+        Log.i("Sentence","Got "+names.size()+" planes");
         gameActivity.clearChoices();
-        for(Plane p : planes){
+        for(String name : names){
             Button button = new Button(gameActivity);
-            button.setText(p.getName());
+            button.setText(name);
             gameActivity.choicesAddButton(button);
             button.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
                     sentence += ((Button)v).getText().toString();
-                    currPlane = gameMgr.getPlaneByName(sentence);
-                    if(currPlane.equals(gameMgr.getContext().emptyPlane)){
+                    synchronized (world) {
+                        selectPlane(world.getPlaneByName(sentence));
+                    }
+                    if(currPlane.equals(world.getEmptyPlane())){
                         Log.i("Sentence","currPlane is null");
                         return;
                     }
@@ -103,20 +113,28 @@ public class SentenceBuilder {
                     });
                     Button buttonStop = new Button(gameActivity);
                     gameActivity.choicesAddButton(buttonStop);
-                    if(currPlane.getBehavior() != 3)
+                    if(getCurrPlaneBehavior() != 3)
                         buttonStop.setText(R.string.sentence_stop);
                     else
                         buttonStop.setText(R.string.sentence_continue);
                     buttonStop.setOnClickListener(new View.OnClickListener() {
                         @Override
                         public void onClick(View v) {
-                            if(currPlane.getBehavior() != 3) {
+                            if(getCurrPlaneBehavior() != 3) {
                                 sentence += gameActivity.getResources().getString(R.string.sentence_stop) + " ";
-                                currPlane.setBehavior(3);//Stop
+                                synchronized (world) {
+                                    if (currPlane.isAlive()) { // L'avion a pu quitter le jeu pendant la construction de la phrase
+                                        currPlane.setBehavior(3);//Stop
+                                    }
+                                }
                             }
                             else {
                                 sentence += gameActivity.getResources().getString(R.string.sentence_continue)+" ";
-                                currPlane.setBehavior(2);//Continue until runway
+                                synchronized (world) {
+                                    if (currPlane.isAlive()) { // L'avion a pu quitter le jeu pendant la construction de la phrase
+                                        currPlane.setBehavior(2);//Continue until runway
+                                    }
+                                }
                             }
                             gameActivity.setSentence(sentence);
                             buildSentence();
@@ -127,6 +145,43 @@ public class SentenceBuilder {
         }
     }
 
+    /**
+     * Sélectionne l'avion à qui la phrase est adressée, à appeler avec le verrou du monde
+     * Sa vue est retenue jusqu'à la fin de la phrase pour pouvoir vérifier qu'il est toujours en jeu
+     * @param plane
+     */
+    private void selectPlane(Plane plane) {
+        releaseCurrPlane();
+        currPlane = plane;
+        if (!plane.equals(world.getEmptyPlane())) {
+            world.getFleet().retain(plane);
+            currPlaneRetained = true;
+        }
+    }
+
+    /**
+     * Relâche la vue de l'avion sélectionné, à appeler quand la phrase est finie ou abandonnée
+     */
+    public void releaseCurrPlane() {
+        synchronized (world) {
+            if (currPlaneRetained) {
+                world.getFleet().release(currPlane);
+                currPlaneRetained = false;
+            }
+        }
+    }
+
+    /**
+     * Getter pour le comportement de l'avion sélectionné
+     * Retourne 3 (arrêté) si l'avion a quitté le jeu entre temps
+     * @return
+     */
+    private int getCurrPlaneBehavior() {
+        synchronized (world) {
+            return currPlane.isAlive() ? currPlane.getBehavior() : 3;
+        }
+    }
+
     /**
      * Permet de construire l'autorisation au taxi
      */
@@ -144,9 +199,7 @@ public class SentenceBuilder {
                 sentence += gameActivity.getResources().getString(R.string.sentence_taxi_via)+" ";
                 gameActivity.clearChoices();
                 gameActivity.setSentence(sentence);
-                buildAlphaButton();
-                buildBravoButton();
-                buildCharlieButton();
+                buildTaxiRouteButton();
             }
         });
 
@@ -165,7 +218,7 @@ public class SentenceBuilder {
     }
 
     public void buildParkings(){
-        ArrayList<Parking> parkings = gameMgr.getAirport().getParkings();
+        ArrayList<Parking> parkings = world.getAirport().getParkings();
         for(Parking p : parkings){
             Button button = new Button(gameActivity);
             gameActivity.choicesAddButton(button);
@@ -174,13 +227,18 @@ public class SentenceBuilder {
                 @Override
                 public void onClick(View view) {
                     String parkingName = ((Button)view).getText().toString();
-                    ParkingRoute parkingRoute = gameMgr.getParkingRouteByName(parkingName);
-                    currPlane.setParkingRoute(parkingRoute);
+                    ParkingRoute parkingRoute = world.getParkingRouteByName(parkingName);
+                    String taxiways;
+                    synchronized (world) {
+                        taxiways = describeTaxiRoute(parkingRoute);
+                        if (currPlane.isAlive()) { // L'avion a pu quitter le jeu pendant la construction de la phrase
+                            currPlane.setParkingRoute(parkingRoute);
+                            currPlane.setBehavior(2);
+                        }
+                    }
                     sentence += parkingName+" ";
-                    sentence += gameActivity.getResources().getString(R.string.sentence_taxi_via)+" "
-                                +gameActivity.getResources().getString(R.string.sentence_taxi_bravo)+" "
-                                +gameActivity.getResources().getString(R.string.sentence_taxi_charlie)+" ";
-                    currPlane.setBehavior(2);
+                    if (!taxiways.isEmpty())
+                        sentence += gameActivity.getResources().getString(R.string.sentence_taxi_via)+" "+taxiways+" ";
                     gameActivity.setSentence(sentence);
                     gameActivity.clearChoices();
                     buildSentence();
@@ -198,12 +256,15 @@ public class SentenceBuilder {
         gameActivity.clearChoices();
         Button buttonRunway27 = new Button(gameActivity);
         gameActivity.choicesAddButton(buttonRunway27);
-        buttonRunway27.setText(R.string.sentence_takeoff_rw27);
+        buttonRunway27.setText(runwayText(R.string.sentence_takeoff_rw27, world.getRunwayTO(), RunwayScheduler.DEPARTURE));
         buttonRunway27.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                currPlane.setBehavior(0);// Normal
-                currPlane.setPlaneState(new DepartingState(gameMgr));
+                synchronized (world) {
+                    if (currPlane.isAlive()) { // L'avion a pu quitter le jeu pendant la construction de la phrase
+                        currPlane.requestRunway(RunwayScheduler.DEPARTURE); // Il décolle quand la piste lui est donnée
+                    }
+                }
                 sentence += gameActivity.getResources().getString(R.string.sentence_takeoff_rw27);
                 gameActivity.clearChoices();
                 Log.i("Sentence","the sentence is : "+sentence);
@@ -221,12 +282,15 @@ public class SentenceBuilder {
         gameActivity.clearChoices();
         Button buttonRunway27 = new Button(gameActivity);
         gameActivity.choicesAddButton(buttonRunway27);
-        buttonRunway27.setText(R.string.sentence_takeoff_rw27);
+        buttonRunway27.setText(runwayText(R.string.sentence_takeoff_rw27, world.getRunwayLanding(), RunwayScheduler.ARRIVAL));
         buttonRunway27.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                currPlane.setBehavior(0);// Normal
-                currPlane.setPlaneState(new ArrivingState(gameMgr));
+                synchronized (world) {
+                    if (currPlane.isAlive()) { // L'avion a pu quitter le jeu pendant la construction de la phrase
+                        currPlane.requestRunway(RunwayScheduler.ARRIVAL); // Il atterrit quand la piste lui est donnée
+                    }
+                }
                 sentence += gameActivity.getResources().getString(R.string.sentence_takeoff_rw27);
                 gameActivity.clearChoices();
                 Log.i("Sentence","the sentence is : "+sentence);
@@ -237,59 +301,78 @@ public class SentenceBuilder {
     }
 
     /**
-     * Construit le bouton Alpha
+     * Donne le texte du bouton d'une piste, avec l'attente estimée si la piste n'est pas libre tout de suite
+     * @param text - Le nom de la piste
+     * @param route - La route de piste utilisée
+     * @param kind - RunwayScheduler.ARRIVAL ou RunwayScheduler.DEPARTURE
+     * @return
      */
-    public void buildAlphaButton(){
-        Button buttonAlpha = new Button(gameActivity);
-        gameActivity.choicesAddButton(buttonAlpha);
-        buttonAlpha.setText(R.string.sentence_taxi_alpha);
-        buttonAlpha.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                gameActivity.clearChoices();
-                sentence += gameActivity.getResources().getString(R.string.sentence_taxi_alpha)+" ";
-                Log.i("Sentence","the sentence is : "+sentence);
-                gameActivity.setSentence(sentence);
-                currPlane.setBehavior(behavior);
-                buildSentence();
-            }
-        });
+    private String runwayText(int text, RunwayRoute route, int kind) {
+        String name = gameActivity.getResources().getString(text);
+        long wait;
+        synchronized (world) {
+            RunwayScheduler scheduler = world.getRunwayScheduler();
+            long now = world.getTickCount();
+            wait = scheduler.getNextFreeSlot(scheduler.getRunwayOf(route.getId()), kind, now) - now;
+            wait = Math.round(wait * world.getFleet().getTimeStep());
+        }
+        if (wait <= 0)
+            return name;
+        return gameActivity.getResources().getString(R.string.sentence_runway_wait, name, wait);
     }
 
     /**
-     * Construit le bouton Bravo
+     * Construit le bouton du chemin jusqu'au point d'arrêt de la piste, calculé par le routage au sol
      */
-    public void buildBravoButton(){
-        Button buttonBravo = new Button(gameActivity);
-        gameActivity.choicesAddButton(buttonBravo);
-        buttonBravo.setText(R.string.sentence_taxi_bravo);
-        buttonBravo.setOnClickListener(new View.OnClickListener() {
+    public void buildTaxiRouteButton(){
+        String taxiways;
+        synchronized (world) {
+            taxiways = describeTaxiRoute(world.getRunwayTO());
+        }
+        Button buttonRoute = new Button(gameActivity);
+        gameActivity.choicesAddButton(buttonRoute);
+        if (taxiways.isEmpty()) // L'avion est déjà au bout du chemin
+            buttonRoute.setText(R.string.sentence_rw27);
+        else buttonRoute.setText(taxiways);
+        buttonRoute.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
                 gameActivity.clearChoices();
-                sentence += gameActivity.getResources().getString(R.string.sentence_taxi_bravo)+" ";
+                sentence += ((Button)v).getText().toString()+" ";
+                Log.i("Sentence","the sentence is : "+sentence);
                 gameActivity.setSentence(sentence);
-                buildCharlieButton();
+                synchronized (world) {
+                    if (currPlane.isAlive()) { // L'avion a pu quitter le jeu pendant la construction de la phrase
+                        currPlane.setBehavior(behavior);
+                    }
+                }
+                buildSentence();
             }
         });
     }
 
     /**
-     * Construit le bouton Charlie
+     * Donne les taxiways que l'avion sélectionné empruntera pour aller jusqu'à une route, à appeler avec le verrou du monde
+     * Un avion encore en vol part de la piste d'atterrissage
+     * @param destination
+     * @return les noms des taxiways séparés par des espaces, vide s'il n'y en a pas
      */
-    public void buildCharlieButton(){
-        Button buttonCharlie = new Button(gameActivity);
-        gameActivity.choicesAddButton(buttonCharlie);
-        buttonCharlie.setText(R.string.sentence_taxi_charlie);
-        buttonCharlie.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                gameActivity.clearChoices();
-                sentence += gameActivity.getResources().getString(R.string.sentence_taxi_charlie)+" ";
-                gameActivity.setSentence(sentence);
-                buildAlphaButton();
-            }
-        });
+    private String describeTaxiRoute(Route destination) {
+        TaxiRouter router = world.getTaxiRouter();
+        int from = world.getRunwayLanding().getId();
+        if (currPlane.isAlive() && router.isGroundRoute(currPlane.getRoute().getId()))
+            from = currPlane.getRoute().getId();
+        IntList path = new IntList(8);
+        router.getPath(from, destination.getId(), path);
+        StringBuilder taxiways = new StringBuilder();
+        for (int i = 0; i < path.size(); ++i) {
+            if (!router.isTaxiway(path.get(i)))
+                continue;
+            if (taxiways.length() > 0)
+                taxiways.append(' ');
+            taxiways.append(world.getRoute(path.get(i)).getName().toLowerCase(Locale.ROOT));
+        }
+        return taxiways.toString();
     }
 
 }
@@ -228,7 +228,7 @@ public class XMLParser {
      * @param planes
      * @throws IOException
      */
-    public void write(Context context, ArrayList<Plane> planes) throws IOException {
+    public void write(Context context, List<Plane> planes) throws IOException {
 
         FileOutputStream fileos = new FileOutputStream(context.getFilesDir()+"/save.xml");//Environment.getExternalStorageDirectory().getAbsolutePath()+"/Android/data/ked.atc-simulator/files/save.xml");
         XmlSerializer xmlSerializer = Xml.newSerializer();
@@ -242,10 +242,10 @@ public class XMLParser {
             xmlSerializer.text(p.getName());
             xmlSerializer.endTag(null, "nom");
             xmlSerializer.startTag(null, "x");
-            xmlSerializer.text("" + p.getBase().x);
+            xmlSerializer.text("" + p.getX());
             xmlSerializer.endTag(null, "x");
             xmlSerializer.startTag(null, "y");
-            xmlSerializer.text("" + p.getBase().y);
+            xmlSerializer.text("" + p.getY());
             xmlSerializer.endTag(null, "y");
             xmlSerializer.startTag(null, "heading");
             xmlSerializer.text("" + p.getHeading());
@@ -3,8 +3,6 @@ package ked.atc_simulator.Entities;
 
 import java.util.ArrayList;
 
-import ked.atc_simulator.Canvas.RunwayPath;
-
 /**
  * Classe contenant les pistes et les taxiway
  */
@@ -1,35 +1,27 @@
 package ked.atc_simulator.Entities;
 
-import android.content.Context;
-
-import ked.atc_simulator.Canvas.ParkingPath;
-import ked.atc_simulator.Canvas.Point;
-import ked.atc_simulator.GameActivity;
+import ked.atc_simulator.Utils.Point;
 
 /**
  * Classe contenant les informations relatives aux parkings
+ * Le dessin du parking est géré par l'application (voir ParkingPath)
  */
 
 public class Parking {
 
-    private ParkingPath path;
     private String name;
     private Point base;
     private float hOffSet, vOffSet,lenght,heading;
 
-    public Parking(GameActivity context, String name, Point base, float lenght, float heading, float hOffSet, float vOffSet) {
-        this.path = new ParkingPath(context,base,lenght,heading);
+    public Parking(String name, Point base, float lenght, float heading, float hOffSet, float vOffSet) {
         this.name = name;
         this.base = base;
         this.lenght = lenght;
+        this.heading = heading;
         this.hOffSet = hOffSet;
         this.vOffSet = vOffSet;
     }
 
-    public ParkingPath getPath() {
-        return path;
-    }
-
     public String getName() {
         return name;
     }
@@ -0,0 +1,266 @@
+package ked.atc_simulator.Entities;
+
+
+import ked.atc_simulator.Gameplay.Fleet;
+import ked.atc_simulator.Gameplay.ParkingRoute;
+import ked.atc_simulator.Gameplay.Route;
+import ked.atc_simulator.Gameplay.RunwayScheduler;
+import ked.atc_simulator.Gameplay.SessionRecorder;
+import ked.atc_simulator.Gameplay.World;
+import ked.atc_simulator.State.PlaneState;
+
+/**
+ * Cette classe est une vue sur un avion stocké dans une flotte (voir Fleet)
+ * Elle ne contient que le handle de l'avion, les attributs sont lus et écrits dans les tableaux de la flotte
+ * Une vue reste valide tant que l'avion n'a pas été supprimé, même si sa position dans la flotte change
+ * Les vues sont réutilisées par la flotte pour les nouveaux avions : pour garder une vue d'un tick à l'autre
+ * et pouvoir vérifier ensuite que son avion est toujours en jeu, il faut la retenir (voir Fleet.retain())
+ * Toutes les coordonnées sont en coordonnées de jeu (0 à 1920 en x, 0 à 1080 en y),
+ * la conversion vers l'écran est faite par l'application au moment du dessin
+ */
+public class Plane {
+
+    private Fleet fleet;
+    private int handle;
+    private int retainCount; // Nombre de Fleet.retain() sans Fleet.release(), géré par la flotte
+
+    /**
+     * Constructeur de la classe Plane, appelé par la flotte à l'ajout d'un avion
+     *
+     * @param fleet  - La flotte qui contient l'avion
+     * @param handle - Le handle de l'avion dans la flotte
+     */
+    public Plane(Fleet fleet, int handle) {
+        this.fleet = fleet;
+        this.handle = handle;
+    }
+
+    /**
+     * Constructeur vide pour créer un objet EmptyPlane permettant de vérifier quand Plane est vide,
+     * ou une vue de la réserve de la flotte, liée ensuite avec bind()
+     */
+    public Plane() {
+    }
+
+    /**
+     * Lie la vue à un avion, appelée par la flotte quand elle réutilise la vue
+     *
+     * @param fleet  - La flotte qui contient l'avion
+     * @param handle - Le handle de l'avion dans la flotte
+     */
+    public void bind(Fleet fleet, int handle) {
+        this.fleet = fleet;
+        this.handle = handle;
+    }
+
+    /**
+     * Getter pour le nombre de fois où la vue est retenue
+     *
+     * @return
+     */
+    public int getRetainCount() {
+        return retainCount;
+    }
+
+    /**
+     * Setter pour le nombre de fois où la vue est retenue, appelé par la flotte
+     *
+     * @param retainCount
+     */
+    public void setRetainCount(int retainCount) {
+        this.retainCount = retainCount;
+    }
+
+    /**
+     * Getter pour le handle de l'avion
+     *
+     * @return
+     */
+    public int getHandle() {
+        return handle;
+    }
+
+    /**
+     * Vérifie que l'avion est toujours en jeu
+     *
+     * @return
+     */
+    public boolean isAlive() {
+        return fleet != null && fleet.slotOf(handle) >= 0;
+    }
+
+    /**
+     * Retourne la position actuelle de l'avion dans la flotte
+     * Lève une exception si l'avion a été supprimé
+     *
+     * @return
+     */
+    private int slot() {
+        int slot = fleet == null ? -1 : fleet.slotOf(handle);
+        if (slot < 0)
+            throw new IllegalStateException("Plane has been removed");
+        return slot;
+    }
+
+    private World world() {
+        return fleet.getWorld();
+    }
+
+    /**
+     * Setter pour la route de l'avion
+     *
+     * @param route
+     */
+    public void setRoute(Route route) {
+        int slot = slot();
+        world().recordCommand(SessionRecorder.SET_ROUTE, slot, route.getId());
+        fleet.setRouteId(slot, route.getId());
+        fleet.setHeading(slot, route.getHeading());
+    }
+
+    /**
+     * Setter pour le comportement de l'avion
+     *
+     * @param b
+     */
+    public void setBehavior(int b) {
+        int slot = slot();
+        world().recordCommand(SessionRecorder.SET_BEHAVIOR, slot, b);
+        if (b == 3 && !world().getTransitions().canStop(fleet.getRouteId(slot))) { // On ne s'arrête que sur les taxiways
+            fleet.setBehavior(slot, 2);
+        } else fleet.setBehavior(slot, b);
+    }
+
+    /**
+     * Getter pour la coordonnée X de l'avion
+     *
+     * @return
+     */
+    public float getX() {
+        return fleet.getX(slot());
+    }
+
+    /**
+     * Getter pour la coordonnée Y de l'avion
+     *
+     * @return
+     */
+    public float getY() {
+        return fleet.getY(slot());
+    }
+
+    /**
+     * Getter pour la route de l'avion
+     *
+     * @return
+     */
+    public Route getRoute() {
+        return world().getRoute(fleet.getRouteId(slot()));
+    }
+
+    /**
+     * Getter pour le comportement de l'avion
+     *
+     * @return
+     */
+    public int getBehavior() {
+        return fleet.getBehavior(slot());
+    }
+
+    /**
+     * Getter pour le cap de l'avion
+     *
+     * @return
+     */
+    public float getHeading() {
+        return fleet.getHeading(slot());
+    }
+
+    /**
+     * Getter pour la vitesse de l'avion
+     *
+     * @return
+     */
+    public float getSpeed() {
+        return fleet.getSpeed(slot());
+    }
+
+    /**
+     * Getter pour l'état de l'avion
+     *
+     * @return
+     */
+    public PlaneState getPlaneState() {
+        return world().getPlaneState(fleet.getStateId(slot()));
+    }
+
+    /**
+     * Setter pour l'état de l'avion
+     *
+     * @param planeState
+     */
+    public void setPlaneState(PlaneState planeState) {
+        int slot = slot();
+        world().recordCommand(SessionRecorder.SET_STATE, slot, planeState.getId());
+        fleet.setStateId(slot, planeState.getId());
+    }
+
+    /**
+     * Demande la piste pour un décollage ou un atterrissage (voir RunwayScheduler)
+     * L'avion attend son tour, il continue vers la piste quand elle lui est donnée
+     *
+     * @param kind - RunwayScheduler.ARRIVAL ou RunwayScheduler.DEPARTURE
+     * @return la piste demandée, RunwayScheduler.NO_RUNWAY si l'avion ne passe par aucune piste
+     */
+    public int requestRunway(int kind) {
+        int slot = slot();
+        world().recordCommand(SessionRecorder.REQUEST_RUNWAY, slot, kind);
+        return world().getRunwayScheduler().request(slot, kind, world().getTickCount());
+    }
+
+    /**
+     * Getter pour le nom de l'avion
+     *
+     * @return
+     */
+    public String getName() {
+        return fleet.getName(slot());
+    }
+
+    /**
+     * Getter pour le marquage de l'avion
+     * Le marquage permet de désigner l'avion comme "à supprimer" au prochain rafraichissement
+     *
+     * @return
+     */
+    public boolean isMarkedForRemoval() {
+        return fleet.isMarkedForRemoval(slot());
+    }
+
+    /**
+     * Getter pour l'objet parkingRoute
+     *
+     * @return
+     */
+    public ParkingRoute getParkingRoute() {
+        return world().getParkingRoute(fleet.getParkingRouteId(slot()));
+    }
+
+    /**
+     * Setter pour l'objet parkingRoute
+     *
+     * @param parkingRoute
+     */
+    public void setParkingRoute(ParkingRoute parkingRoute) {
+        int slot = slot();
+        world().recordCommand(SessionRecorder.SET_PARKING, slot, parkingRoute.getId());
+        fleet.setParkingRouteId(slot, parkingRoute.getId());
+    }
+
+    /* Cette fonction vérifie que l'avion est toujours sur l'écran de façon à supprimer ceux qui en sortent
+     *
+     */
+    public boolean isOutOfScreen() {
+        return fleet.isOutOfScreen(slot());
+    }
+}
@@ -1,33 +1,33 @@
 package ked.atc_simulator.Entities;
 
 
-import ked.atc_simulator.Canvas.Point;
-
-import ked.atc_simulator.Canvas.RunwayPath;
-import ked.atc_simulator.GameActivity;
+import ked.atc_simulator.Utils.Point;
 
 /**
  * Cette classe contient les informations d'une piste
  * Il n'y a pas de Setter définit car les informations ne sont pas
  * sensées changer
+ * Le dessin de la piste est géré par l'application (voir RunwayPath)
  */
 public class Runway {
 
-    private RunwayPath path;
+    private Point base;
+    private float lenght, heading;
     private int number;
 
     /**
      * Constructeur de la classe Runway
-     * @param context
      * @param x
      * @param y
      * @param lenght - taille de la piste
      * @param heading - cap de la piste
      */
-    public Runway(GameActivity context, float x, float y, float lenght, float heading){
+    public Runway(float x, float y, float lenght, float heading){
 
         number = ((int)heading)/10;// Le numéro de piste correspond au cap / 10. Pour une piste au cap 241 : Piste 24
-        path = new RunwayPath(context, new Point(x,y),lenght,heading);
+        base = new Point(x,y);
+        this.lenght = lenght;
+        this.heading = heading;
 
     }
 
@@ -38,8 +38,20 @@ public class Runway {
     public int getNumber() { return number; }
 
     /**
-     * Getter du path de la piste
+     * Getter du point central de la piste
+     * @return
+     */
+    public Point getBase() { return base; }
+
+    /**
+     * Getter de la taille de la piste
+     * @return
+     */
+    public float getLenght() { return lenght; }
+
+    /**
+     * Getter du cap de la piste
      * @return
      */
-    public RunwayPath getPath(){ return path; }
+    public float getHeading() { return heading; }
 }
@@ -1,23 +1,19 @@
 package ked.atc_simulator.Entities;
 
 
-import ked.atc_simulator.Canvas.Point;
-import ked.atc_simulator.Canvas.TaxiwayPath;
-import ked.atc_simulator.GameActivity;
 
 /**
  * Cette classe contient les informations relatives à un Taxiway
  * Il n'y a pas de Setter car les informations ne sont pas sensées changer
+ * Le dessin du taxiway est géré par l'application (voir TaxiwayPath)
  */
 public class Taxiway {
 
-    private TaxiwayPath path;
     private String nom;
     private float x,y,lenght,heading, hOffset, vOffset;
 
     /**
      * Constructeur de la classe Taxiway
-     * @param context
      * @param x - Coordonnée X du point de base du taxiway
      * @param y - Coordonnée Y du point de base du taxiway
      * @param lenght - taille
@@ -26,8 +22,7 @@ public class Taxiway {
      * @param hOffset - Le décalage horizontal utilisé pour écrire le nom du taxiway
      * @param vOffset - Le décalage vertical utilisé pour écrire le nom du taxiway
      */
-    public Taxiway(GameActivity context, float x, float y, float lenght, float heading, String nom, float hOffset, float vOffset){
-        path = new TaxiwayPath(context,new Point(x,y),lenght,heading);
+    public Taxiway(float x, float y, float lenght, float heading, String nom, float hOffset, float vOffset){
         this.nom = nom;
         this.x = x;
         this.y = y;
@@ -44,10 +39,16 @@ public class Taxiway {
     public String getNom() { return nom; }
 
     /**
-     * Getter pour le path du taxiway
+     * Getter pour la taille du taxiway
      * @return
      */
-    public TaxiwayPath getPath() { return path; }
+    public float getLenght() { return lenght; }
+
+    /**
+     * Getter pour le cap du taxiway
+     * @return
+     */
+    public float getHeading() { return heading; }
 
     /**
      * Getter pour la coordonnée X du taxiway
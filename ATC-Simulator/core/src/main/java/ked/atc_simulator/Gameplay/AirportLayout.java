@@ -0,0 +1,509 @@
+package ked.atc_simulator.Gameplay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import ked.atc_simulator.Entities.Airport;
+import ked.atc_simulator.Entities.Parking;
+import ked.atc_simulator.Entities.Runway;
+import ked.atc_simulator.Entities.Taxiway;
+import ked.atc_simulator.Utils.Point;
+
+/**
+ * Cette classe contient le plan d'un aéroport : pistes, taxiways, parkings et routes, sous forme de tableaux
+ * Elle est construite une fois à partir d'un fichier de plan (voir LayoutLoader), puis chaque monde construit
+ * ses propres objets à partir d'elle. La table de transitions et la table des chemins au sol, qui ne dépendent
+ * que des routes, sont compilées une fois avec compile() et partagées par tous les mondes
+ *
+ * Le plan peut être écrit et relu en binaire (writeTo(), readFrom()) : c'est le cache utilisé au démarrage
+ */
+public class AirportLayout {
+
+    public static final String DEFAULT_LAYOUT = "/layouts/default.layout"; // Ressource du plan par défaut
+
+    // Types de routes
+    static final byte ROUTE = 0;
+    static final byte RUNWAY_ROUTE = 1;
+    static final byte PARKING_ROUTE = 2;
+    public static final int NO_ROUTE = -1; // Pas de route suivante
+
+    private static final int MAGIC = 0x4154434C; // "ATCL"
+    private static final int VERSION = 2;
+
+    private static final int RUNWAY_FIELDS = 4; // x, y, longueur, cap
+    private static final int WAY_FIELDS = 6; // x, y, longueur, cap, décalage h, décalage v (taxiways et parkings)
+    private static final int ROUTE_FIELDS = 9; // vitesse, cap, longueur, précision x, précision y, début x, début y, fin x, fin y
+
+    private static AirportLayout defaultLayout;
+
+    private int runwayCount, taxiwayCount, parkingCount, routeCount;
+    private float[] runways;
+    private String[] taxiwayNames, parkingNames, routeNames;
+    private float[] taxiways, parkings, routes;
+    private byte[] routeKinds;
+    private int[] routeNext;
+    private int taxiLinkCount;
+    private int[] taxiLinks; // Liaisons au sol ajoutées aux routes suivantes, par paires (départ, arrivée)
+    private TransitionTable transitions; // null tant que le plan n'est pas compilé
+    private TaxiRouter taxiRouter; // null tant que le plan n'est pas compilé
+    private FlightPlan[] flightPlans; // null tant qu'aucun monde n'a été construit à partir du plan
+
+    /**
+     * Constructeur de la classe AirportLayout, pour un plan vide
+     */
+    public AirportLayout() {
+        runways = new float[RUNWAY_FIELDS];
+        taxiwayNames = new String[4];
+        taxiways = new float[4 * WAY_FIELDS];
+        parkingNames = new String[8];
+        parkings = new float[8 * WAY_FIELDS];
+        routeNames = new String[16];
+        routes = new float[16 * ROUTE_FIELDS];
+        routeKinds = new byte[16];
+        routeNext = new int[16];
+        taxiLinks = new int[8];
+    }
+
+    /**
+     * Retourne le plan par défaut, lu et compilé une seule fois
+     * @return
+     */
+    public static synchronized AirportLayout getDefault() {
+        if (defaultLayout == null) {
+            InputStream in = AirportLayout.class.getResourceAsStream(DEFAULT_LAYOUT);
+            if (in == null)
+                throw new IllegalStateException("Missing resource " + DEFAULT_LAYOUT);
+            try {
+                try {
+                    defaultLayout = LayoutLoader.parse(in);
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            defaultLayout.compile();
+        }
+        return defaultLayout;
+    }
+
+    /**
+     * Ajoute une piste
+     * @param x
+     * @param y
+     * @param length
+     * @param heading
+     */
+    public void addRunway(float x, float y, float length, float heading) {
+        runways = ensure(runways, (runwayCount + 1) * RUNWAY_FIELDS);
+        int f = runwayCount++ * RUNWAY_FIELDS;
+        runways[f] = x;
+        runways[f + 1] = y;
+        runways[f + 2] = length;
+        runways[f + 3] = heading;
+        transitions = null;
+        flightPlans = null;
+    }
+
+    /**
+     * Ajoute un taxiway
+     * @param name - Le nom de la route qui le parcourt
+     * @param x
+     * @param y
+     * @param length
+     * @param heading
+     * @param hOffset
+     * @param vOffset
+     */
+    public void addTaxiway(String name, float x, float y, float length, float heading, float hOffset, float vOffset) {
+        if (taxiwayCount == taxiwayNames.length) {
+            taxiwayNames = Arrays.copyOf(taxiwayNames, taxiwayCount * 2);
+            taxiways = Arrays.copyOf(taxiways, taxiwayCount * 2 * WAY_FIELDS);
+        }
+        taxiwayNames[taxiwayCount] = name;
+        setWay(taxiways, taxiwayCount++, x, y, length, heading, hOffset, vOffset);
+        transitions = null;
+        flightPlans = null;
+    }
+
+    /**
+     * Ajoute un parking
+     * @param name
+     * @param x
+     * @param y
+     * @param length
+     * @param heading
+     * @param hOffset
+     * @param vOffset
+     */
+    public void addParking(String name, float x, float y, float length, float heading, float hOffset, float vOffset) {
+        if (parkingCount == parkingNames.length) {
+            parkingNames = Arrays.copyOf(parkingNames, parkingCount * 2);
+            parkings = Arrays.copyOf(parkings, parkingCount * 2 * WAY_FIELDS);
+        }
+        parkingNames[parkingCount] = name;
+        setWay(parkings, parkingCount++, x, y, length, heading, hOffset, vOffset);
+    }
+
+    /**
+     * Ajoute une route, sans route suivante
+     * @param kind - ROUTE, RUNWAY_ROUTE ou PARKING_ROUTE
+     * @param name
+     * @param speed
+     * @param heading
+     * @param length - La longueur de la piste, ignorée pour les autres routes
+     * @param precisionX
+     * @param precisionY
+     * @param startX
+     * @param startY
+     * @param endX - Le fond du parking, ignoré pour les autres routes
+     * @param endY
+     * @return l'index de la route, qui sera aussi son identifiant dans le monde
+     */
+    int addRoute(byte kind, String name, int speed, float heading, float length, int precisionX, int precisionY,
+                 float startX, float startY, float endX, float endY) {
+        if (routeCount == routeNames.length) {
+            int capacity = routeCount * 2;
+            routeNames = Arrays.copyOf(routeNames, capacity);
+            routes = Arrays.copyOf(routes, capacity * ROUTE_FIELDS);
+            routeKinds = Arrays.copyOf(routeKinds, capacity);
+            routeNext = Arrays.copyOf(routeNext, capacity);
+        }
+        int r = routeCount++;
+        routeNames[r] = name;
+        routeKinds[r] = kind;
+        routeNext[r] = NO_ROUTE;
+        taxiRouter = null;
+        int f = r * ROUTE_FIELDS;
+        routes[f] = speed;
+        routes[f + 1] = heading;
+        routes[f + 2] = length;
+        routes[f + 3] = precisionX;
+        routes[f + 4] = precisionY;
+        routes[f + 5] = startX;
+        routes[f + 6] = startY;
+        routes[f + 7] = endX;
+        routes[f + 8] = endY;
+        transitions = null;
+        flightPlans = null;
+        return r;
+    }
+
+    /**
+     * Setter pour la route suivante d'une route
+     * @param route
+     * @param next - L'index de la route suivante, NO_ROUTE s'il n'y en a pas
+     */
+    void setNextRoute(int route, int next) {
+        routeNext[route] = next;
+        transitions = null;
+        flightPlans = null;
+        taxiRouter = null;
+    }
+
+    /**
+     * Ajoute une liaison au sol entre deux routes, en plus de leurs routes suivantes
+     * La route d'arrivée doit commencer sur la route de départ pour que l'avion puisse la prendre
+     * @param from - L'index de la route de départ
+     * @param to - L'index de la route d'arrivée
+     */
+    void addTaxiLink(int from, int to) {
+        if (2 * taxiLinkCount + 2 > taxiLinks.length)
+            taxiLinks = Arrays.copyOf(taxiLinks, taxiLinks.length * 2);
+        taxiLinks[2 * taxiLinkCount] = from;
+        taxiLinks[2 * taxiLinkCount + 1] = to;
+        ++taxiLinkCount;
+        transitions = null; // Les points d'arrêt avant la piste dépendent des chemins du routeur
+        flightPlans = null; // Les plans au sol aussi
+        taxiRouter = null;
+    }
+
+    /**
+     * Getter pour le nombre de liaisons au sol
+     * @return
+     */
+    public int getTaxiLinkCount() {
+        return taxiLinkCount;
+    }
+
+    /**
+     * Getter pour la route de départ d'une liaison au sol
+     * @param link
+     * @return
+     */
+    public int getTaxiLinkFrom(int link) {
+        return taxiLinks[2 * link];
+    }
+
+    /**
+     * Getter pour la route d'arrivée d'une liaison au sol
+     * @param link
+     * @return
+     */
+    public int getTaxiLinkTo(int link) {
+        return taxiLinks[2 * link + 1];
+    }
+
+    /**
+     * Getter pour le nombre de routes, parkings compris
+     * @return
+     */
+    public int getRouteCount() {
+        return routeCount;
+    }
+
+    /**
+     * Getter pour le nom d'une route
+     * @param route - L'index de la route
+     * @return
+     */
+    public String getRouteName(int route) {
+        return routeNames[route];
+    }
+
+    /**
+     * Getter pour la table de transitions compilée, null si le plan n'a pas été compilé
+     * @return
+     */
+    TransitionTable getTransitions() {
+        return transitions;
+    }
+
+    /**
+     * Getter pour la table des chemins au sol compilée, null si le plan n'a pas été compilé
+     * @return
+     */
+    TaxiRouter getTaxiRouter() {
+        return taxiRouter;
+    }
+
+    /**
+     * Retourne les plans de vol de toutes les combinaisons, partagés par les mondes construits à partir du plan
+     * Le premier monde les prépare tous : aucun plan n'est plus construit pendant la partie
+     * @param world - Le monde en construction, dont toutes les routes sont enregistrées
+     * @return
+     */
+    synchronized FlightPlan[] getFlightPlans(World world) {
+        if (flightPlans == null)
+            flightPlans = new FlightPlanner(world).prepare();
+        return flightPlans;
+    }
+
+    /**
+     * Compile la table de transitions et la table des chemins au sol, à faire une fois le plan complet
+     * Un monde construit à partir du plan les réutilise au lieu de les recompiler
+     */
+    public void compile() {
+        transitions = null;
+        flightPlans = null;
+        taxiRouter = null;
+        World world = new World(this);
+        transitions = world.getTransitions();
+        taxiRouter = world.getTaxiRouter();
+    }
+
+    /**
+     * Construit un aéroport à partir du plan
+     * @return
+     */
+    public Airport buildAirport() {
+        Airport airport = new Airport();
+        for (int i = 0; i < runwayCount; ++i) {
+            int f = i * RUNWAY_FIELDS;
+            airport.addRunway(new Runway(runways[f], runways[f + 1], runways[f + 2], runways[f + 3]));
+        }
+        for (int i = 0; i < taxiwayCount; ++i) {
+            int f = i * WAY_FIELDS;
+            airport.addTaxiway(new Taxiway(taxiways[f], taxiways[f + 1], taxiways[f + 2], taxiways[f + 3],
+                    taxiwayNames[i], taxiways[f + 4], taxiways[f + 5]));
+        }
+        for (int i = 0; i < parkingCount; ++i) {
+            int f = i * WAY_FIELDS;
+            airport.addParking(new Parking(parkingNames[i], new Point(parkings[f], parkings[f + 1]), parkings[f + 2],
+                    parkings[f + 3], parkings[f + 4], parkings[f + 5]));
+        }
+        return airport;
+    }
+
+    /**
+     * Construit les routes du plan, reliées à leur route suivante, dans l'ordre de leurs index
+     * @return
+     */
+    public Route[] buildRoutes() {
+        Route[] built = new Route[routeCount];
+        for (int r = 0; r < routeCount; ++r) {
+            int f = r * ROUTE_FIELDS;
+            int speed = (int) routes[f], precisionX = (int) routes[f + 3], precisionY = (int) routes[f + 4];
+            float heading = routes[f + 1];
+            Route route;
+            switch (routeKinds[r]) {
+                case RUNWAY_ROUTE:
+                    route = new RunwayRoute(speed, heading, routes[f + 2], routeNames[r], precisionX, precisionY, null);
+                    break;
+                case PARKING_ROUTE:
+                    ParkingRoute parkingRoute = new ParkingRoute(speed, heading, routeNames[r], precisionX, precisionY, null);
+                    parkingRoute.setEndPoint(routes[f + 7], routes[f + 8]);
+                    route = parkingRoute;
+                    break;
+                default:
+                    route = new Route(speed, heading, routeNames[r], precisionX, precisionY, null);
+                    break;
+            }
+            route.setStartPoint(new Point(routes[f + 5], routes[f + 6]));
+            built[r] = route;
+        }
+        for (int r = 0; r < routeCount; ++r) {
+            if (routeNext[r] != NO_ROUTE)
+                built[r].setNextRoute(built[routeNext[r]]);
+        }
+        return built;
+    }
+
+    /**
+     * Ecrit le plan en binaire, avec ses tables s'il est compilé
+     * @param out
+     * @param sourceChecksum - La somme de contrôle du fichier de plan dont il est tiré
+     * @throws IOException
+     */
+    public void writeTo(DataOutputStream out, long sourceChecksum) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(sourceChecksum);
+        writeElements(out);
+        out.writeBoolean(transitions != null && taxiRouter != null);
+        if (transitions != null && taxiRouter != null) {
+            transitions.writeTo(out);
+            taxiRouter.writeTo(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Calcule la somme de contrôle du plan, sans ses tables compilées : deux plans qui ont les mêmes pistes,
+     * taxiways, parkings, routes et liaisons ont la même somme, qu'ils viennent du texte ou du cache
+     * Elle identifie le plan d'une partie enregistrée (voir SessionRecorder)
+     * @return
+     */
+    public synchronized long getChecksum() {
+        CRC32 crc = new CRC32();
+        try {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }, crc));
+            writeElements(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Impossible, rien n'est écrit
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Ecrit les éléments du plan, sans les tables compilées
+     */
+    private void writeElements(DataOutputStream out) throws IOException {
+        out.writeInt(runwayCount);
+        writeFloats(out, runways, runwayCount * RUNWAY_FIELDS);
+        writeWays(out, taxiwayNames, taxiways, taxiwayCount);
+        writeWays(out, parkingNames, parkings, parkingCount);
+        out.writeInt(routeCount);
+        for (int r = 0; r < routeCount; ++r) {
+            out.writeUTF(routeNames[r]);
+            out.writeByte(routeKinds[r]);
+            out.writeInt(routeNext[r]);
+        }
+        writeFloats(out, routes, routeCount * ROUTE_FIELDS);
+        out.writeInt(taxiLinkCount);
+        for (int i = 0; i < 2 * taxiLinkCount; ++i)
+            out.writeInt(taxiLinks[i]);
+    }
+
+    /**
+     * Relit un plan écrit par writeTo()
+     * @param in
+     * @param sourceChecksum - La somme de contrôle attendue du fichier de plan
+     * @return le plan, null si le cache vient d'une autre version ou d'un autre fichier de plan
+     * @throws IOException si le cache est illisible
+     */
+    public static AirportLayout readFrom(DataInputStream in, long sourceChecksum) throws IOException {
+        if (in.readInt() != MAGIC || in.readByte() != VERSION || in.readLong() != sourceChecksum)
+            return null;
+        AirportLayout layout = new AirportLayout();
+        layout.runwayCount = in.readInt();
+        layout.runways = readFloats(in, layout.runwayCount, RUNWAY_FIELDS);
+        layout.taxiwayCount = in.readInt();
+        layout.taxiwayNames = readNames(in, layout.taxiwayCount);
+        layout.taxiways = readFloats(in, layout.taxiwayCount, WAY_FIELDS);
+        layout.parkingCount = in.readInt();
+        layout.parkingNames = readNames(in, layout.parkingCount);
+        layout.parkings = readFloats(in, layout.parkingCount, WAY_FIELDS);
+        int count = in.readInt();
+        layout.routeCount = count;
+        layout.routeNames = new String[Math.max(count, 1)];
+        layout.routeKinds = new byte[Math.max(count, 1)];
+        layout.routeNext = new int[Math.max(count, 1)];
+        for (int r = 0; r < count; ++r) {
+            layout.routeNames[r] = in.readUTF();
+            layout.routeKinds[r] = in.readByte();
+            layout.routeNext[r] = in.readInt();
+        }
+        layout.routes = readFloats(in, count, ROUTE_FIELDS);
+        layout.taxiLinkCount = in.readInt();
+        layout.taxiLinks = new int[Math.max(2 * layout.taxiLinkCount, 2)];
+        for (int i = 0; i < 2 * layout.taxiLinkCount; ++i)
+            layout.taxiLinks[i] = in.readInt();
+        if (in.readBoolean()) {
+            layout.transitions = TransitionTable.readFrom(in);
+            layout.taxiRouter = TaxiRouter.readFrom(in);
+        }
+        return layout;
+    }
+
+    private static void setWay(float[] ways, int i, float x, float y, float length, float heading, float hOffset, float vOffset) {
+        int f = i * WAY_FIELDS;
+        ways[f] = x;
+        ways[f + 1] = y;
+        ways[f + 2] = length;
+        ways[f + 3] = heading;
+        ways[f + 4] = hOffset;
+        ways[f + 5] = vOffset;
+    }
+
+    private static float[] ensure(float[] array, int length) {
+        return array.length >= length ? array : Arrays.copyOf(array, Math.max(length, array.length * 2));
+    }
+
+    private static void writeWays(DataOutputStream out, String[] names, float[] fields, int count) throws IOException {
+        out.writeInt(count);
+        for (int i = 0; i < count; ++i)
+            out.writeUTF(names[i]);
+        writeFloats(out, fields, count * WAY_FIELDS);
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values, int count) throws IOException {
+        for (int i = 0; i < count; ++i)
+            out.writeFloat(values[i]);
+    }
+
+    private static String[] readNames(DataInputStream in, int count) throws IOException {
+        String[] names = new String[Math.max(count, 1)];
+        for (int i = 0; i < count; ++i)
+            names[i] = in.readUTF();
+        return names;
+    }
+
+    private static float[] readFloats(DataInputStream in, int count, int fields) throws IOException {
+        float[] values = new float[Math.max(count, 1) * fields];
+        for (int i = 0; i < count * fields; ++i)
+            values[i] = in.readFloat();
+        return values;
+    }
+}
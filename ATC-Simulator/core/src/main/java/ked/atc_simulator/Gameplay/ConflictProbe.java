@@ -0,0 +1,424 @@
+package ked.atc_simulator.Gameplay;
+
+import java.util.Arrays;
+
+/**
+ * Cette classe prévoit les conflits entre avions avant qu'ils ne soient trop proches
+ * Chaque avion est prolongé en ligne droite avec son déplacement actuel sur un horizon de quelques ticks,
+ * et pour chaque paire d'avions proches on calcule le moment où leur distance passe sous la distance d'alerte
+ *
+ * Les paires candidates sont trouvées avec une grille des boîtes balayées par les avions sur l'horizon.
+ * Le résultat d'une paire est gardé tant que les deux avions gardent la même version de mouvement
+ * (voir Fleet.move) : une paire dont la géométrie n'a pas changé n'est pas recalculée
+ */
+public class ConflictProbe {
+
+    public static final int DEFAULT_HORIZON = 20; // En ticks
+    public static final float DEFAULT_ALERT_DISTANCE = 2 * World.SEPARATION;
+
+    private static final float CELL_SIZE = 80;
+    private static final int NONE = -1;
+
+    private final Fleet fleet;
+    private int horizon;
+    private float alertDistance;
+
+    // Grille des boîtes balayées, reconstruite à chaque tick
+    private final int columns, rows;
+    private final int[] cellHead;
+    private int[] entrySlot, entryNext;
+    private int entryCount;
+    private float[] minX, minY, maxX, maxY;
+
+    // Résultats des paires du tick précédent et du tick en cours
+    private PairTable previous, current;
+    private int pairsComputed;
+
+    // Conflits prévus, triés par temps avant conflit
+    private int conflictCount;
+    private int[] conflictA, conflictB, order;
+    private double[] timeToConflict;
+    private float[] missDistance;
+    private boolean[] inConflict; // Indexé par la position de l'avion dans la flotte
+    private int inConflictSize;
+
+    /**
+     * Constructeur de la classe ConflictProbe
+     * @param fleet - Les avions à surveiller
+     */
+    public ConflictProbe(Fleet fleet) {
+        this.fleet = fleet;
+        horizon = DEFAULT_HORIZON;
+        alertDistance = DEFAULT_ALERT_DISTANCE;
+        columns = (int) Math.ceil(World.WIDTH / CELL_SIZE) + 1;
+        rows = (int) Math.ceil(World.HEIGHT / CELL_SIZE) + 1;
+        cellHead = new int[columns * rows];
+        entrySlot = new int[64];
+        entryNext = new int[64];
+        minX = new float[16];
+        minY = new float[16];
+        maxX = new float[16];
+        maxY = new float[16];
+        previous = new PairTable(64);
+        current = new PairTable(64);
+        conflictA = new int[16];
+        conflictB = new int[16];
+        order = new int[16];
+        timeToConflict = new double[16];
+        missDistance = new float[16];
+        inConflict = new boolean[16];
+    }
+
+    /**
+     * Setter pour l'horizon de prévision
+     * Les résultats gardés sont oubliés, ils dépendent de l'horizon
+     * @param ticks
+     */
+    public void setHorizon(int ticks) {
+        horizon = ticks;
+        previous.clear();
+    }
+
+    /**
+     * Getter pour l'horizon de prévision, en ticks
+     * @return
+     */
+    public int getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * Setter pour la distance en dessous de laquelle deux avions sont en conflit
+     * Les résultats gardés sont oubliés, ils dépendent de la distance
+     * @param distance
+     */
+    public void setAlertDistance(float distance) {
+        alertDistance = distance;
+        previous.clear();
+    }
+
+    /**
+     * Getter pour la distance d'alerte
+     * @return
+     */
+    public float getAlertDistance() {
+        return alertDistance;
+    }
+
+    /**
+     * Met à jour les conflits prévus à partir des positions et déplacements actuels de la flotte
+     * @param now - Le numéro du tick actuel
+     */
+    public void update(long now) {
+        int size = fleet.size();
+        ensureCapacity(size);
+        buildGrid(size);
+
+        PairTable swap = previous;
+        previous = current;
+        current = swap;
+        current.clear();
+        pairsComputed = 0;
+        conflictCount = 0;
+        Arrays.fill(inConflict, 0, Math.max(size, inConflictSize), false);
+        inConflictSize = size;
+
+        for (int cell = 0; cell < cellHead.length; ++cell) {
+            for (int e1 = cellHead[cell]; e1 != NONE; e1 = entryNext[e1]) {
+                int a = entrySlot[e1];
+                for (int e2 = entryNext[e1]; e2 != NONE; e2 = entryNext[e2]) {
+                    int b = entrySlot[e2];
+                    if (maxX[a] < minX[b] || maxX[b] < minX[a] || maxY[a] < minY[b] || maxY[b] < minY[a])
+                        continue; // Les boîtes ne se touchent pas
+                    // La paire n'est traitée que dans la case qui contient le coin bas de l'intersection des boîtes
+                    if (cellOf(Math.max(minX[a], minX[b]), Math.max(minY[a], minY[b])) != cell)
+                        continue;
+                    probe(a, b, now);
+                }
+            }
+        }
+        sortConflicts();
+    }
+
+    /**
+     * Calcule ou retrouve le résultat d'une paire et l'ajoute aux conflits si besoin
+     */
+    private void probe(int a, int b, long now) {
+        int handleA = fleet.getHandle(a), handleB = fleet.getHandle(b);
+        if (handleA > handleB) { // La clé d'une paire ne dépend pas de l'ordre des avions
+            int t = a; a = b; b = t;
+            t = handleA; handleA = handleB; handleB = t;
+        }
+        long key = ((long) handleA << 32) | handleB;
+        int versionA = fleet.motionVersion[a], versionB = fleet.motionVersion[b];
+
+        int entry = previous.find(key);
+        double tIn, tOut;
+        float miss;
+        if (entry >= 0 && previous.versionA[entry] == versionA && previous.versionB[entry] == versionB) {
+            tIn = previous.tIn[entry];
+            tOut = previous.tOut[entry];
+            miss = previous.miss[entry];
+        } else {
+            ++pairsComputed;
+            // Point d'approche le plus proche entre les deux trajectoires rectilignes
+            double dx = fleet.x[b] - fleet.x[a], dy = fleet.y[b] - fleet.y[a];
+            double wx = fleet.vx[b] - fleet.vx[a], wy = fleet.vy[b] - fleet.vy[a];
+            double ww = wx * wx + wy * wy, dw = dx * wx + dy * wy, dd = dx * dx + dy * dy;
+            double r2 = (double) alertDistance * alertDistance;
+            double min2 = ww == 0 ? dd : dd - dw * dw / ww;
+            if (min2 >= r2) {
+                tIn = Double.POSITIVE_INFINITY; // Jamais en conflit tant que les déplacements ne changent pas
+                tOut = Double.NEGATIVE_INFINITY;
+            } else if (ww == 0) {
+                tIn = Double.NEGATIVE_INFINITY; // Même déplacement : la distance ne change pas
+                tOut = Double.POSITIVE_INFINITY;
+            } else {
+                double closest = -dw / ww;
+                double half = Math.sqrt((r2 - min2) / ww);
+                tIn = now + closest - half;
+                tOut = now + closest + half;
+            }
+            miss = (float) Math.sqrt(Math.max(min2, 0));
+        }
+        current.put(key, versionA, versionB, tIn, tOut, miss);
+
+        if (tOut >= now && tIn <= now + horizon) {
+            if (conflictCount == conflictA.length)
+                growConflicts();
+            conflictA[conflictCount] = handleA;
+            conflictB[conflictCount] = handleB;
+            timeToConflict[conflictCount] = Math.max(0, tIn - now);
+            missDistance[conflictCount] = miss;
+            order[conflictCount] = conflictCount;
+            ++conflictCount;
+            inConflict[a] = true;
+            inConflict[b] = true;
+        }
+    }
+
+    /**
+     * Range chaque avion dans les cases recouvertes par la boîte qu'il balaye sur l'horizon
+     */
+    private void buildGrid(int size) {
+        Arrays.fill(cellHead, NONE);
+        entryCount = 0;
+        float margin = alertDistance / 2;
+        for (int i = 0; i < size; ++i) {
+            float x = fleet.x[i], y = fleet.y[i];
+            float endX = (float) (x + fleet.vx[i] * horizon), endY = (float) (y + fleet.vy[i] * horizon);
+            minX[i] = Math.min(x, endX) - margin;
+            minY[i] = Math.min(y, endY) - margin;
+            maxX[i] = Math.max(x, endX) + margin;
+            maxY[i] = Math.max(y, endY) + margin;
+            int minColumn = column(minX[i]), maxColumn = column(maxX[i]);
+            int minRow = row(minY[i]), maxRow = row(maxY[i]);
+            for (int r = minRow; r <= maxRow; ++r) {
+                for (int c = minColumn; c <= maxColumn; ++c) {
+                    if (entryCount == entrySlot.length) {
+                        entrySlot = Arrays.copyOf(entrySlot, entryCount * 2);
+                        entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+                    }
+                    int cell = r * columns + c;
+                    entrySlot[entryCount] = i;
+                    entryNext[entryCount] = cellHead[cell];
+                    cellHead[cell] = entryCount++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Trie les conflits par temps avant conflit, puis par distance minimale
+     */
+    private void sortConflicts() {
+        for (int i = 1; i < conflictCount; ++i) {
+            int k = order[i];
+            int j = i - 1;
+            while (j >= 0 && compare(order[j], k) > 0) {
+                order[j + 1] = order[j];
+                --j;
+            }
+            order[j + 1] = k;
+        }
+    }
+
+    private int compare(int c1, int c2) {
+        int c = Double.compare(timeToConflict[c1], timeToConflict[c2]);
+        return c != 0 ? c : Float.compare(missDistance[c1], missDistance[c2]);
+    }
+
+    /**
+     * Getter pour le nombre de conflits prévus
+     * @return
+     */
+    public int getConflictCount() {
+        return conflictCount;
+    }
+
+    /**
+     * Getter pour le handle du premier avion du conflit de rang k (0 est le plus urgent)
+     * @param k
+     * @return
+     */
+    public int getConflictPlaneA(int k) {
+        return conflictA[order[k]];
+    }
+
+    /**
+     * Getter pour le handle du second avion du conflit de rang k
+     * @param k
+     * @return
+     */
+    public int getConflictPlaneB(int k) {
+        return conflictB[order[k]];
+    }
+
+    /**
+     * Getter pour le nombre de ticks avant que le conflit de rang k commence, 0 s'il a déjà commencé
+     * @param k
+     * @return
+     */
+    public double getTimeToConflict(int k) {
+        return timeToConflict[order[k]];
+    }
+
+    /**
+     * Getter pour la distance minimale prévue entre les deux avions du conflit de rang k
+     * @param k
+     * @return
+     */
+    public float getMissDistance(int k) {
+        return missDistance[order[k]];
+    }
+
+    /**
+     * Vérifie si l'avion à une position donnée de la flotte fait partie d'un conflit prévu
+     * @param slot
+     * @return
+     */
+    public boolean isInConflict(int slot) {
+        return slot < inConflictSize && inConflict[slot];
+    }
+
+    /**
+     * Getter pour le nombre de paires recalculées au dernier tick, les autres ont été reprises du tick précédent
+     * @return
+     */
+    public int getPairsComputed() {
+        return pairsComputed;
+    }
+
+    private int cellOf(float x, float y) {
+        return row(y) * columns + column(x);
+    }
+
+    private int column(float x) {
+        int c = (int) (x / CELL_SIZE);
+        return x < 0 ? 0 : (c >= columns ? columns - 1 : c);
+    }
+
+    private int row(float y) {
+        int r = (int) (y / CELL_SIZE);
+        return y < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= minX.length)
+            return;
+        int capacity = Math.max(size, minX.length * 2);
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        inConflict = Arrays.copyOf(inConflict, capacity);
+    }
+
+    private void growConflicts() {
+        int capacity = conflictA.length * 2;
+        conflictA = Arrays.copyOf(conflictA, capacity);
+        conflictB = Arrays.copyOf(conflictB, capacity);
+        order = Arrays.copyOf(order, capacity);
+        timeToConflict = Arrays.copyOf(timeToConflict, capacity);
+        missDistance = Arrays.copyOf(missDistance, capacity);
+    }
+
+    /**
+     * Table à adressage ouvert des résultats des paires, indexée par la clé (handle A, handle B)
+     */
+    private static class PairTable {
+
+        private static final long EMPTY = -1L; // Les handles sont positifs, aucune clé ne vaut -1
+
+        long[] keys;
+        int[] versionA, versionB;
+        double[] tIn, tOut;
+        float[] miss;
+        int size;
+
+        PairTable(int capacity) {
+            allocate(capacity);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            versionA = new int[capacity];
+            versionB = new int[capacity];
+            tIn = new double[capacity];
+            tOut = new double[capacity];
+            miss = new float[capacity];
+            size = 0;
+        }
+
+        int find(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key)
+                    return i;
+            }
+            return -1;
+        }
+
+        void put(long key, int vA, int vB, double in, double out, float m) {
+            if ((size + 1) * 2 > keys.length)
+                rehash(keys.length * 2);
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key)
+                i = (i + 1) & mask;
+            if (keys[i] == EMPTY)
+                ++size;
+            keys[i] = key;
+            versionA[i] = vA;
+            versionB[i] = vB;
+            tIn[i] = in;
+            tOut[i] = out;
+            miss[i] = m;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(keys, EMPTY);
+                size = 0;
+            }
+        }
+
+        private void rehash(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldA = versionA, oldB = versionB;
+            double[] oldIn = tIn, oldOut = tOut;
+            float[] oldMiss = miss;
+            allocate(capacity);
+            for (int i = 0; i < oldKeys.length; ++i) {
+                if (oldKeys[i] != EMPTY)
+                    put(oldKeys[i], oldA[i], oldB[i], oldIn[i], oldOut[i], oldMiss[i]);
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
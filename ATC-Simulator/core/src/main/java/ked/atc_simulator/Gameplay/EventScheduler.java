@@ -0,0 +1,170 @@
+package ked.atc_simulator.Gameplay;
+
+import java.util.Arrays;
+
+/**
+ * File de priorité des évènements de la simulation, triée par tick puis par ordre d'ajout
+ * Un évènement désigne un avion par son handle et porte une version : quand l'avion est reprogrammé,
+ * sa version change et les anciens évènements sont simplement ignorés quand ils sortent de la file
+ */
+public class EventScheduler {
+
+    private long[] time, order;
+    private int[] handle, version;
+    private int size;
+    private long now; // Tick en cours, utilisé par scheduleNow()
+    private long nextOrder;
+
+    /**
+     * Constructeur de la classe EventScheduler
+     */
+    public EventScheduler() {
+        time = new long[16];
+        order = new long[16];
+        handle = new int[16];
+        version = new int[16];
+        size = 0;
+        now = 0;
+        nextOrder = 0;
+    }
+
+    /**
+     * Ajoute un évènement
+     * @param tick    - Le tick où l'évènement doit être traité
+     * @param handle  - L'avion concerné
+     * @param version - La version de programmation de l'avion au moment de l'ajout
+     */
+    public void schedule(long tick, int handle, int version) {
+        if (size == time.length) {
+            int capacity = size * 2;
+            time = Arrays.copyOf(time, capacity);
+            order = Arrays.copyOf(order, capacity);
+            this.handle = Arrays.copyOf(this.handle, capacity);
+            this.version = Arrays.copyOf(this.version, capacity);
+        }
+        int i = size++;
+        long o = nextOrder++;
+        while (i > 0) { // On remonte l'évènement tant qu'il passe avant son parent
+            int parent = (i - 1) >> 1;
+            if (!before(tick, o, time[parent], order[parent]))
+                break;
+            set(i, parent);
+            i = parent;
+        }
+        time[i] = tick;
+        order[i] = o;
+        this.handle[i] = handle;
+        this.version[i] = version;
+    }
+
+    /**
+     * Ajoute un évènement à traiter dès que possible, c'est-à-dire au tick en cours ou au prochain
+     * @param handle
+     * @param version
+     */
+    public void scheduleNow(int handle, int version) {
+        schedule(now, handle, version);
+    }
+
+    /**
+     * Setter pour le tick en cours
+     * @param now
+     */
+    public void setNow(long now) {
+        this.now = now;
+    }
+
+    /**
+     * Getter pour le tick en cours
+     * @return
+     */
+    public long getNow() {
+        return now;
+    }
+
+    /**
+     * Vérifie s'il y a un évènement à traiter au plus tard au tick donné
+     * @param tick
+     * @return
+     */
+    public boolean hasEventUntil(long tick) {
+        return size > 0 && time[0] <= tick;
+    }
+
+    /**
+     * Getter pour le tick du prochain évènement, Long.MAX_VALUE s'il n'y en a pas
+     * @return
+     */
+    public long peekTime() {
+        return size > 0 ? time[0] : Long.MAX_VALUE;
+    }
+
+    /**
+     * Getter pour le handle du prochain évènement
+     * @return
+     */
+    public int peekHandle() {
+        return handle[0];
+    }
+
+    /**
+     * Getter pour la version du prochain évènement
+     * @return
+     */
+    public int peekVersion() {
+        return version[0];
+    }
+
+    /**
+     * Retire le prochain évènement, à appeler après avoir lu ses valeurs avec peek
+     */
+    public void pop() {
+        --size;
+        if (size == 0)
+            return;
+        long t = time[size], o = order[size];
+        int h = handle[size], v = version[size];
+        int i = 0;
+        while (true) { // On descend le dernier évènement depuis la racine
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && before(time[child + 1], order[child + 1], time[child], order[child]))
+                ++child;
+            if (!before(time[child], order[child], t, o))
+                break;
+            set(i, child);
+            i = child;
+        }
+        time[i] = t;
+        order[i] = o;
+        handle[i] = h;
+        version[i] = v;
+    }
+
+    /**
+     * Getter pour le nombre d'évènements en attente, y compris ceux devenus obsolètes
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Supprime tous les évènements
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private static boolean before(long t1, long o1, long t2, long o2) {
+        return t1 < t2 || (t1 == t2 && o1 < o2);
+    }
+
+    private void set(int to, int from) {
+        time[to] = time[from];
+        order[to] = order[from];
+        handle[to] = handle[from];
+        version[to] = version[from];
+    }
+}
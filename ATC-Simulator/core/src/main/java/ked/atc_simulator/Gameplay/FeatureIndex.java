@@ -0,0 +1,105 @@
+package ked.atc_simulator.Gameplay;
+
+import ked.atc_simulator.Utils.IntList;
+
+/**
+ * Grille uniforme sur l'espace de jeu (1920x1080) qui range les éléments fixes (pistes, taxiways, parkings) par case
+ * Contrairement à SpatialHash, un élément est rangé dans toutes les cases que recouvre son rectangle englobant :
+ * il est construit une fois au chargement de l'aéroport, puis seulement interrogé avec le rectangle visible
+ * Les coordonnées en dehors de l'espace de jeu sont ramenées dans les cases du bord
+ */
+public class FeatureIndex {
+
+    public static final float CELL_SIZE = 120; // Les éléments fixes sont longs, des cases plus grandes évitent de les répéter
+
+    private final int columns, rows;
+    private final IntList[] cells; // null tant que la case est vide
+    private int[] lastQuery; // Numéro de la dernière requête qui a trouvé chaque élément, pour ne le retourner qu'une fois
+    private int query;
+    private int size;
+
+    /**
+     * Constructeur de la classe FeatureIndex
+     */
+    public FeatureIndex() {
+        columns = (int) Math.ceil(World.WIDTH / CELL_SIZE) + 1;
+        rows = (int) Math.ceil(World.HEIGHT / CELL_SIZE) + 1;
+        cells = new IntList[columns * rows];
+        lastQuery = new int[16];
+    }
+
+    /**
+     * Ajoute un élément avec son rectangle englobant
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @return le numéro de l'élément, donné dans l'ordre d'ajout à partir de 0
+     */
+    public int add(float minX, float minY, float maxX, float maxY) {
+        int id = size++;
+        if (id == lastQuery.length) {
+            int[] newLastQuery = new int[lastQuery.length * 2];
+            System.arraycopy(lastQuery, 0, newLastQuery, 0, lastQuery.length);
+            lastQuery = newLastQuery;
+        }
+        int minColumn = column(minX), maxColumn = column(maxX);
+        int minRow = row(minY), maxRow = row(maxY);
+        for (int r = minRow; r <= maxRow; ++r) {
+            for (int c = minColumn; c <= maxColumn; ++c) {
+                int cell = r * columns + c;
+                if (cells[cell] == null)
+                    cells[cell] = new IntList(4);
+                cells[cell].add(id);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Ajoute à la liste, une seule fois chacun, les éléments des cases qui recouvrent un rectangle
+     * C'est une présélection : les éléments trouvés peuvent être un peu en dehors du rectangle
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @param out - La liste où ajouter les numéros des éléments, elle n'est pas vidée
+     */
+    public void query(float minX, float minY, float maxX, float maxY, IntList out) {
+        ++query;
+        int minColumn = column(minX), maxColumn = column(maxX);
+        int minRow = row(minY), maxRow = row(maxY);
+        for (int r = minRow; r <= maxRow; ++r) {
+            for (int c = minColumn; c <= maxColumn; ++c) {
+                IntList cell = cells[r * columns + c];
+                if (cell == null)
+                    continue;
+                for (int k = 0; k < cell.size(); ++k) {
+                    int id = cell.get(k);
+                    if (lastQuery[id] != query) {
+                        lastQuery[id] = query;
+                        out.add(id);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Getter pour le nombre d'éléments
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    private int column(float x) {
+        int c = (int) (x / CELL_SIZE);
+        return x < 0 ? 0 : (c >= columns ? columns - 1 : c);
+    }
+
+    private int row(float y) {
+        int r = (int) (y / CELL_SIZE);
+        return y < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+}
@@ -0,0 +1,817 @@
+package ked.atc_simulator.Gameplay;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+import ked.atc_simulator.Entities.Plane;
+import ked.atc_simulator.State.PlaneState;
+import ked.atc_simulator.Utils.NameRegistry;
+import ked.atc_simulator.Utils.ObjectPool;
+
+/**
+ * Cette classe stocke tous les avions d'un monde sous forme de tableaux parallèles (un tableau par attribut)
+ * Les avions actifs occupent les positions 0 à size-1, sans trou : une suppression déplace le dernier avion
+ * à la place de celui supprimé. Les boucles du tick parcourent donc des tableaux de primitifs contigus
+ *
+ * Chaque avion a aussi un handle stable (index + génération) qui ne change pas quand l'avion est déplacé,
+ * et qui devient invalide quand l'avion est supprimé. Les objets Plane ne sont que des vues sur ce handle
+ * Les vues des avions supprimés retournent dans une réserve et servent aux avions suivants, sauf si elles sont
+ * retenues (voir retain()) : en régime établi, ajouter et supprimer des avions n'alloue rien
+ */
+public class Fleet {
+
+    private static final int INDEX_BITS = 20; // Bits du handle réservés à l'index, le reste est la génération
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+    private static final int GENERATION_MASK = (1 << (31 - INDEX_BITS)) - 1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    public static final int NO_PARKING = -1; // Identifiant de route de parking d'un avion qui n'a pas de parking
+
+    private final World world;
+    private int size;
+    private double timeStep; // Durée d'un tick en secondes de jeu
+
+    // Attributs des avions, indexés par la position de l'avion
+    float[] x, y, heading, speed;
+    float[] previousX, previousY, previousHeading;
+    double[] dirX, dirY; // Vecteur unitaire du cap, recalculé à chaque changement de cap
+    float[] stepLeft; // Fraction du tick en cours qu'il reste à parcourir, la navigation en consomme quand l'avion tourne
+    double[] vx, vy; // Déplacement par tick, calculé par move()
+    int[] motionVersion; // Incrémenté quand le déplacement de l'avion n'est plus le prolongement du précédent
+    int[] eventVersion; // Version du dernier évènement de navigation programmé, les autres sont obsolètes
+    int[] behavior; // 0 "normal",  1 "holding", 2 "runway", 3 "waiting" (voir Plane)
+    int[] routeId, stateId, parkingRouteId;
+    FlightPlan[] plan; // Plan de vol partagé, routeId est toujours la route du plan à la position cursor
+    int[] cursor;
+    boolean[] markedForRemoval;
+    String[] name; // Modifié avec setName() pour garder l'index des indicatifs à jour
+    private int[] callsignId; // Identifiant du nom dans callsigns
+    private int[] handle;
+    private Plane[] planes;
+    private final ObjectPool<Plane> planePool; // Vues libres
+    private int retainedCount; // Nombre de retain() sans release(), toutes vues confondues
+
+    // Table des handles : position de l'avion pour chaque index, -1 si l'index est libre
+    private int[] slotOfIndex;
+    private int[] generation;
+    private int[] freeIndexes;
+    private int freeCount, indexCount;
+
+    // Index des indicatifs : position de l'avion pour chaque identifiant de nom, -1 si aucun avion ne le porte
+    private final NameRegistry callsigns;
+    private int[] slotOfCallsign;
+
+    private final List<Plane> planeList;
+    private final SpatialHash spatialHash;
+    private final EventScheduler scheduler;
+
+    /**
+     * Constructeur de la classe Fleet
+     * @param world - Le monde qui possède les routes et les états référencés par les avions
+     */
+    public Fleet(World world) {
+        this.world = world;
+        size = 0;
+        timeStep = 1;
+        x = new float[INITIAL_CAPACITY];
+        y = new float[INITIAL_CAPACITY];
+        heading = new float[INITIAL_CAPACITY];
+        speed = new float[INITIAL_CAPACITY];
+        previousX = new float[INITIAL_CAPACITY];
+        previousY = new float[INITIAL_CAPACITY];
+        previousHeading = new float[INITIAL_CAPACITY];
+        dirX = new double[INITIAL_CAPACITY];
+        dirY = new double[INITIAL_CAPACITY];
+        stepLeft = new float[INITIAL_CAPACITY];
+        vx = new double[INITIAL_CAPACITY];
+        vy = new double[INITIAL_CAPACITY];
+        motionVersion = new int[INITIAL_CAPACITY];
+        eventVersion = new int[INITIAL_CAPACITY];
+        behavior = new int[INITIAL_CAPACITY];
+        routeId = new int[INITIAL_CAPACITY];
+        stateId = new int[INITIAL_CAPACITY];
+        parkingRouteId = new int[INITIAL_CAPACITY];
+        plan = new FlightPlan[INITIAL_CAPACITY];
+        cursor = new int[INITIAL_CAPACITY];
+        markedForRemoval = new boolean[INITIAL_CAPACITY];
+        name = new String[INITIAL_CAPACITY];
+        callsignId = new int[INITIAL_CAPACITY];
+        handle = new int[INITIAL_CAPACITY];
+        planes = new Plane[INITIAL_CAPACITY];
+
+        slotOfIndex = new int[INITIAL_CAPACITY];
+        generation = new int[INITIAL_CAPACITY];
+        freeIndexes = new int[INITIAL_CAPACITY];
+        freeCount = 0;
+        indexCount = 0;
+        callsigns = new NameRegistry(INITIAL_CAPACITY);
+        slotOfCallsign = new int[INITIAL_CAPACITY];
+        Arrays.fill(slotOfCallsign, -1);
+        spatialHash = new SpatialHash(INITIAL_CAPACITY);
+        scheduler = new EventScheduler();
+        planePool = new ObjectPool<Plane>(INITIAL_CAPACITY) {
+            @Override
+            protected Plane create() {
+                return new Plane();
+            }
+        };
+
+        planeList = new AbstractList<Plane>() { // Vue en lecture seule sur les avions actifs
+            @Override
+            public Plane get(int i) {
+                if (i < 0 || i >= size)
+                    throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+                return planes[i];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Getter pour le nombre d'avions
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter pour le monde
+     * @return
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Retourne la liste des avions actifs, dans l'ordre des positions
+     * La liste suit les ajouts et suppressions, il faut la copier pour la garder en dehors du verrou du monde
+     * @return
+     */
+    public List<Plane> asList() {
+        return planeList;
+    }
+
+    /**
+     * Ajoute un avion
+     * @param name
+     * @param x
+     * @param y
+     * @param heading
+     * @param behavior
+     * @param route - La route actuelle, elle doit être enregistrée dans le monde
+     * @param planeState
+     * @return la vue sur le nouvel avion
+     */
+    public Plane add(String name, float x, float y, float heading, int behavior, Route route, PlaneState planeState) {
+        int slot = allocate();
+        this.x[slot] = x;
+        this.y[slot] = y;
+        setHeading(slot, heading);
+        this.stepLeft[slot] = 1;
+        this.speed[slot] = route.getSpeed();
+        this.behavior[slot] = behavior;
+        this.routeId[slot] = route.getId();
+        this.stateId[slot] = planeState.getId();
+        this.parkingRouteId[slot] = route instanceof ParkingRoute ? route.getId() : NO_PARKING;
+        this.markedForRemoval[slot] = false;
+        this.name[slot] = name;
+        indexName(slot);
+        this.vx[slot] = 0;
+        this.vy[slot] = 0;
+        this.motionVersion[slot] = 0;
+        savePreviousState(slot);
+        spatialHash.insert(slot, x, y);
+        replan(slot);
+        return planes[slot];
+    }
+
+    /**
+     * Ajoute une copie d'un avion d'une autre flotte (un modèle d'avion par exemple)
+     * @param other
+     * @param otherSlot
+     * @return la vue sur le nouvel avion
+     */
+    public Plane addCopy(Fleet other, int otherSlot) {
+        return addCopy(other, otherSlot, other.name[otherSlot]);
+    }
+
+    /**
+     * Ajoute une copie d'un avion d'une autre flotte sous un autre nom
+     * @param other
+     * @param otherSlot
+     * @param name
+     * @return la vue sur le nouvel avion
+     */
+    public Plane addCopy(Fleet other, int otherSlot, String name) {
+        int slot = allocate();
+        copy(other, otherSlot, slot);
+        this.name[slot] = name;
+        indexName(slot);
+        markedForRemoval[slot] = false;
+        stepLeft[slot] = 1;
+        speed[slot] = world.getRoute(routeId[slot]).getSpeed();
+        vx[slot] = 0;
+        vy[slot] = 0;
+        motionVersion[slot] = 0;
+        savePreviousState(slot);
+        spatialHash.insert(slot, x[slot], y[slot]);
+        wake(slot);
+        return planes[slot];
+    }
+
+    /**
+     * Supprime l'avion à une position donnée
+     * Le dernier avion prend sa place, il faut donc traiter à nouveau cette position quand on parcourt la flotte
+     * @param slot
+     */
+    public void remove(int slot) {
+        Plane removed = planes[slot];
+        int index = handle[slot] & INDEX_MASK;
+        slotOfIndex[index] = -1;
+        generation[index] = (generation[index] + 1) & GENERATION_MASK; // Les anciens handles deviennent invalides
+        freeIndexes[freeCount++] = index;
+        spatialHash.remove(slot);
+        unindexName(slot);
+
+        int last = size - 1;
+        if (slot != last) {
+            spatialHash.relabel(last, slot);
+            copy(this, last, slot);
+            callsignId[slot] = callsignId[last];
+            if (slotOfCallsign[callsignId[slot]] == last)
+                slotOfCallsign[callsignId[slot]] = slot;
+            handle[slot] = handle[last];
+            planes[slot] = planes[last];
+            slotOfIndex[handle[slot] & INDEX_MASK] = slot;
+        }
+        if (removed.getRetainCount() == 0) // La vue supprimée garde son ancien handle, elle n'est plus valide
+            planePool.release(removed);
+        planes[last] = null;
+        name[last] = null;
+        plan[last] = null;
+        --size;
+    }
+
+    /**
+     * Supprime tous les avions
+     */
+    public void clear() {
+        while (size > 0)
+            remove(size - 1);
+        scheduler.clear();
+    }
+
+    /**
+     * Retient une vue : elle ne sera pas réutilisée pour un autre avion avant l'appel à release(),
+     * même si son avion est supprimé. A utiliser pour garder une vue d'un tick à l'autre
+     * @param plane - Une vue d'un avion de cette flotte
+     * @return la vue
+     */
+    public Plane retain(Plane plane) {
+        plane.setRetainCount(plane.getRetainCount() + 1);
+        ++retainedCount;
+        return plane;
+    }
+
+    /**
+     * Relâche une vue retenue avec retain(), elle retourne dans la réserve si son avion a été supprimé
+     * @param plane
+     */
+    public void release(Plane plane) {
+        int count = plane.getRetainCount();
+        if (count == 0)
+            throw new IllegalStateException("Plane view released more times than retained");
+        plane.setRetainCount(count - 1);
+        --retainedCount;
+        if (count == 1 && slotOf(plane.getHandle()) < 0)
+            planePool.release(plane);
+    }
+
+    /**
+     * Getter pour la réserve des vues, pour ses compteurs
+     * @return
+     */
+    public ObjectPool<Plane> getPlanePool() {
+        return planePool;
+    }
+
+    /**
+     * Vérifie que toutes les vues retenues ont été relâchées et, si la flotte est vide, qu'elles sont toutes
+     * revenues dans la réserve. Ne fait rien si les vérifications des réserves ne sont pas activées
+     */
+    public void checkNoLeaks() {
+        if (!ObjectPool.isLeakChecks())
+            return;
+        if (retainedCount != 0)
+            throw new IllegalStateException("Fleet: " + retainedCount + " plane view(s) retained and never released");
+        if (size == 0)
+            planePool.checkNoLeaks("Fleet planes");
+    }
+
+    /**
+     * Getter pour la grille qui range les avions de la flotte par case
+     * @return
+     */
+    public SpatialHash getSpatialHash() {
+        return spatialHash;
+    }
+
+    /**
+     * Retourne la position actuelle de l'avion désigné par le handle, -1 s'il a été supprimé
+     * @param handle
+     * @return
+     */
+    public int slotOf(int handle) {
+        int index = handle & INDEX_MASK;
+        if (index >= indexCount || generation[index] != (handle >>> INDEX_BITS))
+            return -1;
+        return slotOfIndex[index];
+    }
+
+    /**
+     * Retourne l'index d'un handle, qui reste le même tant que l'avion existe
+     * Permet de ranger des informations par avion dans des tableaux (voir RunwayScheduler)
+     * @param handle
+     * @return
+     */
+    static int indexOf(int handle) {
+        return handle & INDEX_MASK;
+    }
+
+    /**
+     * Getter pour le handle de l'avion à une position donnée
+     * @param slot
+     * @return
+     */
+    public int getHandle(int slot) {
+        return handle[slot];
+    }
+
+    /**
+     * Getter pour la vue de l'avion à une position donnée
+     * @param slot
+     * @return
+     */
+    public Plane getPlane(int slot) {
+        return planes[slot];
+    }
+
+    /**
+     * Retourne la position de l'avion portant ce nom, -1 s'il n'existe pas
+     * @param name
+     * @return
+     */
+    public int slotOfName(String name) {
+        int id = callsigns.idOf(name);
+        return id < 0 ? -1 : slotOfCallsign[id];
+    }
+
+    /**
+     * Renomme l'avion à une position donnée
+     * @param slot
+     * @param name
+     */
+    public void setName(int slot, String name) {
+        unindexName(slot);
+        this.name[slot] = name;
+        indexName(slot);
+    }
+
+    /**
+     * Enregistre le nom de l'avion à une position donnée dans l'index des indicatifs
+     * Si plusieurs avions portent le même nom (modèles d'avions), l'index désigne le dernier ajouté
+     */
+    private void indexName(int slot) {
+        int id = internName(name[slot]);
+        callsignId[slot] = id;
+        slotOfCallsign[id] = slot;
+    }
+
+    private int internName(String name) {
+        int id = callsigns.intern(name);
+        if (id == slotOfCallsign.length) {
+            int oldLength = slotOfCallsign.length;
+            slotOfCallsign = copyOf(slotOfCallsign, oldLength * 2);
+            Arrays.fill(slotOfCallsign, oldLength, slotOfCallsign.length, -1);
+        }
+        return id;
+    }
+
+    /**
+     * Enregistre d'avance les indicatifs d'une autre flotte, par exemple les modèles d'avions
+     * L'index des noms ne grandit plus quand ces avions entrent en jeu
+     * @param other
+     */
+    public void reserveNames(Fleet other) {
+        for (int i = 0; i < other.size(); ++i)
+            internName(other.name[i]);
+    }
+
+    private void unindexName(int slot) {
+        int id = callsignId[slot];
+        if (slotOfCallsign[id] == slot)
+            slotOfCallsign[id] = -1;
+    }
+
+    public String getName(int slot) { return name[slot]; }
+
+    public float getX(int slot) { return x[slot]; }
+
+    public float getY(int slot) { return y[slot]; }
+
+    public float getHeading(int slot) { return heading[slot]; }
+
+    public float getSpeed(int slot) { return speed[slot]; }
+
+    public int getBehavior(int slot) { return behavior[slot]; }
+
+    public int getRouteId(int slot) { return routeId[slot]; }
+
+    public int getStateId(int slot) { return stateId[slot]; }
+
+    public int getParkingRouteId(int slot) { return parkingRouteId[slot]; }
+
+    public boolean isMarkedForRemoval(int slot) { return markedForRemoval[slot]; }
+
+    public double getVelocityX(int slot) { return vx[slot]; }
+
+    public double getVelocityY(int slot) { return vy[slot]; }
+
+    public int getMotionVersion(int slot) { return motionVersion[slot]; }
+
+    public int getEventVersion(int slot) { return eventVersion[slot]; }
+
+    public FlightPlan getFlightPlan(int slot) { return plan[slot]; }
+
+    public int getCursor(int slot) { return cursor[slot]; }
+
+    public void setHeading(int slot, float heading) {
+        this.heading[slot] = heading;
+        double angle = Math.toRadians(heading - 90);
+        dirX[slot] = Math.cos(angle);
+        dirY[slot] = Math.sin(angle);
+    }
+
+    /**
+     * Setter pour le comportement d'un avion
+     * Le plan de vol est reconstruit si l'avion entre ou sort du circuit d'attente
+     * @param slot
+     * @param behavior
+     */
+    public void setBehavior(int slot, int behavior) {
+        boolean holdingChanged = (behavior == 1) != (this.behavior[slot] == 1);
+        this.behavior[slot] = behavior;
+        if (holdingChanged)
+            replan(slot);
+        else wake(slot);
+    }
+
+    /**
+     * Setter pour la route d'un avion, le plan de vol repart de cette route
+     * @param slot
+     * @param routeId
+     */
+    public void setRouteId(int slot, int routeId) {
+        this.routeId[slot] = routeId;
+        replan(slot);
+    }
+
+    /**
+     * Setter pour l'état d'un avion, le plan de vol est reconstruit à partir de la route actuelle
+     * @param slot
+     * @param stateId
+     */
+    public void setStateId(int slot, int stateId) {
+        this.stateId[slot] = stateId;
+        replan(slot);
+    }
+
+    /**
+     * Setter pour la route de parking d'un avion, le plan de vol est reconstruit à partir de la route actuelle
+     * @param slot
+     * @param parkingRouteId
+     */
+    public void setParkingRouteId(int slot, int parkingRouteId) {
+        this.parkingRouteId[slot] = parkingRouteId;
+        replan(slot);
+    }
+
+    /**
+     * Remplace le plan de vol d'un avion par celui qui part de sa route actuelle
+     * C'est ce qui se passe quand une autorisation est donnée à l'avion
+     * @param slot
+     */
+    public void replan(int slot) {
+        plan[slot] = world.getFlightPlanner().planFor(routeId[slot], stateId[slot], behavior[slot], parkingRouteId[slot]);
+        cursor[slot] = 0;
+        wake(slot);
+    }
+
+    /**
+     * Getter pour la file des évènements de navigation des avions de la flotte
+     * @return
+     */
+    public EventScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Programme la navigation d'un avion dès le prochain passage, ses évènements déjà programmés deviennent obsolètes
+     * A appeler quand l'avion change autrement que par la navigation (autorisation, ajout, ...)
+     * @param slot
+     */
+    public void wake(int slot) {
+        scheduler.scheduleNow(handle[slot], ++eventVersion[slot]);
+    }
+
+    /**
+     * Programme la navigation d'un avion à un tick donné, ses évènements déjà programmés deviennent obsolètes
+     * @param slot
+     * @param tick
+     */
+    public void schedule(int slot, long tick) {
+        scheduler.schedule(tick, handle[slot], ++eventVersion[slot]);
+    }
+
+    /**
+     * Programme la navigation de tous les avions dès le prochain passage
+     */
+    public void wakeAll() {
+        for (int i = 0; i < size; ++i)
+            wake(i);
+    }
+
+    /**
+     * Annule les évènements programmés pour un avion
+     * @param slot
+     */
+    public void cancelEvents(int slot) {
+        ++eventVersion[slot];
+    }
+
+    /**
+     * Vérifie que l'avion est toujours sur l'écran de façon à supprimer ceux qui en sortent
+     * @param slot
+     * @return
+     */
+    public boolean isOutOfScreen(int slot) {
+        return x[slot] > World.WIDTH || x[slot] < 0 || y[slot] < 0 || y[slot] > World.HEIGHT;//Coordonées, pas DiP
+    }
+
+    /**
+     * Mémorise la position et le cap du tick précédent de tous les avions
+     * A appeler avant la mise à jour pour permettre l'interpolation à l'affichage
+     */
+    public void savePreviousState() {
+        System.arraycopy(x, 0, previousX, 0, size);
+        System.arraycopy(y, 0, previousY, 0, size);
+        System.arraycopy(heading, 0, previousHeading, 0, size);
+    }
+
+    /**
+     * Fait avancer tous les avions qui ne sont pas arrêtés, selon leur cap, leur vitesse et la durée du tick
+     * Si la navigation a fait tourner un avion pendant le tick, il ne parcourt que la fraction du tick qui reste
+     * Le déplacement de chaque avion est gardé dans vx et vy, la version de mouvement change s'il est différent du tick précédent
+     * La grille est mise à jour pour tous les avions, la navigation a pu en décaler certains
+     */
+    public void move() {
+        moveRange(0, size);
+        updateSpatialHash();
+    }
+
+    /**
+     * Fait avancer les avions des positions from (incluse) à to (exclue), sans toucher à la grille
+     * Chaque avion ne modifie que sa propre position : des plages disjointes peuvent avancer en même temps
+     * @param from
+     * @param to
+     */
+    void moveRange(int from, int to) {
+        for (int i = from; i < to; ++i) {
+            double dx = 0, dy = 0;
+            if (behavior[i] != 3) {
+                double step = stepLength(speed[i]);
+                dx = step * dirX[i];
+                dy = step * dirY[i];
+            }
+            if (dx != vx[i] || dy != vy[i]) {
+                vx[i] = dx;
+                vy[i] = dy;
+                ++motionVersion[i];
+            }
+            x[i] += dx * stepLeft[i];
+            y[i] += dy * stepLeft[i];
+            stepLeft[i] = 1;
+        }
+    }
+
+    /**
+     * Met à jour la grille pour tous les avions, dans l'ordre des positions
+     */
+    void updateSpatialHash() {
+        for (int i = 0; i < size; ++i)
+            spatialHash.update(i, x[i], y[i]);
+    }
+
+    /**
+     * Distance parcourue pendant un tick entier à une vitesse donnée
+     * @param speed
+     * @return
+     */
+    public double stepLength(float speed) {
+        return groundSpeed(speed) * timeStep;
+    }
+
+    /**
+     * Convertit la vitesse d'un avion en unités de jeu par seconde
+     * @param speed
+     * @return
+     */
+    public static double groundSpeed(float speed) {
+        return (speed / 2) / 3.6;
+    }
+
+    /**
+     * Getter pour la durée d'un tick en secondes de jeu
+     * @return
+     */
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Setter pour la durée d'un tick en secondes de jeu
+     * Les évènements de navigation prévus avec l'ancienne durée sont reprogrammés
+     * @param timeStep
+     */
+    public void setTimeStep(double timeStep) {
+        if (timeStep <= 0)
+            throw new IllegalArgumentException("Time step must be positive");
+        this.timeStep = timeStep;
+        wakeAll();
+    }
+
+    /**
+     * Retourne la coordonnée X interpolée entre le tick précédent et le tick actuel
+     * @param slot
+     * @param alpha - La fraction de tick écoulée, entre 0 et 1
+     * @return
+     */
+    public float getInterpolatedX(int slot, float alpha) {
+        return previousX[slot] + (x[slot] - previousX[slot]) * alpha;
+    }
+
+    /**
+     * Retourne la coordonnée Y interpolée entre le tick précédent et le tick actuel
+     * @param slot
+     * @param alpha - La fraction de tick écoulée, entre 0 et 1
+     * @return
+     */
+    public float getInterpolatedY(int slot, float alpha) {
+        return previousY[slot] + (y[slot] - previousY[slot]) * alpha;
+    }
+
+    /**
+     * Retourne le cap interpolé entre le tick précédent et le tick actuel en tournant par le plus court
+     * @param slot
+     * @param alpha - La fraction de tick écoulée, entre 0 et 1
+     * @return
+     */
+    public float getInterpolatedHeading(int slot, float alpha) {
+        float diff = ((heading[slot] - previousHeading[slot]) % 360 + 540) % 360 - 180;
+        return previousHeading[slot] + diff * alpha;
+    }
+
+    /**
+     * Réserve une position et un handle pour un nouvel avion
+     * @return la position
+     */
+    private int allocate() {
+        if (size == x.length)
+            grow();
+        int index;
+        if (freeCount > 0) {
+            index = freeIndexes[--freeCount];
+        } else {
+            if (indexCount == slotOfIndex.length)
+                growIndexes();
+            index = indexCount++;
+        }
+        int slot = size++;
+        slotOfIndex[index] = slot;
+        handle[slot] = (generation[index] << INDEX_BITS) | index;
+        planes[slot] = planePool.acquire();
+        planes[slot].bind(this, handle[slot]);
+        return slot;
+    }
+
+    /**
+     * Copie les attributs d'un avion d'une position à une autre (sans le handle)
+     */
+    private void copy(Fleet from, int fromSlot, int toSlot) {
+        x[toSlot] = from.x[fromSlot];
+        y[toSlot] = from.y[fromSlot];
+        heading[toSlot] = from.heading[fromSlot];
+        speed[toSlot] = from.speed[fromSlot];
+        previousX[toSlot] = from.previousX[fromSlot];
+        previousY[toSlot] = from.previousY[fromSlot];
+        previousHeading[toSlot] = from.previousHeading[fromSlot];
+        dirX[toSlot] = from.dirX[fromSlot];
+        dirY[toSlot] = from.dirY[fromSlot];
+        stepLeft[toSlot] = from.stepLeft[fromSlot];
+        vx[toSlot] = from.vx[fromSlot];
+        vy[toSlot] = from.vy[fromSlot];
+        motionVersion[toSlot] = from.motionVersion[fromSlot];
+        eventVersion[toSlot] = from.eventVersion[fromSlot];
+        behavior[toSlot] = from.behavior[fromSlot];
+        routeId[toSlot] = from.routeId[fromSlot];
+        stateId[toSlot] = from.stateId[fromSlot];
+        parkingRouteId[toSlot] = from.parkingRouteId[fromSlot];
+        plan[toSlot] = from.plan[fromSlot];
+        cursor[toSlot] = from.cursor[fromSlot];
+        markedForRemoval[toSlot] = from.markedForRemoval[fromSlot];
+        name[toSlot] = from.name[fromSlot];
+    }
+
+    private void savePreviousState(int slot) {
+        previousX[slot] = x[slot];
+        previousY[slot] = y[slot];
+        previousHeading[slot] = heading[slot];
+    }
+
+    /**
+     * Double la capacité des tableaux d'attributs
+     */
+    private void grow() {
+        int capacity = x.length * 2;
+        x = copyOf(x, capacity);
+        y = copyOf(y, capacity);
+        heading = copyOf(heading, capacity);
+        speed = copyOf(speed, capacity);
+        previousX = copyOf(previousX, capacity);
+        previousY = copyOf(previousY, capacity);
+        previousHeading = copyOf(previousHeading, capacity);
+        dirX = copyOf(dirX, capacity);
+        dirY = copyOf(dirY, capacity);
+        stepLeft = copyOf(stepLeft, capacity);
+        vx = copyOf(vx, capacity);
+        vy = copyOf(vy, capacity);
+        motionVersion = copyOf(motionVersion, capacity);
+        eventVersion = copyOf(eventVersion, capacity);
+        behavior = copyOf(behavior, capacity);
+        routeId = copyOf(routeId, capacity);
+        stateId = copyOf(stateId, capacity);
+        parkingRouteId = copyOf(parkingRouteId, capacity);
+        handle = copyOf(handle, capacity);
+        callsignId = copyOf(callsignId, capacity);
+
+        boolean[] newMarked = new boolean[capacity];
+        System.arraycopy(markedForRemoval, 0, newMarked, 0, size);
+        markedForRemoval = newMarked;
+        String[] newName = new String[capacity];
+        System.arraycopy(name, 0, newName, 0, size);
+        name = newName;
+        FlightPlan[] newPlan = new FlightPlan[capacity];
+        System.arraycopy(plan, 0, newPlan, 0, size);
+        plan = newPlan;
+        cursor = copyOf(cursor, capacity);
+        Plane[] newPlanes = new Plane[capacity];
+        System.arraycopy(planes, 0, newPlanes, 0, size);
+        planes = newPlanes;
+    }
+
+    /**
+     * Double la capacité de la table des handles
+     */
+    private void growIndexes() {
+        int capacity = slotOfIndex.length * 2;
+        if (capacity > INDEX_MASK + 1)
+            throw new IllegalStateException("Too many planes");
+        slotOfIndex = copyOf(slotOfIndex, capacity);
+        generation = copyOf(generation, capacity);
+        freeIndexes = copyOf(freeIndexes, capacity);
+    }
+
+    private static float[] copyOf(float[] array, int capacity) {
+        float[] copy = new float[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    private static double[] copyOf(double[] array, int capacity) {
+        double[] copy = new double[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+
+    private static int[] copyOf(int[] array, int capacity) {
+        int[] copy = new int[capacity];
+        System.arraycopy(array, 0, copy, 0, array.length);
+        return copy;
+    }
+}
@@ -0,0 +1,61 @@
+package ked.atc_simulator.Gameplay;
+
+/**
+ * Plan de vol d'un avion : la suite des identifiants des routes qu'il va emprunter
+ * Un plan ne change jamais après sa construction, il est donc partagé par tous les avions qui suivent le même chemin.
+ * Chaque avion garde seulement sa position dans le plan (le curseur, voir Fleet)
+ * Si loopStart est positif, le plan reprend à cette position après la dernière route (circuit d'attente par exemple)
+ */
+public class FlightPlan {
+
+    public static final int END = -1; // Curseur après la dernière route d'un plan qui ne boucle pas
+
+    private final int[] routes;
+    private final int loopStart;
+
+    /**
+     * Constructeur de la classe FlightPlan
+     * @param routes    - Les identifiants des routes, le tableau n'est pas copié et ne doit plus être modifié
+     * @param loopStart - La position où reprendre après la dernière route, -1 si le plan ne boucle pas
+     */
+    public FlightPlan(int[] routes, int loopStart) {
+        this.routes = routes;
+        this.loopStart = loopStart;
+    }
+
+    /**
+     * Getter pour l'identifiant de la route à une position du plan
+     * @param cursor
+     * @return
+     */
+    public int getRouteId(int cursor) {
+        return routes[cursor];
+    }
+
+    /**
+     * Retourne la position qui suit dans le plan, END s'il n'y a plus de route
+     * @param cursor
+     * @return
+     */
+    public int next(int cursor) {
+        if (cursor + 1 < routes.length)
+            return cursor + 1;
+        return loopStart;
+    }
+
+    /**
+     * Getter pour le nombre de routes du plan
+     * @return
+     */
+    public int length() {
+        return routes.length;
+    }
+
+    /**
+     * Getter pour la position où reprend le plan après la dernière route, -1 si le plan ne boucle pas
+     * @return
+     */
+    public int getLoopStart() {
+        return loopStart;
+    }
+}
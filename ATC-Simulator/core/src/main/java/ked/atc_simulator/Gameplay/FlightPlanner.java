@@ -0,0 +1,142 @@
+package ked.atc_simulator.Gameplay;
+
+import java.util.Arrays;
+
+import ked.atc_simulator.State.PlaneState;
+
+/**
+ * Cette classe construit les plans de vol des avions à partir du réseau de routes du monde
+ * Un plan ne dépend que de la route de départ, de l'état de l'avion, du fait qu'il soit en attente ou non,
+ * et de son parking : les plans sont donc construits une seule fois et partagés
+ */
+public class FlightPlanner {
+
+    private final World world;
+    private final int routeCount;
+    private final int[] parkingIds; // Fleet.NO_PARKING puis les routes de parking du monde
+    private final int[] parkingIndex; // Position de chaque route dans parkingIds, -1 si ce n'est pas un parking
+    private final FlightPlan[] plans; // Plans déjà construits, indexés comme dans planFor()
+    private final int[] routes; // Routes du plan en cours de construction, réutilisé d'un plan à l'autre
+
+    /**
+     * Constructeur de la classe FlightPlanner
+     * @param world - Le monde, dont toutes les routes doivent être enregistrées
+     */
+    public FlightPlanner(World world) {
+        this(world, new FlightPlan[planCount(world.getRouteCount(), world.getParkingRoutes().size())]);
+    }
+
+    /**
+     * Constructeur de la classe FlightPlanner, avec des plans déjà construits pour le même plan d'aéroport
+     * @param world - Le monde, dont toutes les routes doivent être enregistrées
+     * @param plans - Voir prepare()
+     */
+    FlightPlanner(World world, FlightPlan[] plans) {
+        this.world = world;
+        routeCount = world.getRouteCount();
+        int parkingCount = world.getParkingRoutes().size();
+        if (plans.length != planCount(routeCount, parkingCount))
+            throw new IllegalArgumentException("Flight plans do not match the world routes");
+        this.plans = plans;
+        parkingIds = new int[parkingCount + 1];
+        parkingIds[0] = Fleet.NO_PARKING;
+        parkingIndex = new int[routeCount];
+        Arrays.fill(parkingIndex, -1);
+        for (int p = 0; p < parkingCount; ++p) {
+            int id = world.getParkingRoutes().get(p).getId();
+            parkingIds[p + 1] = id;
+            parkingIndex[id] = p + 1;
+        }
+        routes = new int[routeCount];
+    }
+
+    /**
+     * Construit d'avance tous les plans, pour qu'aucun ne soit construit pendant la partie
+     * @return les plans, à partager avec les mondes construits à partir du même plan d'aéroport
+     */
+    FlightPlan[] prepare() {
+        for (int routeId = 0; routeId < routeCount; ++routeId) {
+            for (int stateId = 0; stateId < PlaneState.COUNT; ++stateId) {
+                for (int parkingRouteId : parkingIds) {
+                    planFor(routeId, stateId, 0, parkingRouteId);
+                    planFor(routeId, stateId, 1, parkingRouteId);
+                }
+            }
+        }
+        return plans;
+    }
+
+    private static int planCount(int routeCount, int parkingCount) {
+        return routeCount * PlaneState.COUNT * 2 * (parkingCount + 1);
+    }
+
+    /**
+     * Retourne le plan de vol d'un avion qui commence sur une route
+     * @param routeId
+     * @param stateId
+     * @param behavior
+     * @param parkingRouteId - La route de parking de l'avion, Fleet.NO_PARKING s'il n'en a pas
+     * @return un plan partagé, l'avion commence à la position 0
+     */
+    public FlightPlan planFor(int routeId, int stateId, int behavior, int parkingRouteId) {
+        boolean holding = behavior == 1;
+        int parking = parkingRouteId == Fleet.NO_PARKING ? 0 : parkingIndex[parkingRouteId];
+        if (parking < 0)
+            throw new IllegalArgumentException("Not a parking route: " + parkingRouteId);
+        int index = ((routeId * PlaneState.COUNT + stateId) * 2 + (holding ? 1 : 0)) * parkingIds.length + parking;
+        FlightPlan plan = plans[index];
+        if (plan == null) {
+            plan = build(routeId, stateId, holding, parkingRouteId);
+            plans[index] = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Retourne la route qui suit une route donnée pour un avion
+     * Au sol, l'avion prend le plus court chemin vers son parking à l'arrivée, vers la piste de décollage au départ
+     * @param route
+     * @param stateId
+     * @param holding        - Vrai si l'avion reste dans le circuit d'attente
+     * @param parkingRouteId
+     * @return la route suivante, null s'il n'y en a pas
+     */
+    public Route nextRoute(Route route, int stateId, boolean holding, int parkingRouteId) {
+        PlaneState planeState = world.getPlaneState(stateId);
+        boolean arriving = stateId == PlaneState.ARRIVING;
+        //Différentes actions en fonction de l'état de l'avion (arrivée ou départ). Utilisation du StatePattern
+        if (route == world.getBase())
+            return holding ? world.getUpwind() : planeState.baseAction();
+        if (route == world.getCrosswindRN())
+            return holding ? world.getDownwind() : planeState.crosswindRNAction();
+        if (arriving && route instanceof ParkingRoute)
+            return null; // A l'arrivée l'avion s'arrête au fond du parking
+        int destination = arriving ? parkingRouteId : world.getRunwayTO().getId();
+        TaxiRouter router = world.getTaxiRouter();
+        if (destination != Fleet.NO_PARKING && router.isGroundRoute(route.getId())) {
+            int next = router.nextHop(route.getId(), destination);
+            if (next != AirportLayout.NO_ROUTE)
+                return world.getRoute(next);
+        }
+        return route.getNextRoute();
+    }
+
+    /**
+     * Suit les routes à partir de la route de départ jusqu'à la fin, ou jusqu'à retomber sur une route déjà vue
+     */
+    private FlightPlan build(int routeId, int stateId, boolean holding, int parkingRouteId) {
+        int length = 0, loopStart = FlightPlan.END;
+        Route route = world.getRoute(routeId);
+        while (route != null) {
+            for (int i = 0; i < length; ++i) {
+                if (routes[i] == route.getId())
+                    loopStart = i;
+            }
+            if (loopStart != FlightPlan.END)
+                break;
+            routes[length++] = route.getId();
+            route = nextRoute(route, stateId, holding, parkingRouteId);
+        }
+        return new FlightPlan(Arrays.copyOf(routes, length), loopStart);
+    }
+}
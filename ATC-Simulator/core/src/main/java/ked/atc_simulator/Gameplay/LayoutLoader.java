@@ -0,0 +1,230 @@
+package ked.atc_simulator.Gameplay;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+import ked.atc_simulator.Utils.IntList;
+import ked.atc_simulator.Utils.NameRegistry;
+
+/**
+ * Cette classe lit les fichiers de plan d'aéroport (voir layouts/default.layout pour le format)
+ * Un fichier de plan est un fichier texte, une ligne par élément, les lignes commençant par # sont ignorées
+ *
+ * load() garde à côté du fichier un cache binaire du plan compilé : tant que le fichier ne change pas,
+ * les démarrages suivants relisent le cache au lieu d'analyser le texte et de recompiler les routes
+ */
+public class LayoutLoader {
+
+    private LayoutLoader() {
+    }
+
+    /**
+     * Charge un plan en passant par son cache binaire
+     * Le cache est utilisé s'il correspond au contenu du fichier de plan, sinon il est refait
+     * @param source - Le fichier de plan
+     * @param cache  - Le fichier de cache, il n'a pas besoin d'exister
+     * @return le plan compilé
+     * @throws IOException si le fichier de plan ne peut pas être lu ou n'est pas valide
+     */
+    public static AirportLayout load(InputStream source, File cache) throws IOException {
+        byte[] text = readAll(source);
+        CRC32 crc = new CRC32();
+        crc.update(text, 0, text.length);
+        long checksum = crc.getValue();
+
+        AirportLayout layout = readCache(cache, checksum);
+        if (layout != null)
+            return layout;
+
+        layout = parse(new ByteArrayInputStream(text));
+        layout.compile();
+        writeCache(layout, cache, checksum);
+        return layout;
+    }
+
+    /**
+     * Analyse un fichier de plan, sans le compiler
+     * @param in
+     * @return
+     * @throws IOException si le fichier ne peut pas être lu ou n'est pas valide, avec le numéro de la ligne fautive
+     */
+    public static AirportLayout parse(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        AirportLayout layout = new AirportLayout();
+        NameRegistry routeNames = new NameRegistry(32);
+        IntList nextLines = new IntList(32); // Pour chaque route, la ligne où elle est déclarée
+        String[] nextNames = new String[32]; // Pour chaque route, le nom de la route suivante, résolu à la fin
+        IntList linkLines = new IntList(8); // Pour chaque liaison au sol, la ligne où elle est déclarée
+        String[] linkNames = new String[16]; // Noms des routes de chaque liaison, par paires, résolus à la fin
+
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            ++lineNumber;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] f = line.split("\\s+");
+            try {
+                switch (f[0]) {
+                    case "runway":
+                        expect(f, 5);
+                        layout.addRunway(num(f[1]), num(f[2]), num(f[3]), num(f[4]));
+                        break;
+                    case "taxiway":
+                        expect(f, 8);
+                        layout.addTaxiway(f[1], num(f[2]), num(f[3]), num(f[4]), num(f[5]), num(f[6]), num(f[7]));
+                        break;
+                    case "parking":
+                        expect(f, 8);
+                        layout.addParking(f[1], num(f[2]), num(f[3]), num(f[4]), num(f[5]), num(f[6]), num(f[7]));
+                        break;
+                    case "route":
+                        expect(f, 9);
+                        declareRoute(routeNames, f[1]);
+                        layout.addRoute(AirportLayout.ROUTE, f[1], integer(f[2]), num(f[3]), 0,
+                                integer(f[4]), integer(f[5]), num(f[6]), num(f[7]), 0, 0);
+                        break;
+                    case "runway_route":
+                        expect(f, 10);
+                        declareRoute(routeNames, f[1]);
+                        layout.addRoute(AirportLayout.RUNWAY_ROUTE, f[1], integer(f[2]), num(f[3]), num(f[4]),
+                                integer(f[5]), integer(f[6]), num(f[7]), num(f[8]), 0, 0);
+                        break;
+                    case "parking_route":
+                        expect(f, 11);
+                        declareRoute(routeNames, f[1]);
+                        layout.addRoute(AirportLayout.PARKING_ROUTE, f[1], integer(f[2]), num(f[3]), 0,
+                                integer(f[4]), integer(f[5]), num(f[6]), num(f[7]), num(f[8]), num(f[9]));
+                        break;
+                    case "taxi_link":
+                        expect(f, 3);
+                        linkNames = put(linkNames, 2 * linkLines.size(), f[1]);
+                        linkNames = put(linkNames, 2 * linkLines.size() + 1, f[2]);
+                        linkLines.add(lineNumber);
+                        continue; // Ce n'est pas une route
+                    default:
+                        throw new IOException("unknown element " + f[0]);
+                }
+            } catch (IOException | NumberFormatException e) {
+                throw new IOException("Layout line " + lineNumber + ": " + e.getMessage(), e);
+            }
+            if (nextLines.size() < layout.getRouteCount()) { // La route suivante est toujours le dernier champ
+                nextNames = put(nextNames, nextLines.size(), f[f.length - 1]);
+                nextLines.add(lineNumber);
+            }
+        }
+
+        // Les routes suivantes peuvent être déclarées plus loin dans le fichier
+        for (int r = 0; r < layout.getRouteCount(); ++r) {
+            if (nextNames[r].equals("-"))
+                continue;
+            int next = routeNames.idOf(nextNames[r]);
+            if (next < 0)
+                throw new IOException("Layout line " + nextLines.get(r) + ": unknown route " + nextNames[r]);
+            layout.setNextRoute(r, next);
+        }
+        for (int i = 0; i < linkLines.size(); ++i) {
+            int from = routeNames.idOf(linkNames[2 * i]), to = routeNames.idOf(linkNames[2 * i + 1]);
+            if (from < 0 || to < 0)
+                throw new IOException("Layout line " + linkLines.get(i) + ": unknown route "
+                        + (from < 0 ? linkNames[2 * i] : linkNames[2 * i + 1]));
+            layout.addTaxiLink(from, to);
+        }
+        return layout;
+    }
+
+    private static void declareRoute(NameRegistry routeNames, String name) throws IOException {
+        if (routeNames.idOf(name) >= 0)
+            throw new IOException("duplicate route " + name);
+        routeNames.intern(name); // Même identifiant que la route dans le plan : elles sont ajoutées dans le même ordre
+    }
+
+    private static String[] put(String[] names, int i, String name) {
+        if (i == names.length) {
+            String[] grown = new String[names.length * 2];
+            System.arraycopy(names, 0, grown, 0, names.length);
+            names = grown;
+        }
+        names[i] = name;
+        return names;
+    }
+
+    private static void expect(String[] fields, int count) throws IOException {
+        if (fields.length != count)
+            throw new IOException(fields[0] + " expects " + (count - 1) + " values, got " + (fields.length - 1));
+    }
+
+    private static float num(String field) {
+        return Float.parseFloat(field);
+    }
+
+    private static int integer(String field) {
+        return Integer.parseInt(field);
+    }
+
+    /**
+     * Relit le cache, null s'il n'existe pas, s'il est illisible ou s'il ne correspond pas au fichier de plan
+     */
+    private static AirportLayout readCache(File cache, long checksum) {
+        if (cache == null || !cache.isFile())
+            return null;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache)));
+            try {
+                return AirportLayout.readFrom(in, checksum);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null; // Le cache sera refait
+        }
+    }
+
+    /**
+     * Ecrit le cache dans un fichier temporaire renommé ensuite, pour ne jamais laisser un cache à moitié écrit
+     * Un échec n'empêche pas la partie de démarrer, le cache sera refait au prochain démarrage
+     */
+    private static void writeCache(AirportLayout layout, File cache, long checksum) {
+        if (cache == null)
+            return;
+        File temp = new File(cache.getPath() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                layout.writeTo(out, checksum);
+            } finally {
+                out.close();
+            }
+            if (!temp.renameTo(cache)) {
+                cache.delete();
+                if (!temp.renameTo(cache))
+                    temp.delete();
+            }
+        } catch (IOException e) {
+            temp.delete();
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1)
+            out.write(buffer, 0, n);
+        return out.toByteArray();
+    }
+}
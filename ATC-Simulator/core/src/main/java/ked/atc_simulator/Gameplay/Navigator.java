@@ -0,0 +1,278 @@
+package ked.atc_simulator.Gameplay;
+
+import java.util.Arrays;
+
+import ked.atc_simulator.Utils.IntList;
+
+/**
+ * Cette classe calcule les changements de route, de cap et de vitesse des avions d'une flotte
+ * Le déplacement lui-même est fait ensuite pour toute la flotte par Fleet.move()
+ * Un avion n'est pas examiné à chaque tick : sur une route droite à vitesse constante, on calcule à l'avance
+ * le tick où il atteindra le point suivant et on programme un évènement (voir EventScheduler)
+ */
+public class Navigator {
+
+    // Marge ajoutée à la zone de précision pour la prédiction, pour absorber les arrondis des positions en float
+    // On se réveille un peu trop tôt plutôt que trop tard, la capture elle-même est toujours vérifiée exactement
+    private static final double PREDICTION_MARGIN = 0.5;
+    private static final int MAX_ROUTES_PER_TICK = 8; // Nombre max de routes enchainées pendant un même tick
+    static final long NO_EVENT = -1; // Résultat de nextEventTick() quand l'avion n'a plus besoin d'être examiné
+
+    private final World world;
+    private final Fleet fleet;
+
+    // Point à atteindre calculé par locateTarget()
+    private float targetX, targetY;
+    private int precisionX, precisionY;
+
+    // Avions à examiner pendant le tick en cours et tick de leur prochain évènement, dans l'ordre de la file
+    final IntList due;
+    long[] nextTick;
+
+    /**
+     * Constructeur de la classe Navigator
+     * @param world
+     * @param fleet
+     */
+    public Navigator(World world, Fleet fleet) {
+        this.world = world;
+        this.fleet = fleet;
+        due = new IntList(64);
+        nextTick = new long[64];
+    }
+
+    /**
+     * Calcule les nouveaux paramètres de l'avion à une position donnée en fonction de sa route, sa vitesse, son cap, ...
+     * Les décisions sont lues dans la table de transitions du monde, la route suivante dans le plan de vol de l'avion
+     * L'avion passe à la route suivante si son déplacement pendant le tick franchit le point à atteindre : il est placé
+     * sur le point de passage et la fin du tick se fait sur la nouvelle route, quelle que soit la durée du tick
+     * @param i - La position de l'avion dans la flotte
+     */
+    @SuppressWarnings("fallthrough") // La sortie de parking continue volontairement sur le passage à la route suivante
+    public void update(int i) {
+        TransitionTable table = world.getTransitions();
+        ParkingRoute parkingRoute = world.getParkingRoute(fleet.parkingRouteId[i]);
+        float x = fleet.x[i], y = fleet.y[i];
+
+        for (int n = 0; n < MAX_ROUTES_PER_TICK && fleet.behavior[i] != 3; ++n) { // Si l'avion doit s'arrêter, on ne fait rien
+            int routeId = fleet.routeId[i];
+            int e = table.index(routeId, fleet.stateId[i], fleet.behavior[i]);
+            FlightPlan plan = fleet.plan[i];
+            int nextCursor = plan.next(fleet.cursor[i]);
+            if (nextCursor == FlightPlan.END && table.target[e] == TransitionTable.TARGET_NEXT_START)
+                break; // Fin du plan de vol, l'avion continue tout droit
+            Route route = world.getRoute(routeId);
+            locateTarget(table.target[e], parkingRoute, plan, nextCursor);
+
+            switch (table.post[e]) {
+                case TransitionTable.POST_SNAP_FINAL:
+                    float diffY = y - targetY;
+                    if (diffY >= 5 || diffY <= 2)
+                        y = route.getStartPoint().y + 10;
+                    break;
+                case TransitionTable.POST_STOP_WITHOUT_PARKING:
+                    if (parkingRoute == world.getEmptyParkingRoute()) {
+                        fleet.behavior[i] = 3;//Stop
+                        y += 50;
+                    }
+                    break;
+            }
+
+            //On met a jour le cap et la vitesse en fonction de la route empruntée
+            if (table.headingOffset[e] == 0) { // Le vecteur du cap de la route est déjà calculé
+                fleet.heading[i] = route.getHeading();
+                fleet.dirX[i] = route.getDirectionX();
+                fleet.dirY[i] = route.getDirectionY();
+            } else fleet.setHeading(i, route.getHeading() + table.headingOffset[e]);
+            float speed = route.getSpeed();
+
+            //La vitesse varie quand on est sur une piste (que ce soit au décollage ou à l'atterissage)
+            // en fonction de la position de l'avion sur ce dernier
+            switch (table.speedMode[e]) {
+                case TransitionTable.SPEED_TAKEOFF:
+                    speed = route.getSpeed() * (x / table.runwayEnd[routeId]);
+                    break;
+                case TransitionTable.SPEED_LANDING:
+                    speed = route.getSpeed() * (route.getStartPoint().x / x);
+                    break;
+            }
+            fleet.speed[i] = speed;
+            if (fleet.behavior[i] == 3)
+                break;
+
+            //passage à la route suivante
+            double dirX = fleet.dirX[i], dirY = fleet.dirY[i];
+            double step = fleet.stepLength(speed) * fleet.stepLeft[i]; // Distance qui reste à parcourir pendant le tick
+            /*Le coefficient de précision d'une route permet d'être plus ou moins précis dans le passage à la route suivante en fonction
+            de la vitesse où est l'avion sur la route */
+            float sx = speed / precisionX, sy = speed / precisionY;
+            double along = (targetX - x) * dirX + (targetY - y) * dirY; // Distance au point à atteindre dans l'axe du cap
+            double holdShort = table.capture[e] == TransitionTable.CAPTURE_HOLD_SHORT ? Math.abs(dirX) * sx + Math.abs(dirY) * sy : 0;
+            if (step <= 0 || along - holdShort >= step || along + holdShort < 0)
+                break; // Le point n'est pas franchi pendant ce tick
+            //Ces variables correspondent à la différence entre le point de passage et le point à atteindre
+            float diffX = (float) (x + along * dirX - targetX), diffY = (float) (y + along * dirY - targetY);
+            if (!(diffX <= sx && diffX > -sx && diffY <= sy && diffY > -sy))
+                break; // On passe à côté du point
+
+            double travelled = Math.max(0, along - holdShort);
+            x += travelled * dirX;
+            y += travelled * dirY;
+            fleet.stepLeft[i] *= (float) ((step - travelled) / step);
+            switch (table.capture[e]) {
+                case TransitionTable.CAPTURE_HOLD_SHORT: // Si l'avion doit attendre avant la piste, on l'arrête
+                    fleet.behavior[i] = 3;
+                    break;
+                case TransitionTable.CAPTURE_PARK:
+                    fleet.behavior[i] = 3; // On s'arrête
+                    fleet.markedForRemoval[i] = true; // Et on supprime l'avion
+                    break;
+                case TransitionTable.CAPTURE_LEAVE_PARKING: //Si on est sur une route de parking et qu'on est sur le départ
+                    y = world.getCharlie().getStartPoint().y; // On ajuste la position Y pour être bien aligné sur Charlie
+                    // puis on passe à la route suivante, Charlie
+                default:
+                    fleet.cursor[i] = nextCursor;
+                    fleet.routeId[i] = plan.getRouteId(nextCursor);
+                    break;
+            }
+        }
+        if (x != fleet.x[i] || y != fleet.y[i]) { // L'avion a été recalé, ce n'est plus le prolongement de son déplacement
+            fleet.x[i] = x;
+            fleet.y[i] = y;
+            ++fleet.motionVersion[i];
+        }
+    }
+
+    /**
+     * Calcule le point à atteindre pour quitter la route et les coefficients de précision associés
+     */
+    private void locateTarget(byte target, ParkingRoute parkingRoute, FlightPlan plan, int nextCursor) {
+        switch (target) {
+            case TransitionTable.TARGET_PARKING_END: // Si on arrive et qu'on est sur un parking
+                targetX = parkingRoute.getEndPoint().x;
+                targetY = parkingRoute.getEndPoint().y;
+                precisionX = parkingRoute.getPrecisionCoefX();
+                precisionY = parkingRoute.getPrecisionCoefY();
+                break;
+            case TransitionTable.TARGET_PARKING_EXIT: // Si on part et qu'on est sur un parking
+                targetX = parkingRoute.getStartPoint().x;
+                targetY = parkingRoute.getStartPoint().y;
+                precisionX = world.getCharlie().getPrecisionCoefX();
+                precisionY = world.getCharlie().getPrecisionCoefY();
+                break;
+            default:
+                Route next = world.getRoute(plan.getRouteId(nextCursor));
+                targetX = next.getStartPoint().x;
+                targetY = next.getStartPoint().y;
+                precisionX = next.getPrecisionCoefX();
+                precisionY = next.getPrecisionCoefY();
+                break;
+        }
+    }
+
+    /**
+     * Calcule les nouveaux paramètres de tous les avions de la flotte
+     * Examine tous les avions à chaque appel, sans tenir compte des évènements programmés
+     */
+    public void updateAll() {
+        for (int i = 0; i < fleet.size(); ++i)
+            update(i);
+    }
+
+    /**
+     * Traite les évènements de navigation programmés jusqu'au tick donné
+     * Chaque avion traité est mis à jour puis son prochain évènement est programmé
+     * @param now - Le tick en cours
+     */
+    public void advance(long now) {
+        collectDue(now);
+        for (int k = 0; k < due.size(); ++k)
+            nextTick[k] = step(due.get(k), now);
+        commitEvents();
+    }
+
+    /**
+     * Retire de la file les évènements dus au tick donné et range les avions concernés dans due
+     * Un avion n'a qu'un seul évènement valide, il apparait donc au plus une fois
+     * @param now
+     */
+    void collectDue(long now) {
+        EventScheduler scheduler = fleet.getScheduler();
+        scheduler.setNow(now);
+        due.clear();
+        while (scheduler.hasEventUntil(now)) {
+            int handle = scheduler.peekHandle(), version = scheduler.peekVersion();
+            scheduler.pop();
+            int i = fleet.slotOf(handle);
+            if (i < 0 || fleet.eventVersion[i] != version) // Avion supprimé ou reprogrammé depuis
+                continue;
+            due.add(i);
+        }
+        if (nextTick.length < due.size())
+            nextTick = Arrays.copyOf(nextTick, Math.max(due.size(), nextTick.length * 2));
+    }
+
+    /**
+     * Met à jour un avion et calcule le tick de son prochain évènement, sans toucher à la file
+     * Seule la position de l'avion dans la flotte est modifiée : plusieurs avions peuvent être traités en même temps
+     * par des navigateurs différents (voir ParallelUpdater)
+     * @param i
+     * @param now
+     * @return le tick du prochain évènement, NO_EVENT s'il n'y en a pas
+     */
+    long step(int i, long now) {
+        update(i);
+        return nextEventTick(i, now);
+    }
+
+    /**
+     * Programme les évènements calculés pour les avions de due, dans l'ordre où ils sont sortis de la file
+     */
+    void commitEvents() {
+        for (int k = 0; k < due.size(); ++k) {
+            if (nextTick[k] == NO_EVENT)
+                fleet.cancelEvents(due.get(k));
+            else fleet.schedule(due.get(k), nextTick[k]);
+        }
+    }
+
+    /**
+     * Calcule le prochain examen d'un avion qui vient d'être mis à jour au tick donné
+     * Sur une route droite à vitesse constante, c'est le tick où l'avion franchira le point à atteindre,
+     * sinon (piste, finale, ...) c'est le tick suivant
+     * @param i
+     * @param now
+     * @return le tick du prochain évènement, NO_EVENT s'il n'y en a pas
+     */
+    long nextEventTick(int i, long now) {
+        int behavior = fleet.behavior[i];
+        if (behavior == 3) // L'avion est arrêté, il sera réveillé par une autorisation
+            return NO_EVENT;
+        TransitionTable table = world.getTransitions();
+        int e = table.index(fleet.routeId[i], fleet.stateId[i], behavior);
+        FlightPlan plan = fleet.plan[i];
+        int nextCursor = plan.next(fleet.cursor[i]);
+        if (nextCursor == FlightPlan.END && table.target[e] == TransitionTable.TARGET_NEXT_START)
+            return NO_EVENT; // L'avion continue tout droit jusqu'à sortir de l'écran
+        if (table.speedMode[e] != TransitionTable.SPEED_CONSTANT || table.post[e] != TransitionTable.POST_NONE)
+            return now + 1; // La vitesse ou la position changent à chaque tick
+
+        locateTarget(table.target[e], world.getParkingRoute(fleet.parkingRouteId[i]), plan, nextCursor);
+        float speed = fleet.speed[i];
+        double step = fleet.stepLength(speed);
+        double dirX = fleet.dirX[i], dirY = fleet.dirY[i];
+        float sx = speed / precisionX, sy = speed / precisionY;
+        double along = (targetX - fleet.x[i]) * dirX + (targetY - fleet.y[i]) * dirY;
+        double holdShort = table.capture[e] == TransitionTable.CAPTURE_HOLD_SHORT ? Math.abs(dirX) * sx + Math.abs(dirY) * sy : 0;
+        double diffX = fleet.x[i] + along * dirX - targetX, diffY = fleet.y[i] + along * dirY - targetY;
+        if (step <= 0 || along + holdShort < 0 || Math.abs(diffX) > sx + PREDICTION_MARGIN || Math.abs(diffY) > sy + PREDICTION_MARGIN)
+            return NO_EVENT; // L'avion ne passera jamais par le point à atteindre
+
+        // Au début du tick now + k, il reste along - step * (stepLeft + k - 1) à parcourir jusqu'au point
+        double ticks = Math.floor((along - holdShort) / step - fleet.stepLeft[i]) + 1;
+        if (ticks >= Long.MAX_VALUE - now)
+            return NO_EVENT;
+        // Un tick d'avance pour absorber les arrondis des positions en float, la capture est vérifiée par update()
+        return now + Math.max(1, (long) ticks - 1);
+    }
+}
@@ -0,0 +1,129 @@
+package ked.atc_simulator.Gameplay;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cette classe met à jour les avions d'une flotte sur plusieurs coeurs, pour les parties sans affichage (outils, tests)
+ * Le tick se fait en deux phases :
+ *  - en parallèle, chaque avion calcule son nouvel état (route, cap, vitesse, position) à partir de l'état du tick
+ *    précédent. Un avion ne lit que sa propre position dans la flotte et les routes du monde, qui ne changent pas
+ *  - en série, dans un ordre fixe, on applique ce qui touche plusieurs avions : la file des évènements et la grille.
+ *    Les suppressions et les ajouts d'avions restent faits par World.cleanupPlanes(), en série
+ * Le résultat est donc identique bit à bit à celui de Navigator.advance() suivi de Fleet.move()
+ *
+ * ForkJoinPool n'existe qu'à partir d'Android 5 : l'application n'utilise pas cette classe
+ */
+public class ParallelUpdater {
+
+    private static final int GRAIN = 256; // Nombre d'avions en dessous duquel une tâche n'est plus découpée
+
+    private final Fleet fleet;
+    private final Navigator navigator; // Celui du monde, il fait la collecte et la programmation des évènements
+    private final Navigator[] workers; // Un navigateur par tâche feuille possible, ils ont chacun leurs variables de calcul
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructeur de la classe ParallelUpdater
+     * @param world
+     * @param fleet
+     * @param navigator   - Le navigateur du monde
+     * @param parallelism - Le nombre de threads
+     */
+    public ParallelUpdater(World world, Fleet fleet, Navigator navigator, int parallelism) {
+        this.fleet = fleet;
+        this.navigator = navigator;
+        pool = new ForkJoinPool(parallelism);
+        workers = new Navigator[parallelism * 4];
+        for (int i = 0; i < workers.length; ++i)
+            workers[i] = new Navigator(world, fleet);
+    }
+
+    /**
+     * Met à jour les avions pour le tick donné
+     * @param now
+     */
+    public void update(long now) {
+        navigator.collectDue(now);
+        int count = navigator.due.size();
+        if (count > 0)
+            pool.invoke(new NavigateTask(now, 0, count, 0, workers.length));
+        navigator.commitEvents();
+        if (fleet.size() > 0)
+            pool.invoke(new MoveTask(0, fleet.size()));
+        fleet.updateSpatialHash();
+    }
+
+    /**
+     * Getter pour le nombre de threads
+     * @return
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Arrête les threads, l'objet ne doit plus être utilisé ensuite
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Met à jour les avions de navigator.due entre from et to
+     * Les navigateurs de travail sont partagés entre les sous-tâches : chaque tâche a sa propre plage de navigateurs
+     */
+    private class NavigateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long now;
+        private final int from, to, firstWorker, workerCount;
+
+        NavigateTask(long now, int from, int to, int firstWorker, int workerCount) {
+            this.now = now;
+            this.from = from;
+            this.to = to;
+            this.firstWorker = firstWorker;
+            this.workerCount = workerCount;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRAIN || workerCount == 1) {
+                Navigator worker = workers[firstWorker];
+                for (int k = from; k < to; ++k)
+                    navigator.nextTick[k] = worker.step(navigator.due.get(k), now);
+                return;
+            }
+            int middle = (from + to) >>> 1, half = workerCount / 2;
+            invokeAll(new NavigateTask(now, from, middle, firstWorker, half),
+                    new NavigateTask(now, middle, to, firstWorker + half, workerCount - half));
+        }
+    }
+
+    /**
+     * Fait avancer les avions de from à to
+     */
+    private class MoveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+
+        MoveTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GRAIN) {
+                fleet.moveRange(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MoveTask(from, middle), new MoveTask(middle, to));
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package ked.atc_simulator.Gameplay;
 
-import android.graphics.Point;
+import ked.atc_simulator.Utils.Point;
 
 /**
  * Classe fille de la classe route, elle rajoute un point de fin à la route. Arrivé à ce point l'avion sera supprimé
@@ -34,7 +34,7 @@ public class ParkingRoute extends Route {
      * @param x
      * @param y
      */
-    public void setEndPoint(int x, int y){
+    public void setEndPoint(float x, float y){
         endPoint.x = x;
         endPoint.y = y;
     }
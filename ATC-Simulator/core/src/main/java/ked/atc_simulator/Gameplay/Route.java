@@ -1,8 +1,7 @@
 package ked.atc_simulator.Gameplay;
 
 
-import ked.atc_simulator.Canvas.Point;
-import ked.atc_simulator.GameActivity;
+import ked.atc_simulator.Utils.Point;
 
 /**
  * Cette classe contient toutes les informations relatives aux routes
@@ -12,8 +11,10 @@ public class Route {
     private Point startPoint;
     private int speed, precisionCoefx, precisionCoefy;
     private float heading;
+    private double directionX, directionY; // Vecteur unitaire du cap, calculé une fois pour toutes
     private Route nextRoute;
     private String name;
+    private int id = -1; // Identifiant attribué par le monde à l'enregistrement de la route
 
     /**
      * Constructeur de la classe Route
@@ -26,6 +27,8 @@ public class Route {
     public Route(int speed, float heading, String name, int precisionCoefx, int precisionCoefy,Route nextRoute){
         this.speed = speed;
         this.heading = heading;
+        directionX = Math.cos(Math.toRadians(heading - 90));
+        directionY = Math.sin(Math.toRadians(heading - 90));
         startPoint = new Point(0,0);
         this.name = name;
         this.precisionCoefx = precisionCoefx;
@@ -46,6 +49,18 @@ public class Route {
         return heading;
     }
 
+    /**
+     * Getter pour la composante X du vecteur unitaire du cap
+     * @return
+     */
+    public double getDirectionX() { return directionX; }
+
+    /**
+     * Getter pour la composante Y du vecteur unitaire du cap
+     * @return
+     */
+    public double getDirectionY() { return directionY; }
+
     /**
      * Getter pour le coefficient de précision en X
      * @return
@@ -99,4 +114,16 @@ public class Route {
      * @return
      */
     public String getName() { return name; }
+
+    /**
+     * Getter de l'identifiant de la route, c'est son index dans le tableau des routes du monde
+     * @return
+     */
+    public int getId() { return id; }
+
+    /**
+     * Setter de l'identifiant de la route, utilisé par le monde à l'enregistrement
+     * @param id
+     */
+    void setId(int id) { this.id = id; }
 }
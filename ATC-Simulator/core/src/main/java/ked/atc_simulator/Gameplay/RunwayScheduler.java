@@ -0,0 +1,533 @@
+package ked.atc_simulator.Gameplay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import ked.atc_simulator.Entities.Runway;
+import ked.atc_simulator.State.PlaneState;
+import ked.atc_simulator.Utils.IntList;
+
+/**
+ * Cette classe donne l'accès aux pistes : un avion autorisé au décollage ou à l'atterrissage demande la piste,
+ * il attend dans la file de la piste (au point d'arrêt ou dans le circuit d'attente) jusqu'à ce qu'elle lui soit donnée
+ *
+ * Chaque piste n'a qu'un occupant à la fois, de l'attribution jusqu'à ce qu'il quitte la piste, suivi d'un temps
+ * de séparation. Les arrivées passent avant les départs. Les demandes sont rangées par piste et par type dans des files
+ * de priorité (voir EventScheduler), dans l'ordre des demandes, mais seulement une fois que leur avion est prêt.
+ * Un avion est prêt quand il peut atteindre l'entrée de la piste en moins d'un temps d'occupation estimé, en suivant
+ * son plan de vol aux vitesses des routes. Une demande est réexaminée quand le navigateur traite son avion
+ * (voir updateReadiness()) et au tick où l'avion devrait être prêt, les autres avions de la flotte ne sont jamais examinés.
+ * Un avion qui n'atteint pas la piste à temps la rend et refait sa demande
+ */
+public class RunwayScheduler {
+
+    public static final int ARRIVAL = 0;
+    public static final int DEPARTURE = 1;
+    public static final int NO_RUNWAY = -1;
+    public static final double DEFAULT_SEPARATION = 10; // En secondes de jeu, après chaque mouvement
+
+    private static final int NONE = -1;
+    private static final double ENTRY_TIMEOUT = 3; // En temps d'occupation estimés, avant de reprendre une piste jamais atteinte
+    private static final double ESTIMATE_WEIGHT = 0.25; // Poids d'une nouvelle mesure dans le temps d'occupation estimé
+
+    private final World world;
+    private final Fleet fleet;
+    private final int runwayCount;
+    private final int[] runwayOfRoute;
+
+    // Par piste
+    private final int[] occupant; // Handle de l'avion qui a la piste, NONE si elle est libre
+    private final int[] occupantKind;
+    private final boolean[] occupantEntered; // L'occupant est déjà sur la piste
+    private final long[] grantTick; // Tick de l'attribution à l'occupant
+    private final long[] freeTick; // Tick à partir duquel la piste peut être donnée, séparation comprise
+
+    // Par piste et par type (index runway * 2 + kind)
+    private final EventScheduler[] queues; // Demandes prêtes, triées par numéro de demande
+    private final int[] queued; // Nombre de demandes valides dans chaque file
+    private final double[] occupancy; // Temps d'occupation estimé, en secondes de jeu
+    private final double[] separation = {DEFAULT_SEPARATION, DEFAULT_SEPARATION}; // Par type
+
+    private final EventScheduler checks; // Réexamens programmés des demandes qui ne sont pas encore prêtes
+
+    // Par index de handle (voir Fleet), la demande en cours de l'avion
+    private int[] requestHandle, requestVersion, requestKind, requestRunway;
+    private boolean[] requestReady; // La demande est dans la file de sa piste
+    private int[] requestCheck; // Version du dernier réexamen programmé, les précédents sont ignorés
+    private long[] requestCheckTick; // Tick du dernier réexamen programmé
+    private int nextVersion; // Numéro de la dernière demande, il donne aussi l'ordre des demandes
+    private long grantCount; // Nombre de pistes données depuis le début de la partie
+
+    /**
+     * Constructeur de la classe RunwayScheduler
+     * Chaque route de piste est rattachée à la piste la plus proche de son début
+     * @param world - Le monde, dont toutes les routes doivent être enregistrées
+     * @param fleet
+     */
+    public RunwayScheduler(World world, Fleet fleet) {
+        this.world = world;
+        this.fleet = fleet;
+        runwayCount = world.getAirport().getRunways().size();
+        runwayOfRoute = new int[world.getRouteCount()];
+        Arrays.fill(runwayOfRoute, NO_RUNWAY);
+        for (int r = 0; r < runwayOfRoute.length; ++r) {
+            Route route = world.getRoute(r);
+            if (route instanceof RunwayRoute)
+                runwayOfRoute[r] = nearestRunway(route.getStartPoint().x, route.getStartPoint().y);
+        }
+
+        occupant = new int[runwayCount];
+        occupantKind = new int[runwayCount];
+        occupantEntered = new boolean[runwayCount];
+        grantTick = new long[runwayCount];
+        freeTick = new long[runwayCount];
+        Arrays.fill(occupant, NONE);
+        queues = new EventScheduler[runwayCount * 2];
+        queued = new int[runwayCount * 2];
+        occupancy = new double[runwayCount * 2];
+        for (int q = 0; q < queues.length; ++q)
+            queues[q] = new EventScheduler();
+        checks = new EventScheduler();
+        for (int r = 0; r < runwayOfRoute.length; ++r) { // Première estimation : la longueur de la piste à la vitesse de la route
+            if (runwayOfRoute[r] == NO_RUNWAY)
+                continue;
+            RunwayRoute route = (RunwayRoute) world.getRoute(r);
+            int kind = route == world.getRunwayTO() ? DEPARTURE : ARRIVAL;
+            occupancy[runwayOfRoute[r] * 2 + kind] = route.getLenght() / Fleet.groundSpeed(route.getSpeed());
+        }
+        for (int q = 0; q < occupancy.length; ++q) {
+            if (occupancy[q] == 0)
+                occupancy[q] = occupancy[q ^ 1]; // Piste utilisée dans un seul sens par les routes
+        }
+
+        requestHandle = new int[16];
+        requestVersion = new int[16];
+        requestKind = new int[16];
+        requestRunway = new int[16];
+        requestReady = new boolean[16];
+        requestCheck = new int[16];
+        requestCheckTick = new long[16];
+        Arrays.fill(requestKind, NONE);
+    }
+
+    /**
+     * Retourne la piste dont l'axe passe le plus près d'un point
+     */
+    private int nearestRunway(float x, float y) {
+        int best = NO_RUNWAY;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = 0; i < runwayCount; ++i) {
+            Runway runway = world.getAirport().getRunways().get(i);
+            double angle = Math.toRadians(runway.getHeading() - 90);
+            double dx = Math.cos(angle), dy = Math.sin(angle);
+            double px = x - runway.getBase().x, py = y - runway.getBase().y;
+            double along = Math.max(-runway.getLenght() / 2, Math.min(runway.getLenght() / 2, px * dx + py * dy));
+            double distance = Math.hypot(px - along * dx, py - along * dy);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Getter pour le nombre de pistes
+     * @return
+     */
+    public int getRunwayCount() {
+        return runwayCount;
+    }
+
+    /**
+     * Getter pour la piste d'une route
+     * @param routeId
+     * @return l'index de la piste, NO_RUNWAY si la route n'est pas une route de piste
+     */
+    public int getRunwayOf(int routeId) {
+        return runwayOfRoute[routeId];
+    }
+
+    /**
+     * Setter pour le temps de séparation après un mouvement
+     * @param kind - ARRIVAL ou DEPARTURE, le type du mouvement qui libère la piste
+     * @param seconds - En secondes de jeu
+     */
+    public void setSeparation(int kind, double seconds) {
+        separation[kind] = seconds;
+    }
+
+    /**
+     * Demande une piste pour un avion : l'avion passe dans l'état du mouvement et attend son tour,
+     * dans le circuit d'attente pour une arrivée, au point d'arrêt pour un départ
+     * Une nouvelle demande remplace la demande en cours de l'avion
+     * @param slot
+     * @param kind - ARRIVAL ou DEPARTURE
+     * @param now - Le tick en cours
+     * @return la piste demandée, NO_RUNWAY si le plan de vol de l'avion ne passe par aucune piste
+     */
+    public int request(int slot, int kind, long now) {
+        int handle = fleet.getHandle(slot);
+        cancel(handle);
+        fleet.setStateId(slot, kind == ARRIVAL ? PlaneState.ARRIVING : PlaneState.DEPARTING);
+        int runway = plannedRunway(slot);
+        if (runway == NO_RUNWAY)
+            return NO_RUNWAY;
+        if (occupant[runway] == handle)
+            return runway; // L'avion a déjà la piste
+
+        fleet.setBehavior(slot, kind == ARRIVAL ? 1 : 2); // En attente ou arrêt avant la piste
+        int index = Fleet.indexOf(handle);
+        ensureRequests(index + 1);
+        requestHandle[index] = handle;
+        requestVersion[index] = ++nextVersion;
+        requestKind[index] = kind;
+        requestRunway[index] = runway;
+        requestReady[index] = false;
+        ++queued[runway * 2 + kind];
+        examine(index, slot, now);
+        return runway;
+    }
+
+    /**
+     * Réexamine les demandes des avions que le navigateur vient de traiter, à appeler après la navigation
+     * Leur route, leur cap ou leur comportement ont pu changer, le tick où ils seront prêts aussi
+     * @param slots - Les positions dans la flotte des avions traités
+     * @param now - Le tick en cours
+     */
+    void updateReadiness(IntList slots, long now) {
+        for (int k = 0; k < slots.size(); ++k) {
+            int slot = slots.get(k), handle = fleet.getHandle(slot), index = Fleet.indexOf(handle);
+            if (isWaiting(handle) && !requestReady[index])
+                examine(index, slot, now);
+        }
+    }
+
+    /**
+     * Met une demande dans la file de sa piste si son avion est prêt, sinon programme son réexamen au tick où il
+     * devrait l'être. Un avion arrêté n'est pas réexaminé, il le sera quand le navigateur le fera repartir
+     */
+    private void examine(int index, int slot, long now) {
+        int runway = requestRunway[index];
+        double margin = timeToRunway(slot, runway) - occupancy[runway * 2 + requestKind[index]];
+        if (margin <= 0)
+            markReady(index, requestHandle[index]);
+        else if (fleet.behavior[slot] != 3 && margin != Double.POSITIVE_INFINITY)
+            scheduleCheck(index, now + Math.max(1, (long) Math.ceil(ticks(margin))));
+    }
+
+    private void scheduleCheck(int index, long tick) {
+        requestCheckTick[index] = tick;
+        checks.schedule(tick, requestHandle[index], ++requestCheck[index]);
+    }
+
+    /**
+     * Met une demande dans la file de sa piste, à sa place dans l'ordre des demandes
+     */
+    private void markReady(int index, int handle) {
+        requestReady[index] = true;
+        queues[requestRunway[index] * 2 + requestKind[index]].schedule(requestVersion[index], handle, requestVersion[index]);
+    }
+
+    /**
+     * Annule la demande en cours d'un avion, s'il en a une
+     * @param handle
+     */
+    public void cancel(int handle) {
+        int index = Fleet.indexOf(handle);
+        if (index < requestKind.length && requestKind[index] != NONE && requestHandle[index] == handle) {
+            --queued[requestRunway[index] * 2 + requestKind[index]];
+            requestKind[index] = NONE; // L'entrée de la file est ignorée quand elle en sort
+        }
+    }
+
+    /**
+     * Vérifie si un avion attend une piste
+     * @param handle
+     * @return
+     */
+    public boolean isWaiting(int handle) {
+        int index = Fleet.indexOf(handle);
+        return index < requestKind.length && requestKind[index] != NONE && requestHandle[index] == handle;
+    }
+
+    /**
+     * Getter pour l'avion qui a une piste
+     * @param runway
+     * @return son handle, -1 si la piste est libre
+     */
+    public int getOccupant(int runway) {
+        return occupant[runway];
+    }
+
+    /**
+     * Getter pour le nombre d'avions qui attendent une piste
+     * @param runway
+     * @param kind
+     * @return
+     */
+    public int getQueueLength(int runway, int kind) {
+        return queued[runway * 2 + kind];
+    }
+
+    /**
+     * Getter pour le nombre de pistes données depuis le début de la partie
+     * @return
+     */
+    public long getGrantCount() {
+        return grantCount;
+    }
+
+    /**
+     * Estime le tick où une nouvelle demande obtiendrait la piste, sans parcourir les files
+     * Les arrivées passent avant les départs : un départ attend aussi toutes les arrivées en file
+     * @param runway
+     * @param kind
+     * @param now - Le tick en cours
+     * @return
+     */
+    public long getNextFreeSlot(int runway, int kind, long now) {
+        double tick = Math.max(now, freeTick[runway]);
+        if (occupant[runway] != NONE) {
+            int q = runway * 2 + occupantKind[runway];
+            tick = Math.max(tick, grantTick[runway] + ticks(occupancy[q])) + ticks(separation[occupantKind[runway]]);
+        }
+        tick += queued[runway * 2 + ARRIVAL] * ticks(occupancy[runway * 2 + ARRIVAL] + separation[ARRIVAL]);
+        if (kind == DEPARTURE)
+            tick += queued[runway * 2 + DEPARTURE] * ticks(occupancy[runway * 2 + DEPARTURE] + separation[DEPARTURE]);
+        return (long) Math.ceil(tick);
+    }
+
+    /**
+     * Suit les occupants des pistes et donne les pistes libérées, à appeler à chaque tick avant la navigation
+     * @param now - Le tick en cours
+     */
+    public void update(long now) {
+        while (checks.hasEventUntil(now)) {
+            int handle = checks.peekHandle(), version = checks.peekVersion();
+            checks.pop();
+            int index = Fleet.indexOf(handle), slot = fleet.slotOf(handle);
+            if (slot >= 0 && isWaiting(handle) && !requestReady[index] && requestCheck[index] == version)
+                examine(index, slot, now);
+        }
+        for (int runway = 0; runway < runwayCount; ++runway) {
+            if (occupant[runway] != NONE)
+                followOccupant(runway, now);
+            if (occupant[runway] == NONE && now >= freeTick[runway] && !grant(runway, ARRIVAL, now))
+                grant(runway, DEPARTURE, now);
+        }
+    }
+
+    /**
+     * Libère la piste quand son occupant l'a quittée, a été supprimé, ou ne l'a pas atteinte à temps
+     * Dans ce dernier cas l'avion attend à nouveau (avant la piste ou dans le circuit) et refait sa demande
+     */
+    private void followOccupant(int runway, long now) {
+        int slot = fleet.slotOf(occupant[runway]);
+        int kind = occupantKind[runway];
+        boolean onRunway = slot >= 0 && runwayOfRoute[fleet.routeId[slot]] == runway;
+        if (onRunway) {
+            occupantEntered[runway] = true;
+            return;
+        }
+        double elapsed = (now - grantTick[runway]) * fleet.getTimeStep();
+        if (slot >= 0 && !occupantEntered[runway] && elapsed < ENTRY_TIMEOUT * occupancy[runway * 2 + kind])
+            return; // L'avion n'est pas encore arrivé à la piste
+        boolean missed = slot >= 0 && !occupantEntered[runway];
+        release(runway, now);
+        if (missed)
+            request(slot, kind, now); // Sans autorisation, l'avion ne doit pas entrer sur la piste
+    }
+
+    /**
+     * Libère une piste, le temps passé par un occupant qui y est entré sert aux estimations
+     */
+    private void release(int runway, long now) {
+        int kind = occupantKind[runway];
+        if (occupantEntered[runway]) { // Mesure du temps réellement passé, pour les estimations
+            int q = runway * 2 + kind;
+            occupancy[q] += ESTIMATE_WEIGHT * ((now - grantTick[runway]) * fleet.getTimeStep() - occupancy[q]);
+        }
+        occupant[runway] = NONE;
+        freeTick[runway] = now + (long) Math.ceil(ticks(separation[kind]));
+    }
+
+    /**
+     * Ecrit l'état des pistes et des demandes en cours, pour démarrer un enregistrement (voir SessionRecorder)
+     * Les avions sont désignés par leur position dans la flotte et les ticks sont comptés à partir du tick en cours.
+     * Un occupant supprimé entre deux ticks rend la piste tout de suite, comme il l'aurait fait au tick suivant
+     * @param out
+     * @param now - Le tick en cours, pas encore joué
+     * @throws IOException
+     */
+    void writeState(DataOutputStream out, long now) throws IOException {
+        out.writeInt(nextVersion);
+        out.writeLong(grantCount);
+        out.writeDouble(separation[ARRIVAL]);
+        out.writeDouble(separation[DEPARTURE]);
+        for (double estimate : occupancy)
+            out.writeDouble(estimate);
+        for (int runway = 0; runway < runwayCount; ++runway) {
+            if (occupant[runway] != NONE && fleet.slotOf(occupant[runway]) < 0)
+                release(runway, now);
+            out.writeInt(occupant[runway] == NONE ? NONE : fleet.slotOf(occupant[runway]));
+            out.writeByte(occupantKind[runway]);
+            out.writeBoolean(occupantEntered[runway]);
+            out.writeLong(grantTick[runway] - now);
+            out.writeLong(freeTick[runway] - now);
+        }
+        int count = 0;
+        for (int slot = 0; slot < fleet.size(); ++slot) {
+            if (isWaiting(fleet.getHandle(slot)))
+                ++count;
+        }
+        out.writeInt(count);
+        for (int slot = 0; slot < fleet.size(); ++slot) {
+            int index = Fleet.indexOf(fleet.getHandle(slot));
+            if (!isWaiting(fleet.getHandle(slot)))
+                continue;
+            out.writeInt(slot);
+            out.writeInt(requestVersion[index]);
+            out.writeByte(requestKind[index]);
+            out.writeInt(requestRunway[index]);
+            out.writeBoolean(requestReady[index]);
+            boolean checked = !requestReady[index] && requestCheckTick[index] >= now; // Réexamen pas encore fait
+            out.writeLong(checked ? requestCheckTick[index] - now : NONE);
+        }
+    }
+
+    /**
+     * Reprend l'état écrit par writeState(), dans un monde qui vient d'être construit avec les mêmes avions
+     * @param in
+     * @param now - Le tick en cours, qui correspond à celui de l'écriture
+     * @throws IOException
+     */
+    void readState(DataInputStream in, long now) throws IOException {
+        nextVersion = in.readInt();
+        grantCount = in.readLong();
+        separation[ARRIVAL] = in.readDouble();
+        separation[DEPARTURE] = in.readDouble();
+        for (int q = 0; q < occupancy.length; ++q)
+            occupancy[q] = in.readDouble();
+        for (int runway = 0; runway < runwayCount; ++runway) {
+            int slot = in.readInt();
+            occupant[runway] = slot == NONE ? NONE : fleet.getHandle(slot);
+            occupantKind[runway] = in.readByte();
+            occupantEntered[runway] = in.readBoolean();
+            grantTick[runway] = now + in.readLong();
+            freeTick[runway] = now + in.readLong();
+        }
+        for (int count = in.readInt(); count > 0; --count) {
+            int handle = fleet.getHandle(in.readInt()), index = Fleet.indexOf(handle);
+            ensureRequests(index + 1);
+            requestHandle[index] = handle;
+            requestVersion[index] = in.readInt();
+            requestKind[index] = in.readByte();
+            requestRunway[index] = in.readInt();
+            requestReady[index] = false;
+            ++queued[requestRunway[index] * 2 + requestKind[index]];
+            if (in.readBoolean())
+                markReady(index, handle);
+            long check = in.readLong();
+            if (check != NONE)
+                scheduleCheck(index, now + check);
+        }
+    }
+
+    /**
+     * Donne la piste à la plus ancienne demande prête d'une file
+     * Les demandes dont l'avion a disparu sont retirées. Celles dont l'avion n'est plus prêt (son plan de vol a changé,
+     * il a dépassé l'entrée de la piste, ...) sortent de la file jusqu'à leur prochain réexamen
+     * @return vrai si la piste a été donnée
+     */
+    private boolean grant(int runway, int kind, long now) {
+        EventScheduler queue = queues[runway * 2 + kind];
+        while (queue.size() > 0) {
+            int handle = queue.peekHandle(), version = queue.peekVersion();
+            queue.pop();
+            int index = Fleet.indexOf(handle);
+            if (requestKind[index] == NONE || requestHandle[index] != handle || requestVersion[index] != version
+                    || !requestReady[index])
+                continue; // Demande annulée ou remplacée
+            int slot = fleet.slotOf(handle);
+            if (slot < 0) { // L'avion a été supprimé
+                requestKind[index] = NONE;
+                --queued[runway * 2 + kind];
+                continue;
+            }
+            if (timeToRunway(slot, runway) > occupancy[runway * 2 + kind]) {
+                requestReady[index] = false;
+                examine(index, slot, now);
+                continue;
+            }
+            requestKind[index] = NONE;
+            --queued[runway * 2 + kind];
+            occupant[runway] = handle;
+            occupantKind[runway] = kind;
+            occupantEntered[runway] = runwayOfRoute[fleet.routeId[slot]] == runway;
+            grantTick[runway] = now;
+            ++grantCount;
+            fleet.setBehavior(slot, 0); // L'avion continue jusqu'à la piste
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Estime le temps qu'il faut à un avion pour atteindre l'entrée d'une piste en suivant son plan de vol autorisé,
+     * d'un début de route au suivant, à la vitesse de chaque route
+     * @return en secondes de jeu, 0 si l'avion est sur la piste, Double.POSITIVE_INFINITY si son plan n'y passe pas
+     */
+    private double timeToRunway(int slot, int runway) {
+        int routeId = fleet.routeId[slot];
+        if (runwayOfRoute[routeId] == runway)
+            return 0;
+        FlightPlan plan = world.getFlightPlanner().planFor(routeId, fleet.stateId[slot], 0, fleet.parkingRouteId[slot]);
+        double x = fleet.x[slot], y = fleet.y[slot], time = 0;
+        for (int i = 1; i < plan.length(); ++i) {
+            double speed = Fleet.groundSpeed(world.getRoute(plan.getRouteId(i - 1)).getSpeed());
+            Route next = world.getRoute(plan.getRouteId(i));
+            if (speed <= 0)
+                break;
+            time += Math.hypot(next.getStartPoint().x - x, next.getStartPoint().y - y) / speed;
+            if (runwayOfRoute[plan.getRouteId(i)] == runway)
+                return time;
+            x = next.getStartPoint().x;
+            y = next.getStartPoint().y;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Retourne la première piste du plan de vol que l'avion suivra une fois autorisé
+     */
+    private int plannedRunway(int slot) {
+        FlightPlan plan = world.getFlightPlanner().planFor(fleet.routeId[slot], fleet.stateId[slot], 0, fleet.parkingRouteId[slot]);
+        for (int i = 0; i < plan.length(); ++i) {
+            if (runwayOfRoute[plan.getRouteId(i)] != NO_RUNWAY)
+                return runwayOfRoute[plan.getRouteId(i)];
+        }
+        return NO_RUNWAY;
+    }
+
+    private double ticks(double seconds) {
+        return seconds / fleet.getTimeStep();
+    }
+
+    private void ensureRequests(int count) {
+        if (count <= requestKind.length)
+            return;
+        int capacity = Math.max(count, requestKind.length * 2);
+        requestHandle = Arrays.copyOf(requestHandle, capacity);
+        requestVersion = Arrays.copyOf(requestVersion, capacity);
+        int old = requestKind.length;
+        requestKind = Arrays.copyOf(requestKind, capacity);
+        Arrays.fill(requestKind, old, capacity, NONE);
+        requestRunway = Arrays.copyOf(requestRunway, capacity);
+        requestReady = Arrays.copyOf(requestReady, capacity);
+        requestCheck = Arrays.copyOf(requestCheck, capacity);
+        requestCheckTick = Arrays.copyOf(requestCheckTick, capacity);
+    }
+}
@@ -0,0 +1,154 @@
+package ked.atc_simulator.Gameplay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Cette classe enregistre une partie pour pouvoir la rejouer à l'identique (voir SessionReplayer)
+ * Au démarrage, on mémorise le plan de l'aéroport (sa somme de contrôle), les avions du monde, les pistes et
+ * les demandes en cours (voir RunwayScheduler), la difficulté et une nouvelle graine pour le tirage des avions.
+ * Tous les avions sont réexaminés au premier tick enregistré, comme ceux du monde rejoué qui viennent d'être ajoutés.
+ * Ensuite, on ne garde que les commandes données aux avions, chacune avec son tick : la simulation elle-même
+ * est déterministe, il n'est donc pas nécessaire d'enregistrer les positions
+ *
+ * Format : en-tête, avions, pistes, puis une suite de commandes (écart en ticks avec la commande précédente, type,
+ * position de l'avion, argument) terminée par le nombre de ticks enregistrés suivi de END
+ */
+public class SessionRecorder {
+
+    static final int MAGIC = 0x41544352; // "ATCR"
+    static final int VERSION = 3;
+
+    // Types de commandes
+    public static final byte SET_BEHAVIOR = 0;
+    public static final byte SET_PARKING = 1;
+    public static final byte SET_STATE = 2;
+    public static final byte SET_ROUTE = 3;
+    public static final byte REQUEST_RUNWAY = 4;
+    static final byte END = 127;
+
+    private final World world;
+    private final ByteArrayOutputStream header, commands;
+    private final DataOutputStream commandsOut;
+    private long startTick, lastTick;
+
+    /**
+     * Constructeur de la classe SessionRecorder
+     * @param world - Le monde à enregistrer
+     */
+    public SessionRecorder(World world) {
+        this.world = world;
+        header = new ByteArrayOutputStream();
+        commands = new ByteArrayOutputStream();
+        commandsOut = new DataOutputStream(commands);
+    }
+
+    /**
+     * Démarre l'enregistrement, à appeler avec le verrou du monde, entre deux ticks
+     * Le tirage des avions du monde repart d'une nouvelle graine, enregistrée avec les avions
+     */
+    public void start() {
+        header.reset();
+        commands.reset();
+        startTick = world.getTickCount();
+        lastTick = startTick;
+        world.setSeed(new Random().nextLong());
+        try {
+            DataOutputStream out = new DataOutputStream(header);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(world.getLayout().getChecksum());
+            out.writeLong(world.getSeed());
+            out.writeInt(world.getDifficulty());
+            Fleet fleet = world.getFleet();
+            out.writeDouble(fleet.getTimeStep());
+            out.writeInt(fleet.size());
+            for (int i = 0; i < fleet.size(); ++i) {
+                out.writeUTF(fleet.name[i]);
+                out.writeFloat(fleet.x[i]);
+                out.writeFloat(fleet.y[i]);
+                out.writeFloat(fleet.heading[i]);
+                out.writeByte(fleet.behavior[i]);
+                out.writeInt(fleet.routeId[i]);
+                out.writeByte(fleet.stateId[i]);
+                out.writeInt(fleet.parkingRouteId[i]);
+                out.writeBoolean(fleet.markedForRemoval[i]);
+            }
+            world.getRunwayScheduler().writeState(out, startTick);
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // Impossible avec un ByteArrayOutputStream
+        }
+        world.getFleet().wakeAll();
+        world.setRecorder(this);
+    }
+
+    /**
+     * Arrête l'enregistrement, les commandes déjà enregistrées sont gardées
+     */
+    public void stop() {
+        world.setRecorder(null);
+    }
+
+    /**
+     * Enregistre une commande donnée à un avion, appelée par le monde
+     * @param type
+     * @param slot - La position de l'avion dans la flotte, elle est la même pendant la relecture
+     * @param arg
+     */
+    void record(byte type, int slot, int arg) {
+        long tick = world.getTickCount();
+        try {
+            writeVarLong(commandsOut, tick - lastTick);
+            commandsOut.writeByte(type);
+            writeVarLong(commandsOut, slot);
+            writeVarLong(commandsOut, arg + 1); // Les arguments valent au moins -1 (Fleet.NO_PARKING)
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        lastTick = tick;
+    }
+
+    /**
+     * Ecrit l'enregistrement, jusqu'au tick en cours, dans un flux
+     * Peut être appelé plusieurs fois, l'enregistrement continue
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        header.writeTo(out);
+        commands.writeTo(out);
+        DataOutputStream end = new DataOutputStream(out);
+        writeVarLong(end, world.getTickCount() - startTick);
+        end.writeByte(END);
+        end.flush();
+    }
+
+    /**
+     * Retourne l'enregistrement jusqu'au tick en cours
+     * @return
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writeTo(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Ecrit un entier positif sur 7 bits par octet, les petites valeurs (la plupart des écarts) tiennent sur un octet
+     */
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
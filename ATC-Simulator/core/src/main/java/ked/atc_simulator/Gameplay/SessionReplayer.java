@@ -0,0 +1,168 @@
+package ked.atc_simulator.Gameplay;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import ked.atc_simulator.Entities.Plane;
+
+/**
+ * Cette classe rejoue une partie enregistrée par SessionRecorder, sans affichage et aussi vite que possible
+ * Le monde est reconstruit à partir des avions enregistrés, puis les commandes sont redonnées aux mêmes ticks
+ */
+public class SessionReplayer {
+
+    private final World world;
+    private final long endTick; // Nombre de ticks enregistrés
+    private long[] commandTick;
+    private byte[] commandType;
+    private int[] commandSlot, commandArg;
+    private int commandCount, next;
+
+    /**
+     * Constructeur de la classe SessionReplayer, pour une partie jouée sur le plan par défaut
+     * @param in
+     * @throws IOException si le flux n'est pas un enregistrement valide ou vient d'un autre plan
+     */
+    public SessionReplayer(InputStream in) throws IOException {
+        this(in, AirportLayout.getDefault());
+    }
+
+    /**
+     * Constructeur de la classe SessionReplayer
+     * Lit tout l'enregistrement et reconstruit le monde dans l'état du début de l'enregistrement, pistes comprises
+     * La difficulté enregistrée est celle du monde rejoué, les options du joueur ne changent pas
+     * @param in
+     * @param layout - Le plan de la partie enregistrée
+     * @throws IOException si le flux n'est pas un enregistrement valide ou vient d'un autre plan
+     */
+    public SessionReplayer(InputStream in, AirportLayout layout) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != SessionRecorder.MAGIC || data.readByte() != SessionRecorder.VERSION)
+            throw new IOException("Not a session recording");
+        if (data.readLong() != layout.getChecksum())
+            throw new IOException("Session recorded on another airport layout");
+        long seed = data.readLong();
+        int difficulty = data.readInt();
+
+        world = new World(layout);
+        world.setDifficulty(difficulty);
+        world.setTimeStep(data.readDouble());
+        int planeCount = data.readInt();
+        for (int i = 0; i < planeCount; ++i) {
+            String name = data.readUTF();
+            float x = data.readFloat(), y = data.readFloat(), heading = data.readFloat();
+            int behavior = data.readByte();
+            Route route = world.getRoute(data.readInt());
+            int stateId = data.readByte(), parkingRouteId = data.readInt();
+            boolean marked = data.readBoolean();
+            Plane plane = world.addPlane(name, x, y, heading, behavior, route, world.getPlaneState(stateId));
+            if (parkingRouteId != route.getId() && parkingRouteId != Fleet.NO_PARKING)
+                plane.setParkingRoute(world.getParkingRoute(parkingRouteId));
+            world.getFleet().markedForRemoval[i] = marked;
+        }
+        world.getRunwayScheduler().readState(data, world.getTickCount());
+        world.createMockupPlanes();
+        world.setSeed(seed);
+
+        commandTick = new long[16];
+        commandType = new byte[16];
+        commandSlot = new int[16];
+        commandArg = new int[16];
+        long tick = 0;
+        while (true) {
+            long delta = readVarLong(data);
+            byte type = data.readByte();
+            if (type == SessionRecorder.END) {
+                endTick = delta;
+                break;
+            }
+            tick += delta;
+            if (commandCount == commandTick.length) {
+                int capacity = commandCount * 2;
+                commandTick = Arrays.copyOf(commandTick, capacity);
+                commandType = Arrays.copyOf(commandType, capacity);
+                commandSlot = Arrays.copyOf(commandSlot, capacity);
+                commandArg = Arrays.copyOf(commandArg, capacity);
+            }
+            commandTick[commandCount] = tick;
+            commandType[commandCount] = type;
+            commandSlot[commandCount] = (int) readVarLong(data);
+            commandArg[commandCount] = (int) readVarLong(data) - 1;
+            ++commandCount;
+        }
+    }
+
+    /**
+     * Getter pour le monde rejoué
+     * @return
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Getter pour le nombre de ticks enregistrés
+     * @return
+     */
+    public long getEndTick() {
+        return endTick;
+    }
+
+    /**
+     * Rejoue un tick : les commandes données avant ce tick, puis le tick lui-même
+     * @return faux si l'enregistrement est fini
+     */
+    public boolean step() {
+        long tick = world.getTickCount();
+        if (tick >= endTick)
+            return false;
+        while (next < commandCount && commandTick[next] == tick) {
+            apply(next);
+            ++next;
+        }
+        world.tick();
+        return true;
+    }
+
+    /**
+     * Rejoue tout l'enregistrement
+     */
+    public void run() {
+        while (step()) {
+        }
+    }
+
+    private void apply(int c) {
+        Plane plane = world.getFleet().getPlane(commandSlot[c]);
+        int arg = commandArg[c];
+        switch (commandType[c]) {
+            case SessionRecorder.SET_BEHAVIOR:
+                plane.setBehavior(arg);
+                break;
+            case SessionRecorder.SET_PARKING:
+                plane.setParkingRoute(world.getParkingRoute(arg));
+                break;
+            case SessionRecorder.SET_STATE:
+                plane.setPlaneState(world.getPlaneState(arg));
+                break;
+            case SessionRecorder.SET_ROUTE:
+                plane.setRoute(world.getRoute(arg));
+                break;
+            case SessionRecorder.REQUEST_RUNWAY:
+                plane.requestRunway(arg);
+                break;
+        }
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+    }
+}
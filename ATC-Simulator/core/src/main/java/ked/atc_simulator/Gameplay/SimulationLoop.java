@@ -0,0 +1,199 @@
+package ked.atc_simulator.Gameplay;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Boucle de simulation à pas de temps fixe
+ * Elle tourne dans son propre thread et fait avancer le monde tick par tick, indépendamment de l'affichage :
+ * une image lente ou sautée ne change plus le temps simulé.
+ * L'affichage se contente de lire le dernier état et d'interpoler entre les deux derniers ticks
+ */
+public class SimulationLoop implements Runnable {
+
+    public static final long TICK_DURATION = 1000000000L; // Durée d'une seconde de jeu en nanosecondes à la vitesse x1
+    public static final int TICKS_PER_MINUTE = 60; // Avec la durée de tick par défaut, un tick correspond à une seconde de jeu
+    private static final long TICK_BUDGET = 8000000L; // Temps max passé à calculer des ticks avant de rendre la main, en nanosecondes
+    private static final int TICKS_PER_LOCK = 16; // Nombre max de ticks calculés sans relâcher le verrou du monde
+    private static final long MAX_SLEEP = 10000000L; // On ne dort pas plus de 10ms pour prendre en compte rapidement un changement de vitesse
+
+    private final World world;
+    private Thread thread;
+    private volatile boolean running;
+    private volatile int rate;
+    private volatile long lastTickTime;
+    private volatile long tickDuration; // Durée d'un tick en nanosecondes à la vitesse x1, voir setTimeStep()
+    private final AtomicLong skipTicks; // Ticks à calculer le plus vite possible, sans attendre l'horloge
+
+    /**
+     * Constructeur de la classe SimulationLoop
+     * @param world - Le monde à faire avancer, il sert aussi de verrou sur son propre état
+     */
+    public SimulationLoop(World world) {
+        this.world = world;
+        rate = 1;
+        lastTickTime = System.nanoTime();
+        tickDuration = (long) (TICK_DURATION * world.getFleet().getTimeStep());
+        skipTicks = new AtomicLong();
+    }
+
+    /**
+     * Démarre le thread de simulation
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        thread = new Thread(this, "SimulationLoop");
+        thread.start();
+    }
+
+    /**
+     * Arrête le thread de simulation et attend qu'il ait fini son tick en cours
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+    }
+
+    /**
+     * Setter pour le taux d'avance rapide (nombre de ticks par seconde)
+     * @param rate
+     */
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    /**
+     * Setter pour la durée d'un tick en secondes de jeu
+     * Avec des ticks plus longs, il faut moins de ticks pour la même avance rapide : les avions ne ratent pas leurs
+     * virages (voir Navigator), mais la détection des collisions entre deux ticks est moins fine
+     * @param seconds
+     */
+    public void setTimeStep(double seconds) {
+        synchronized (world) {
+            world.getFleet().setTimeStep(seconds);
+        }
+        tickDuration = (long) (TICK_DURATION * seconds);
+    }
+
+    /**
+     * Getter pour la durée d'un tick en secondes de jeu
+     * @return
+     */
+    public double getTimeStep() {
+        return (double) tickDuration / TICK_DURATION;
+    }
+
+    /**
+     * Getter pour le taux d'avance rapide
+     * @return
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * Avance le jeu d'un nombre de ticks sans attendre l'horloge, par exemple pour sauter une longue approche
+     * Les ticks sont calculés par le thread de simulation par tranches, l'affichage continue pendant ce temps
+     * Le saut s'arrête si la partie est perdue
+     * @param ticks
+     */
+    public void skipAhead(long ticks) {
+        if (ticks > 0)
+            skipTicks.addAndGet(ticks);
+    }
+
+    /**
+     * Getter pour le nombre de ticks du saut en cours qui restent à calculer, 0 s'il n'y a pas de saut
+     * @return
+     */
+    public long getSkipRemaining() {
+        return skipTicks.get();
+    }
+
+    /**
+     * Retourne la fraction de tick écoulée depuis le dernier tick, entre 0 et 1
+     * Elle permet à l'affichage d'interpoler la position des avions entre deux ticks
+     * @return
+     */
+    public float getInterpolation() {
+        float alpha = (float) ((System.nanoTime() - lastTickTime) * rate) / tickDuration;
+        if (alpha < 0)
+            return 0;
+        return alpha > 1 ? 1 : alpha;
+    }
+
+    @Override
+    public void run() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        lastTickTime = previous;
+        while (running) {
+            long now = System.nanoTime();
+            int currentRate = rate;
+            long duration = tickDuration;
+            accumulator += (now - previous) * currentRate;
+            previous = now;
+
+            // On calcule autant de ticks que le temps écoulé en demande, dans la limite du budget :
+            // aux vitesses élevées il y a de nombreux ticks par image, l'affichage ne suit que le dernier état
+            long deadline = now + TICK_BUDGET;
+            long due = accumulator / duration;
+            int ticks = runTicks(due, deadline, false);
+            accumulator -= ticks * duration;
+            if (ticks < due) // Trop de retard, on abandonne le temps restant plutôt que de geler le jeu
+                accumulator %= duration;
+            if (ticks > 0)
+                lastTickTime = now - accumulator / currentRate; // Moment théorique du dernier tick
+
+            long skip = skipTicks.get();
+            if (skip > 0) { // Saut en avant : on calcule le plus de ticks possible et on reprend au tour suivant
+                int skipped = runTicks(skip, deadline + TICK_BUDGET, true);
+                if (world.isGameOver())
+                    skipTicks.set(0);
+                else skipTicks.addAndGet(-skipped);
+                lastTickTime = System.nanoTime();
+                continue;
+            }
+
+            long sleep = Math.min((duration - accumulator) / currentRate, MAX_SLEEP);
+            try {
+                Thread.sleep(sleep / 1000000L, (int) (sleep % 1000000L));
+            } catch (InterruptedException e) {
+                // stop() a été appelé, la condition de la boucle s'en occupe
+            }
+        }
+    }
+
+    /**
+     * Calcule au plus count ticks, en s'arrêtant quand la date limite est dépassée
+     * Le verrou du monde est relâché tous les TICKS_PER_LOCK ticks pour laisser l'affichage et les commandes passer
+     * @param count
+     * @param deadline       - Date limite en nanosecondes (System.nanoTime())
+     * @param stopOnGameOver - Vrai pour s'arrêter dès que la partie est perdue
+     * @return le nombre de ticks calculés
+     */
+    private int runTicks(long count, long deadline, boolean stopOnGameOver) {
+        int ticks = 0;
+        while (ticks < count && running) {
+            synchronized (world) {
+                for (int i = 0; i < TICKS_PER_LOCK && ticks < count; ++i, ++ticks) {
+                    if (stopOnGameOver && world.isGameOver())
+                        return ticks;
+                    world.tick();
+                }
+            }
+            if (System.nanoTime() >= deadline)
+                break;
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,269 @@
+package ked.atc_simulator.Gameplay;
+
+import ked.atc_simulator.Utils.IntList;
+
+/**
+ * Grille uniforme sur l'espace de jeu (1920x1080) qui range les avions par case
+ * Chaque case est une liste chaînée de positions d'avions dans la flotte, stockée dans des tableaux d'entiers :
+ * ajouter, retirer ou déplacer un avion ne fait aucune allocation
+ * Les coordonnées en dehors de l'espace de jeu sont ramenées dans les cases du bord
+ */
+public class SpatialHash {
+
+    public static final float CELL_SIZE = 40; // Taille d'une case en coordonnées, au moins deux fois la distance de séparation
+
+    private static final int NONE = -1;
+
+    /**
+     * Prévenu quand une case passe de vide à occupée ou l'inverse, par exemple pour tenir à jour les points d'entrée libres
+     */
+    public interface CellListener {
+
+        /**
+         * Un premier avion est entré dans une case vide
+         * @param cell
+         */
+        void onCellOccupied(int cell);
+
+        /**
+         * Le dernier avion d'une case en est sorti
+         * @param cell
+         */
+        void onCellEmptied(int cell);
+    }
+
+    private final int columns, rows;
+    private final int[] head; // Premier avion de chaque case
+    private int[] next, previous, cellOf; // Chaînage et case de chaque avion, indexés par sa position dans la flotte
+    private final int[] count; // Nombre d'avions dans chaque case
+    private CellListener listener;
+
+    /**
+     * Constructeur de la classe SpatialHash
+     * @param capacity - Le nombre d'avions prévu, les tableaux grandissent au besoin
+     */
+    public SpatialHash(int capacity) {
+        columns = (int) Math.ceil(World.WIDTH / CELL_SIZE) + 1;
+        rows = (int) Math.ceil(World.HEIGHT / CELL_SIZE) + 1;
+        head = new int[columns * rows];
+        count = new int[columns * rows];
+        for (int i = 0; i < head.length; ++i)
+            head[i] = NONE;
+        next = new int[capacity];
+        previous = new int[capacity];
+        cellOf = new int[capacity];
+    }
+
+    /**
+     * Ajoute un avion dans la case correspondant à sa position
+     * @param slot - La position de l'avion dans la flotte
+     * @param x
+     * @param y
+     */
+    public void insert(int slot, float x, float y) {
+        if (slot >= cellOf.length)
+            grow(Math.max(slot + 1, cellOf.length * 2));
+        link(slot, cellOf(x, y));
+        enter(cellOf[slot]);
+    }
+
+    /**
+     * Retire un avion de sa case
+     * @param slot
+     */
+    public void remove(int slot) {
+        int cell = cellOf[slot];
+        unlink(slot);
+        leave(cell);
+    }
+
+    /**
+     * Change la case d'un avion si sa nouvelle position est dans une autre case
+     * @param slot
+     * @param x
+     * @param y
+     */
+    public void update(int slot, float x, float y) {
+        int cell = cellOf(x, y);
+        int previousCell = cellOf[slot];
+        if (cell != previousCell) {
+            unlink(slot);
+            link(slot, cell);
+            enter(cell);
+            leave(previousCell);
+        }
+    }
+
+    /**
+     * Renumérote un avion déplacé dans la flotte (voir Fleet.remove) sans changer sa case
+     * @param from - L'ancienne position
+     * @param to   - La nouvelle position, qui doit avoir été retirée avant
+     */
+    public void relabel(int from, int to) {
+        int cell = cellOf[from];
+        unlink(from);
+        link(to, cell);
+    }
+
+    /**
+     * Ajoute à la liste les avions des cases qui recouvrent le carré de centre (x, y) et de demi-côté radius
+     * C'est une présélection : les avions trouvés peuvent être un peu plus loin que radius
+     * @param x
+     * @param y
+     * @param radius
+     * @param out - La liste où ajouter les positions des avions, elle n'est pas vidée
+     */
+    public void query(float x, float y, float radius, IntList out) {
+        queryRect(x - radius, y - radius, x + radius, y + radius, out);
+    }
+
+    /**
+     * Ajoute à la liste les avions des cases qui recouvrent un rectangle, par exemple la partie visible du jeu
+     * C'est une présélection : les avions trouvés peuvent être un peu en dehors du rectangle
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @param out - La liste où ajouter les positions des avions, elle n'est pas vidée
+     */
+    public void queryRect(float minX, float minY, float maxX, float maxY, IntList out) {
+        int minColumn = column(minX), maxColumn = column(maxX);
+        int minRow = row(minY), maxRow = row(maxY);
+        for (int r = minRow; r <= maxRow; ++r) {
+            for (int c = minColumn; c <= maxColumn; ++c) {
+                for (int slot = head[r * columns + c]; slot != NONE; slot = next[slot])
+                    out.add(slot);
+            }
+        }
+    }
+
+    /**
+     * Ajoute à la liste les cases qui recouvrent un rectangle
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @param out - La liste où ajouter les cases, elle n'est pas vidée
+     */
+    public void cellsCovering(float minX, float minY, float maxX, float maxY, IntList out) {
+        int minColumn = column(minX), maxColumn = column(maxX);
+        int minRow = row(minY), maxRow = row(maxY);
+        for (int r = minRow; r <= maxRow; ++r) {
+            for (int c = minColumn; c <= maxColumn; ++c)
+                out.add(r * columns + c);
+        }
+    }
+
+    /**
+     * Getter pour le nombre d'avions dans une case
+     * @param cell
+     * @return
+     */
+    public int getCount(int cell) {
+        return count[cell];
+    }
+
+    /**
+     * Setter pour l'objet prévenu des cases qui deviennent occupées ou vides, null pour aucun
+     * Un avion renuméroté (voir relabel()) ne change pas de case et ne déclenche rien
+     * @param listener
+     */
+    public void setListener(CellListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Getter pour le nombre de cases de la grille
+     * @return
+     */
+    public int getCellCount() {
+        return head.length;
+    }
+
+    /**
+     * Getter pour le premier avion d'une case, -1 si elle est vide
+     * @param cell
+     * @return
+     */
+    public int first(int cell) {
+        return head[cell];
+    }
+
+    /**
+     * Getter pour l'avion suivant dans la même case, -1 s'il n'y en a pas
+     * @param slot
+     * @return
+     */
+    public int next(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * Getter pour la case d'un avion
+     * @param slot
+     * @return
+     */
+    public int getCell(int slot) {
+        return cellOf[slot];
+    }
+
+    /**
+     * Retourne la case qui contient un point
+     * @param x
+     * @param y
+     * @return
+     */
+    public int cellOf(float x, float y) {
+        return row(y) * columns + column(x);
+    }
+
+    private int column(float x) {
+        int c = (int) (x / CELL_SIZE);
+        return x < 0 ? 0 : (c >= columns ? columns - 1 : c);
+    }
+
+    private int row(float y) {
+        int r = (int) (y / CELL_SIZE);
+        return y < 0 ? 0 : (r >= rows ? rows - 1 : r);
+    }
+
+    private void enter(int cell) {
+        if (++count[cell] == 1 && listener != null)
+            listener.onCellOccupied(cell);
+    }
+
+    private void leave(int cell) {
+        if (--count[cell] == 0 && listener != null)
+            listener.onCellEmptied(cell);
+    }
+
+    private void link(int slot, int cell) {
+        int first = head[cell];
+        next[slot] = first;
+        previous[slot] = NONE;
+        if (first != NONE)
+            previous[first] = slot;
+        head[cell] = slot;
+        cellOf[slot] = cell;
+    }
+
+    private void unlink(int slot) {
+        int p = previous[slot], n = next[slot];
+        if (p != NONE)
+            next[p] = n;
+        else head[cellOf[slot]] = n;
+        if (n != NONE)
+            previous[n] = p;
+        cellOf[slot] = NONE;
+    }
+
+    private void grow(int capacity) {
+        int[] newNext = new int[capacity], newPrevious = new int[capacity], newCellOf = new int[capacity];
+        System.arraycopy(next, 0, newNext, 0, next.length);
+        System.arraycopy(previous, 0, newPrevious, 0, previous.length);
+        System.arraycopy(cellOf, 0, newCellOf, 0, cellOf.length);
+        next = newNext;
+        previous = newPrevious;
+        cellOf = newCellOf;
+    }
+}
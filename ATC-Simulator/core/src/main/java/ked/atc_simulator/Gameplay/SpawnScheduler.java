@@ -0,0 +1,297 @@
+package ked.atc_simulator.Gameplay;
+
+import java.util.Random;
+
+import ked.atc_simulator.State.PlaneState;
+import ked.atc_simulator.Utils.IntList;
+import ked.atc_simulator.Utils.NameRegistry;
+
+/**
+ * Cette classe fait apparaitre les nouveaux avions
+ * Les arrivées et les départs suivent chacun un processus de Poisson dont le taux (avions par minute de jeu) dépend
+ * de la difficulté, dans la limite d'un nombre max d'avions en jeu. Quand un avion est dû, on tire un point d'entrée
+ * libre et un indicatif libre parmi des listes tenues à jour, sans jamais recommencer un tirage.
+ * Un avion dû qui ne peut pas apparaitre (trop d'avions, aucun point d'entrée libre) attend le tick suivant
+ *
+ * Un point d'entrée est occupé quand une des cases de la grille des avions (voir SpatialHash) qui recouvrent
+ * son carré de séparation contient un avion. La grille prévient quand une case devient occupée ou vide,
+ * la liste des points d'entrée libres est donc mise à jour au fil des déplacements et pas à chaque apparition
+ *
+ * Les points d'entrée sont les modèles d'avions du monde (voir World.createMockupPlanes()), les indicatifs sont
+ * leurs noms, sans doublon. Tous les tirages utilisent le hasard du monde, la partie reste donc reproductible
+ */
+public class SpawnScheduler {
+
+    public static final int DIFFICULTY_COUNT = 3; // 0 facile, 1 normal, 2 difficile
+    private static final int KINDS = PlaneState.COUNT; // Les arrivées et les départs ont chacun leur tirage
+
+    private final World world;
+    private final Fleet templates;
+
+    // Taux par difficulté et par type (avions par minute de jeu) et nombre max d'avions par difficulté
+    private final float[][] rates;
+    private final int[] maxPlanes;
+
+    private final IntList[] entries; // Modèles par type
+
+    // Points d'entrée libres par type : tableaux sans trou, freeEntryPosition donne la place de chaque modèle, -1 s'il est occupé
+    private final int[][] freeEntries;
+    private final int[] freeEntryCount;
+    private int[] freeEntryPosition;
+    private int[] busyCells; // Par modèle : nombre de cases occupées autour de son point d'entrée
+    private IntList[] entriesByCell; // Modèles dont le point d'entrée est proche de chaque case, null si aucun
+    private final SpatialHash.CellListener cellListener;
+    private final long[] nextSpawn; // Tick où le prochain avion de chaque type est dû
+
+    // Indicatifs libres : tableau sans trou, freePosition donne la place de chaque indicatif, -1 s'il est en jeu
+    private NameRegistry callsigns;
+    private int[] freeCallsigns, freePosition;
+    private int freeCount;
+
+    /**
+     * Constructeur de la classe SpawnScheduler
+     * @param world
+     * @param templates - Les modèles d'avions
+     */
+    public SpawnScheduler(World world, Fleet templates) {
+        this.world = world;
+        this.templates = templates;
+        rates = new float[DIFFICULTY_COUNT][KINDS];
+        maxPlanes = new int[DIFFICULTY_COUNT];
+        entries = new IntList[KINDS];
+        for (int k = 0; k < KINDS; ++k)
+            entries[k] = new IntList(16);
+        freeEntries = new int[KINDS][0];
+        freeEntryCount = new int[KINDS];
+        freeEntryPosition = new int[0];
+        busyCells = new int[0];
+        entriesByCell = new IntList[0];
+        cellListener = new SpatialHash.CellListener() {
+            @Override
+            public void onCellOccupied(int cell) {
+                IntList near = entriesByCell[cell];
+                for (int k = 0; near != null && k < near.size(); ++k) {
+                    int t = near.get(k);
+                    if (busyCells[t]++ == 0)
+                        removeFreeEntry(t);
+                }
+            }
+
+            @Override
+            public void onCellEmptied(int cell) {
+                IntList near = entriesByCell[cell];
+                for (int k = 0; near != null && k < near.size(); ++k) {
+                    int t = near.get(k);
+                    if (--busyCells[t] == 0)
+                        addFreeEntry(t);
+                }
+            }
+        };
+        nextSpawn = new long[KINDS];
+        callsigns = new NameRegistry(0);
+        freeCallsigns = new int[0];
+        freePosition = new int[0];
+        for (int d = 0; d < DIFFICULTY_COUNT; ++d) // Valeurs par défaut, le nombre d'avions est celui des versions précédentes
+            storeRates(d, 0.5f * (d + 1), 0.5f * (d + 1), (d + 1) * 2);
+        // Pas de tirage ici : le monde n'a pas encore son hasard ni sa difficulté, c'est reset() qui tire
+    }
+
+    /**
+     * Règle les taux d'apparition pour une difficulté, les prochaines apparitions sont tirées à nouveau
+     * @param difficulty
+     * @param arrivalsPerMinute   - Nombre moyen d'arrivées par minute de jeu, 0 pour aucune
+     * @param departuresPerMinute - Nombre moyen de départs par minute de jeu, 0 pour aucun
+     * @param maxPlanes           - Nombre max d'avions en jeu
+     */
+    public void setRates(int difficulty, float arrivalsPerMinute, float departuresPerMinute, int maxPlanes) {
+        storeRates(difficulty, arrivalsPerMinute, departuresPerMinute, maxPlanes);
+        drawNextSpawns();
+    }
+
+    private void storeRates(int difficulty, float arrivalsPerMinute, float departuresPerMinute, int maxPlanes) {
+        rates[difficulty][PlaneState.ARRIVING] = arrivalsPerMinute;
+        rates[difficulty][PlaneState.DEPARTING] = departuresPerMinute;
+        this.maxPlanes[difficulty] = maxPlanes;
+    }
+
+    /**
+     * Limite le nombre max d'avions en jeu pour toutes les difficultés, sans changer les taux
+     * @param limit
+     */
+    public void limitPlanes(int limit) {
+        for (int d = 0; d < DIFFICULTY_COUNT; ++d)
+            maxPlanes[d] = Math.min(maxPlanes[d], limit);
+    }
+
+    /**
+     * Getter pour le nombre max d'avions en jeu à la difficulté actuelle
+     * @return
+     */
+    public int getMaxPlanes() {
+        return maxPlanes[difficulty()];
+    }
+
+    /**
+     * Reconstruit les points d'entrée et les indicatifs à partir des modèles et des avions en jeu,
+     * puis tire les prochaines apparitions à partir du tick en cours
+     * Le résultat ne dépend que de l'état du monde et de son hasard, dans un ordre fixe
+     */
+    public void reset() {
+        for (int k = 0; k < KINDS; ++k)
+            entries[k].clear();
+        callsigns = new NameRegistry(templates.size());
+        for (int t = 0; t < templates.size(); ++t) {
+            entries[templates.stateId[t]].add(t);
+            callsigns.intern(templates.name[t]);
+        }
+        int count = callsigns.size();
+        freeCallsigns = new int[count];
+        freePosition = new int[count];
+        freeCount = 0;
+        Fleet fleet = world.getFleet();
+        for (int c = 0; c < count; ++c) {
+            if (fleet.slotOfName(callsigns.nameOf(c)) >= 0) {
+                freePosition[c] = -1;
+            } else {
+                freePosition[c] = freeCount;
+                freeCallsigns[freeCount++] = c;
+            }
+        }
+        resetEntries();
+        drawNextSpawns();
+    }
+
+    /**
+     * Reconstruit les cases proches de chaque point d'entrée et les points d'entrée libres, puis suit la grille des avions
+     */
+    private void resetEntries() {
+        SpatialHash hash = world.getFleet().getSpatialHash();
+        entriesByCell = new IntList[hash.getCellCount()];
+        busyCells = new int[templates.size()];
+        freeEntryPosition = new int[templates.size()];
+        for (int k = 0; k < KINDS; ++k) {
+            freeEntries[k] = new int[entries[k].size()];
+            freeEntryCount[k] = 0;
+        }
+        IntList cells = new IntList(4);
+        for (int t = 0; t < templates.size(); ++t) {
+            cells.clear();
+            hash.cellsCovering(templates.x[t] - World.SEPARATION, templates.y[t] - World.SEPARATION,
+                    templates.x[t] + World.SEPARATION, templates.y[t] + World.SEPARATION, cells);
+            for (int c = 0; c < cells.size(); ++c) {
+                int cell = cells.get(c);
+                if (entriesByCell[cell] == null)
+                    entriesByCell[cell] = new IntList(2);
+                entriesByCell[cell].add(t);
+                if (hash.getCount(cell) > 0)
+                    ++busyCells[t];
+            }
+            freeEntryPosition[t] = -1;
+            if (busyCells[t] == 0)
+                addFreeEntry(t);
+        }
+        hash.setListener(cellListener);
+    }
+
+    private void addFreeEntry(int template) {
+        int kind = templates.stateId[template];
+        freeEntryPosition[template] = freeEntryCount[kind];
+        freeEntries[kind][freeEntryCount[kind]++] = template;
+    }
+
+    private void removeFreeEntry(int template) {
+        int kind = templates.stateId[template];
+        int position = freeEntryPosition[template], last = freeEntries[kind][--freeEntryCount[kind]];
+        freeEntries[kind][position] = last;
+        freeEntryPosition[last] = position;
+        freeEntryPosition[template] = -1;
+    }
+
+    /**
+     * Getter pour le nombre de points d'entrée libres d'un type
+     * @param kind - PlaneState.ARRIVING ou PlaneState.DEPARTING
+     * @return
+     */
+    public int getFreeEntryCount(int kind) {
+        return freeEntryCount[kind];
+    }
+
+    /**
+     * Indique qu'un avion est entré en jeu, son indicatif n'est plus disponible
+     * @param name
+     */
+    public void claim(String name) {
+        int id = callsigns.idOf(name);
+        if (id < 0 || freePosition[id] < 0)
+            return;
+        int position = freePosition[id], last = freeCallsigns[--freeCount];
+        freeCallsigns[position] = last;
+        freePosition[last] = position;
+        freePosition[id] = -1;
+    }
+
+    /**
+     * Indique qu'un avion a quitté le jeu, son indicatif est de nouveau disponible
+     * @param name
+     */
+    public void release(String name) {
+        int id = callsigns.idOf(name);
+        if (id < 0 || freePosition[id] >= 0)
+            return;
+        freePosition[id] = freeCount;
+        freeCallsigns[freeCount++] = id;
+    }
+
+    /**
+     * Fait apparaitre les avions dus au tick en cours, au plus un de chaque type
+     * @return vrai si un avion a été ajouté
+     */
+    public boolean update() {
+        long now = world.getTickCount();
+        boolean spawned = false;
+        for (int k = 0; k < KINDS; ++k) {
+            if (now >= nextSpawn[k] && spawn(k)) {
+                nextSpawn[k] = now + drawInterval(k);
+                spawned = true;
+            }
+        }
+        return spawned;
+    }
+
+    /**
+     * Fait apparaitre un avion d'un type sur un point d'entrée libre avec un indicatif libre
+     * @return faux si ce n'est pas possible pour le moment
+     */
+    private boolean spawn(int kind) {
+        Fleet fleet = world.getFleet();
+        if (fleet.size() >= getMaxPlanes() || freeCount == 0 || freeEntryCount[kind] == 0)
+            return false;
+
+        Random random = world.getRandom();
+        int template = freeEntries[kind][random.nextInt(freeEntryCount[kind])];
+        int callsign = freeCallsigns[random.nextInt(freeCount)];
+        fleet.addCopy(templates, template, callsigns.nameOf(callsign));
+        claim(callsigns.nameOf(callsign));
+        return true;
+    }
+
+    private void drawNextSpawns() {
+        for (int k = 0; k < KINDS; ++k)
+            nextSpawn[k] = world.getTickCount() + drawInterval(k);
+    }
+
+    /**
+     * Tire le nombre de ticks avant la prochaine apparition d'un type (loi exponentielle)
+     */
+    private long drawInterval(int kind) {
+        double perTick = rates[difficulty()][kind] * world.getFleet().getTimeStep() / 60;
+        if (perTick <= 0 || entries[kind].size() == 0)
+            return Long.MAX_VALUE / 2; // Jamais
+        double ticks = -Math.log(1 - world.getRandom().nextDouble()) / perTick;
+        return Math.max(1, (long) Math.ceil(Math.min(ticks, Long.MAX_VALUE / 4)));
+    }
+
+    private int difficulty() {
+        return Math.max(0, Math.min(DIFFICULTY_COUNT - 1, world.getDifficulty()));
+    }
+}
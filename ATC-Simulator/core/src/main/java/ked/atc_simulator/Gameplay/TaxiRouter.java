@@ -0,0 +1,310 @@
+package ked.atc_simulator.Gameplay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import ked.atc_simulator.Entities.Taxiway;
+import ked.atc_simulator.Utils.IntList;
+import ked.atc_simulator.Utils.Point;
+
+/**
+ * Cette classe calcule les chemins au sol : le réseau des taxiways, des pistes et des parkings est un graphe
+ * dont les noeuds sont les routes. Une route mène à sa route suivante, une route de parking est reliée dans les deux
+ * sens à la route sur laquelle elle débouche, et le plan peut ajouter des liaisons (voir taxi_link dans les plans)
+ * Le coût d'une liaison est la distance entre les débuts des deux routes
+ *
+ * Les plus courts chemins sont cherchés avec A* pour toutes les paires de routes au sol à la construction, et rangés
+ * dans une table de prochaines routes : pendant la partie, un chemin se lit en temps constant par route traversée.
+ * La table ne dépend que du plan de l'aéroport, elle est gardée avec lui comme la table de transitions
+ */
+public class TaxiRouter {
+
+    // Type de chaque route
+    private static final byte AIR = 0;
+    private static final byte TAXIWAY = 1;
+    private static final byte RUNWAY = 2;
+    private static final byte PARKING = 3;
+
+    private final int routeCount;
+    private final byte[] kind;
+    private final int[] nextHop; // Par (départ, arrivée), la route qui suit le départ sur le plus court chemin
+    private final float[] distance; // Par (départ, arrivée), la longueur du plus court chemin
+
+    // Graphe, uniquement pendant la construction
+    private float[] startX, startY;
+    private int[] edgeStart, edgeTarget; // Liaisons de chaque route : edgeTarget[edgeStart[r]..edgeStart[r + 1]]
+
+    // Etat de la recherche A*, réutilisé d'une recherche à l'autre
+    private float[] cost;
+    private int[] parent;
+    private boolean[] closed;
+    private int[] heap;
+    private float[] heapKey;
+    private int heapSize;
+
+    /**
+     * Constructeur de la classe TaxiRouter
+     * Construit le graphe à partir des routes du monde et calcule tous les chemins au sol
+     * @param world - Le monde, dont toutes les routes doivent être enregistrées
+     * @param layout - Le plan de l'aéroport, pour ses liaisons entre routes
+     */
+    public TaxiRouter(World world, AirportLayout layout) {
+        this(world.getRouteCount());
+
+        for (Taxiway t : world.getAirport().getTaxiways()) { // Les routes des taxiways portent leur nom
+            Route route = world.getRouteByName(t.getNom());
+            if (route != null)
+                kind[route.getId()] = TAXIWAY;
+        }
+        startX = new float[routeCount];
+        startY = new float[routeCount];
+        for (int r = 0; r < routeCount; ++r) {
+            Route route = world.getRoute(r);
+            if (route instanceof RunwayRoute)
+                kind[r] = RUNWAY;
+            else if (route instanceof ParkingRoute)
+                kind[r] = PARKING;
+            Point start = route.getStartPoint();
+            startX[r] = start.x;
+            startY[r] = start.y;
+        }
+
+        IntList from = new IntList(routeCount * 2), to = new IntList(routeCount * 2);
+        for (int r = 0; r < routeCount; ++r) {
+            Route next = world.getRoute(r).getNextRoute();
+            if (next == null)
+                continue;
+            link(from, to, r, next.getId());
+            if (kind[r] == PARKING) // On entre au parking par la route sur laquelle il débouche
+                link(from, to, next.getId(), r);
+        }
+        for (int i = 0; i < layout.getTaxiLinkCount(); ++i)
+            link(from, to, layout.getTaxiLinkFrom(i), layout.getTaxiLinkTo(i));
+        buildEdges(from, to);
+
+        cost = new float[routeCount];
+        parent = new int[routeCount];
+        closed = new boolean[routeCount];
+        heap = new int[Math.max(from.size(), 1) + 1];
+        heapKey = new float[heap.length];
+        for (int a = 0; a < routeCount; ++a) {
+            for (int b = 0; b < routeCount; ++b) {
+                if (a != b && kind[a] != AIR && kind[b] != AIR && Float.isNaN(distance[a * routeCount + b]))
+                    search(a, b);
+            }
+        }
+        for (int e = 0; e < distance.length; ++e) { // Paires sans chemin
+            if (Float.isNaN(distance[e]))
+                distance[e] = Float.POSITIVE_INFINITY;
+        }
+        for (int r = 0; r < routeCount; ++r)
+            distance[r * routeCount + r] = 0;
+
+        // Le graphe et l'état de la recherche ne servent plus
+        startX = startY = cost = heapKey = null;
+        edgeStart = edgeTarget = parent = heap = null;
+        closed = null;
+    }
+
+    private TaxiRouter(int routeCount) {
+        this.routeCount = routeCount;
+        kind = new byte[routeCount];
+        nextHop = new int[routeCount * routeCount];
+        distance = new float[routeCount * routeCount];
+        Arrays.fill(nextHop, AirportLayout.NO_ROUTE);
+        Arrays.fill(distance, Float.NaN); // Pas encore cherché
+    }
+
+    /**
+     * Retourne la route qui suit une route sur le plus court chemin au sol vers une autre
+     * @param from
+     * @param to
+     * @return l'identifiant de la route suivante, AirportLayout.NO_ROUTE s'il n'y a pas de chemin ou si from est to
+     */
+    public int nextHop(int from, int to) {
+        return nextHop[from * routeCount + to];
+    }
+
+    /**
+     * Getter pour la longueur du plus court chemin au sol entre deux routes
+     * @param from
+     * @param to
+     * @return la longueur, l'infini s'il n'y a pas de chemin
+     */
+    public float getDistance(int from, int to) {
+        return distance[from * routeCount + to];
+    }
+
+    /**
+     * Ajoute à une liste les routes du plus court chemin au sol entre deux routes, from et to compris
+     * @param from
+     * @param to
+     * @param path
+     * @return faux s'il n'y a pas de chemin, rien n'est alors ajouté
+     */
+    public boolean getPath(int from, int to, IntList path) {
+        if (distance[from * routeCount + to] == Float.POSITIVE_INFINITY)
+            return false;
+        path.add(from);
+        for (int r = from; r != to; ) {
+            r = nextHop[r * routeCount + to];
+            path.add(r);
+        }
+        return true;
+    }
+
+    /**
+     * Vérifie qu'une route fait partie du réseau au sol (taxiway, piste ou parking)
+     * @param routeId
+     * @return
+     */
+    public boolean isGroundRoute(int routeId) {
+        return kind[routeId] != AIR;
+    }
+
+    /**
+     * Vérifie qu'une route est celle d'un taxiway
+     * @param routeId
+     * @return
+     */
+    public boolean isTaxiway(int routeId) {
+        return kind[routeId] == TAXIWAY;
+    }
+
+    /**
+     * Ecrit la table des chemins, pour le cache des plans d'aéroport
+     * @param out
+     * @throws IOException
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(routeCount);
+        out.write(kind);
+        for (int e = 0; e < nextHop.length; ++e) {
+            out.writeInt(nextHop[e]);
+            out.writeFloat(distance[e]);
+        }
+    }
+
+    /**
+     * Relit une table écrite par writeTo()
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    static TaxiRouter readFrom(DataInputStream in) throws IOException {
+        TaxiRouter router = new TaxiRouter(in.readInt());
+        in.readFully(router.kind);
+        for (int e = 0; e < router.nextHop.length; ++e) {
+            router.nextHop[e] = in.readInt();
+            router.distance[e] = in.readFloat();
+        }
+        return router;
+    }
+
+    /**
+     * Ajoute une liaison si elle relie deux routes au sol
+     */
+    private void link(IntList from, IntList to, int a, int b) {
+        if (kind[a] != AIR && kind[b] != AIR && a != b) {
+            from.add(a);
+            to.add(b);
+        }
+    }
+
+    /**
+     * Range les liaisons par route de départ, dans l'ordre où elles ont été ajoutées
+     */
+    private void buildEdges(IntList from, IntList to) {
+        edgeStart = new int[routeCount + 1];
+        for (int i = 0; i < from.size(); ++i)
+            ++edgeStart[from.get(i) + 1];
+        for (int r = 0; r < routeCount; ++r)
+            edgeStart[r + 1] += edgeStart[r];
+        edgeTarget = new int[from.size()];
+        int[] fill = Arrays.copyOf(edgeStart, routeCount);
+        for (int i = 0; i < from.size(); ++i)
+            edgeTarget[fill[from.get(i)]++] = to.get(i);
+    }
+
+    /**
+     * Cherche le plus court chemin entre deux routes avec A* et le range dans la table
+     * L'heuristique est la distance à vol d'oiseau jusqu'au début de la route d'arrivée, qui ne surestime jamais
+     * le coût restant. Chaque fin d'un plus court chemin est aussi un plus court chemin vers la même arrivée :
+     * elles sont toutes rangées, ce qui évite de relancer la recherche depuis les routes du chemin
+     * @param a - La route de départ
+     * @param b - La route d'arrivée
+     */
+    private void search(int a, int b) {
+        Arrays.fill(cost, Float.POSITIVE_INFINITY);
+        Arrays.fill(closed, false);
+        heapSize = 0;
+        cost[a] = 0;
+        parent[a] = AirportLayout.NO_ROUTE;
+        push(a, heuristic(a, b));
+        while (heapSize > 0) {
+            int r = pop();
+            if (closed[r])
+                continue; // Entrée périmée, la route a été atteinte par un chemin plus court
+            if (r == b) {
+                for (int p = b; parent[p] != AirportLayout.NO_ROUTE; p = parent[p]) {
+                    int e = parent[p] * routeCount + b;
+                    nextHop[e] = p;
+                    distance[e] = cost[b] - cost[parent[p]];
+                }
+                return;
+            }
+            closed[r] = true;
+            for (int e = edgeStart[r]; e < edgeStart[r + 1]; ++e) {
+                int s = edgeTarget[e];
+                float c = cost[r] + (float) Math.hypot(startX[s] - startX[r], startY[s] - startY[r]);
+                if (!closed[s] && c < cost[s]) {
+                    cost[s] = c;
+                    parent[s] = r;
+                    push(s, c + heuristic(s, b));
+                }
+            }
+        }
+        distance[a * routeCount + b] = Float.POSITIVE_INFINITY; // Pas de chemin
+    }
+
+    private float heuristic(int r, int b) {
+        return (float) Math.hypot(startX[b] - startX[r], startY[b] - startY[r]);
+    }
+
+    private void push(int r, float key) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+            heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0 && heapKey[(i - 1) / 2] > key) {
+            heap[i] = heap[(i - 1) / 2];
+            heapKey[i] = heapKey[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        heap[i] = r;
+        heapKey[i] = key;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int r = heap[--heapSize];
+        float key = heapKey[heapSize];
+        int i = 0;
+        while (2 * i + 1 < heapSize) {
+            int c = 2 * i + 1;
+            if (c + 1 < heapSize && heapKey[c + 1] < heapKey[c])
+                ++c;
+            if (heapKey[c] >= key)
+                break;
+            heap[i] = heap[c];
+            heapKey[i] = heapKey[c];
+            i = c;
+        }
+        heap[i] = r;
+        heapKey[i] = key;
+        return top;
+    }
+}
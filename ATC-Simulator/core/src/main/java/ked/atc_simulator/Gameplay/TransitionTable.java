@@ -0,0 +1,187 @@
+package ked.atc_simulator.Gameplay;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import ked.atc_simulator.Entities.Taxiway;
+import ked.atc_simulator.State.PlaneState;
+
+/**
+ * Cette classe compile le réseau de routes du monde en une table indexée par (route, état, comportement)
+ * Elle est construite une fois au démarrage : pendant le tick, la navigation lit la table au lieu de comparer
+ * les noms des routes et les types des états. Elle ne dépend que du plan de l'aéroport : elle est gardée avec
+ * lui (voir AirportLayout) et partagée par tous les mondes construits à partir de ce plan
+ */
+public class TransitionTable {
+
+    public static final int BEHAVIOR_COUNT = 4; // 0 normal, 1 holding, 2 runway, 3 stop
+
+    // Point à atteindre pour quitter la route
+    static final byte TARGET_NEXT_START = 0; // Début de la route suivante du plan de vol
+    static final byte TARGET_PARKING_END = 1; // Fond de la route de parking de l'avion
+    static final byte TARGET_PARKING_EXIT = 2; // Sortie de la route de parking, avec la précision de Charlie
+
+    // Action quand le point est atteint
+    static final byte CAPTURE_NEXT = 0; // On passe à la route suivante du plan de vol
+    static final byte CAPTURE_HOLD_SHORT = 1; // On s'arrête avant la piste
+    static final byte CAPTURE_PARK = 2; // On s'arrête au parking et l'avion est supprimé
+    static final byte CAPTURE_LEAVE_PARKING = 3; // On quitte le parking par Charlie
+
+    // Action faite à chaque tick sur la route courante
+    static final byte POST_NONE = 0;
+    static final byte POST_SNAP_FINAL = 1; // On recale l'avion sur l'axe de la finale
+    static final byte POST_STOP_WITHOUT_PARKING = 2; // On s'arrête après la piste si on n'a pas de parking
+
+    // Calcul de la vitesse
+    static final byte SPEED_CONSTANT = 0;
+    static final byte SPEED_TAKEOFF = 1; // La vitesse augmente le long de la piste
+    static final byte SPEED_LANDING = 2; // La vitesse diminue le long de la piste
+
+    private final int routeCount;
+    final byte[] target, capture, post, speedMode;
+    final float[] headingOffset;
+    final float[] runwayEnd; // Coordonnée X de la fin de la piste, par route
+    private final boolean[] canStop; // Par route, vrai pour les taxiways
+
+    /**
+     * Constructeur de la classe TransitionTable
+     * Compile les routes enregistrées dans le monde, dont les routes de parking
+     * @param world
+     * @param planner - Donne la route suivante, pour savoir où se trouvent les pistes
+     */
+    public TransitionTable(World world, FlightPlanner planner) {
+        this(world.getRouteCount());
+
+        for (Taxiway t : world.getAirport().getTaxiways()) { // Les routes des taxiways portent leur nom
+            Route route = world.getRouteByName(t.getNom());
+            if (route != null)
+                canStop[route.getId()] = true;
+        }
+
+        for (int r = 0; r < routeCount; ++r) {
+            Route route = world.getRoute(r);
+            boolean parking = route instanceof ParkingRoute;
+            boolean runway = route instanceof RunwayRoute;
+            if (runway)
+                runwayEnd[r] = route.getStartPoint().x + ((RunwayRoute) route).getLenght();
+
+            for (int s = 0; s < PlaneState.COUNT; ++s) {
+                boolean arriving = s == PlaneState.ARRIVING;
+                for (int b = 0; b < BEHAVIOR_COUNT; ++b) {
+                    int e = index(r, s, b);
+
+                    if (arriving && parking)
+                        target[e] = TARGET_PARKING_END;
+                    else if (parking)
+                        target[e] = TARGET_PARKING_EXIT;
+                    else target[e] = TARGET_NEXT_START;
+
+                    // Le parking de l'avion ne change que la route qui suit Charlie, qui n'est jamais une piste
+                    if (b == 2 && planner.nextRoute(route, s, false, Fleet.NO_PARKING) instanceof RunwayRoute)
+                        capture[e] = CAPTURE_HOLD_SHORT;
+                    else if (arriving && parking)
+                        capture[e] = CAPTURE_PARK;
+                    else if (parking)
+                        capture[e] = CAPTURE_LEAVE_PARKING;
+                    else capture[e] = CAPTURE_NEXT;
+
+                    if (route == world.getFinale())
+                        post[e] = POST_SNAP_FINAL;
+                    else if (route == world.getBravo() && arriving)
+                        post[e] = POST_STOP_WITHOUT_PARKING;
+                    else post[e] = POST_NONE;
+
+                    // Comme on prend la route de parking dans les deux sens, si on arrive il faut aller dans le sens inverse du départ
+                    headingOffset[e] = arriving && parking ? 180 : 0;
+
+                    if (route == world.getRunwayTO())
+                        speedMode[e] = SPEED_TAKEOFF;
+                    else if (runway)
+                        speedMode[e] = SPEED_LANDING;
+                    else speedMode[e] = SPEED_CONSTANT;
+                }
+            }
+        }
+    }
+
+    private TransitionTable(int routeCount) {
+        this.routeCount = routeCount;
+        int entries = routeCount * PlaneState.COUNT * BEHAVIOR_COUNT;
+        target = new byte[entries];
+        capture = new byte[entries];
+        post = new byte[entries];
+        speedMode = new byte[entries];
+        headingOffset = new float[entries];
+        runwayEnd = new float[routeCount];
+        canStop = new boolean[routeCount];
+    }
+
+    /**
+     * Ecrit la table compilée, pour le cache des plans d'aéroport
+     * @param out
+     * @throws IOException
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(routeCount);
+        out.write(target);
+        out.write(capture);
+        out.write(post);
+        out.write(speedMode);
+        for (float offset : headingOffset)
+            out.writeFloat(offset);
+        for (int r = 0; r < routeCount; ++r) {
+            out.writeFloat(runwayEnd[r]);
+            out.writeBoolean(canStop[r]);
+        }
+    }
+
+    /**
+     * Relit une table écrite par writeTo()
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    static TransitionTable readFrom(DataInputStream in) throws IOException {
+        TransitionTable table = new TransitionTable(in.readInt());
+        in.readFully(table.target);
+        in.readFully(table.capture);
+        in.readFully(table.post);
+        in.readFully(table.speedMode);
+        for (int e = 0; e < table.headingOffset.length; ++e)
+            table.headingOffset[e] = in.readFloat();
+        for (int r = 0; r < table.routeCount; ++r) {
+            table.runwayEnd[r] = in.readFloat();
+            table.canStop[r] = in.readBoolean();
+        }
+        return table;
+    }
+
+    /**
+     * Retourne l'index de l'entrée de la table pour une route, un état et un comportement
+     * @param routeId
+     * @param stateId
+     * @param behavior
+     * @return
+     */
+    public int index(int routeId, int stateId, int behavior) {
+        return (routeId * PlaneState.COUNT + stateId) * BEHAVIOR_COUNT + behavior;
+    }
+
+    /**
+     * Vérifie qu'un avion peut être arrêté sur une route (seulement sur les taxiways)
+     * @param routeId
+     * @return
+     */
+    public boolean canStop(int routeId) {
+        return canStop[routeId];
+    }
+
+    /**
+     * Getter pour le nombre de routes compilées
+     * @return
+     */
+    public int getRouteCount() {
+        return routeCount;
+    }
+}
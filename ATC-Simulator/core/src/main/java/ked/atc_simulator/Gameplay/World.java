@@ -0,0 +1,814 @@
+package ked.atc_simulator.Gameplay;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ked.atc_simulator.Entities.Airport;
+import ked.atc_simulator.Entities.Plane;
+import ked.atc_simulator.State.ArrivingState;
+import ked.atc_simulator.State.DepartingState;
+import ked.atc_simulator.State.PlaneState;
+import ked.atc_simulator.Utils.IntList;
+import ked.atc_simulator.Utils.NameRegistry;
+import ked.atc_simulator.Utils.Options;
+
+/**
+ * Cette classe contient le modèle du jeu : l'aéroport, les routes et les avions
+ * Elle ne dépend pas d'Android, ce qui permet de faire tourner la simulation sur une JVM classique
+ * L'application l'utilise au travers de GameMgr
+ */
+public class World {
+
+    public static final int WIDTH = 1920; // Largeur de l'espace de jeu en coordonnées
+    public static final int HEIGHT = 1080; // Hauteur de l'espace de jeu en coordonnées
+    public static final float SEPARATION = 10; // Distance en dessous de laquelle deux avions sont en collision
+    public static final int FOLLOW_OPTIONS = -1;
+
+    private Fleet fleet, mockupPlanes;
+    private SpawnScheduler spawner;
+    private Navigator navigator;
+    private ParallelUpdater parallelUpdater; // null quand la mise à jour se fait sur le thread de la simulation
+    private ConflictProbe conflictProbe;
+    private TransitionTable transitions;
+    private TaxiRouter taxiRouter;
+    private FlightPlanner flightPlanner;
+    private RunwayScheduler runwayScheduler;
+    private long tickCount; // Nombre de ticks depuis le début de la partie
+    private long planesRemoved; // Nombre d'avions garés ou sortis de l'écran depuis le début de la partie
+    private int difficulty; // FOLLOW_OPTIONS pour suivre la difficulté choisie dans les options
+    private Airport airport;
+    private final AirportLayout layout; // Le plan dont l'aéroport et les routes sont construits
+
+    private Route alpha, bravo, charlie, downwind, base, finale, upwind, crosswind, crosswindRN, straitEastDeparture;
+    private ArrayList<ParkingRoute> parkingRoutes;
+    private RunwayRoute runwayTO, runwayLanding;
+    private ArrayList<Route> routes;
+    private ArrayList<Route> routesById; // Toutes les routes, parkings compris, indexées par leur identifiant
+    private NameRegistry routeNames; // Noms des routes, parkings compris
+    private IntList routeOfName; // Identifiant de la route pour chaque identifiant de nom
+    private PlaneState arrivingState, departingState;
+    private WorldListener listener;
+    private boolean gameOver;
+    private Random random; // Tirage des avions qui apparaissent, seule source de hasard de la simulation
+    private long seed;
+    private SessionRecorder recorder; // null si la partie n'est pas enregistrée
+    private final IntList candidates = new IntList(16); // Présélection de la grille, réutilisée à chaque recherche
+
+    private final Plane emptyPlane = new Plane();
+    private final ParkingRoute emptyParkingRoute = new ParkingRoute();
+    private final Route emptyRoute = new Route();
+
+    /**
+     * Constructeur de la classe World
+     * Construit l'aéroport et ses routes à partir du plan par défaut
+     */
+    public World() {
+        this(AirportLayout.getDefault());
+    }
+
+    /**
+     * Constructeur de la classe World
+     * Construit l'aéroport et ses routes à partir d'un plan (voir LayoutLoader)
+     * @param layout
+     */
+    public World(AirportLayout layout) {
+        fleet = new Fleet(this);
+        mockupPlanes = new Fleet(this);
+        spawner = new SpawnScheduler(this, mockupPlanes);
+        navigator = new Navigator(this, fleet);
+        conflictProbe = new ConflictProbe(fleet);
+        tickCount = 0;
+        difficulty = FOLLOW_OPTIONS;
+        this.layout = layout;
+        airport = layout.buildAirport();
+        routes = new ArrayList<>();
+        routesById = new ArrayList<>();
+        routeNames = new NameRegistry(32);
+        routeOfName = new IntList(32);
+        parkingRoutes = new ArrayList<>();
+        arrivingState = new ArrivingState(this);
+        departingState = new DepartingState(this);
+
+        gameOver = false;
+        setSeed(new Random().nextLong());
+        listener = new WorldListener() { // Par défaut personne n'écoute
+            @Override
+            public void onPlanesChanged() {
+            }
+
+            @Override
+            public void onGameOver() {
+            }
+        };
+
+        // Les routes sont enregistrées dans l'ordre du plan, leurs identifiants sont donc les mêmes dans tous les mondes
+        for (Route route : layout.buildRoutes()) {
+            if (route instanceof ParkingRoute) {
+                registerRoute(route);
+                parkingRoutes.add((ParkingRoute) route);
+            } else addRoute(route);
+        }
+        finale = requireRoute("Final");
+        crosswind = requireRoute("Crosswind");
+        upwind = requireRoute("Upwind");
+        base = requireRoute("Base");
+        downwind = requireRoute("Downwind");
+        crosswindRN = requireRoute("CrosswindRN");
+        runwayLanding = requireRunwayRoute("RunwayLanding");
+        runwayTO = requireRunwayRoute("RunwayTO");
+        alpha = requireRoute("Alpha");
+        charlie = requireRoute("Charlie");
+        bravo = requireRoute("Bravo");
+        straitEastDeparture = requireRoute("StraitEastDeparture");
+
+        // Une fois toutes les routes enregistrées
+        taxiRouter = layout.getTaxiRouter() != null ? layout.getTaxiRouter() : new TaxiRouter(this, layout);
+        flightPlanner = new FlightPlanner(this, layout.getFlightPlans(this)); // Préparés une fois par plan
+        transitions = layout.getTransitions() != null ? layout.getTransitions() : new TransitionTable(this, flightPlanner);
+        runwayScheduler = new RunwayScheduler(this, fleet);
+    }
+
+    /**
+     * Retourne une route dont le jeu a besoin
+     * @param name
+     * @return
+     * @throws IllegalArgumentException si le plan de l'aéroport n'a pas cette route
+     */
+    private Route requireRoute(String name) {
+        Route route = getRouteByName(name);
+        if (route == null)
+            throw new IllegalArgumentException("Airport layout has no route " + name);
+        return route;
+    }
+
+    private RunwayRoute requireRunwayRoute(String name) {
+        Route route = requireRoute(name);
+        if (!(route instanceof RunwayRoute))
+            throw new IllegalArgumentException("Airport layout route " + name + " is not a runway route");
+        return (RunwayRoute) route;
+    }
+
+    /**
+     * Enregistre une route et lui attribue son identifiant
+     * @param route
+     */
+    private void addRoute(Route route) {
+        registerRoute(route);
+        routes.add(route);
+    }
+
+    /**
+     * Attribue son identifiant à une route, parkings compris, et indexe son nom
+     * Si deux routes ont le même nom, c'est la première qui est trouvée par son nom
+     * @param route
+     */
+    private void registerRoute(Route route) {
+        route.setId(routesById.size());
+        routesById.add(route);
+        if (routeNames.intern(route.getName()) == routeOfName.size())
+            routeOfName.add(route.getId());
+    }
+
+    /**
+     * Setter pour l'objet prévenu des évènements de la partie
+     * @param listener
+     */
+    public void setListener(WorldListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Getter pour une route en fonction de son nom
+     * @param name
+     * @return
+     */
+    public Route getRouteByName(String name) {
+        int id = routeNames.idOf(name);
+        return id < 0 ? null : routesById.get(routeOfName.get(id));
+    }
+
+    /**
+     * Getter pour une route en fonction de son identifiant
+     * @param id
+     * @return
+     */
+    public Route getRoute(int id) {
+        return routesById.get(id);
+    }
+
+    /**
+     * Getter pour le nombre de routes enregistrées, parkings compris
+     * @return
+     */
+    public int getRouteCount() {
+        return routesById.size();
+    }
+
+    /**
+     * Getter pour la table de transitions compilée à partir des routes
+     * @return
+     */
+    public TransitionTable getTransitions() {
+        return transitions;
+    }
+
+    /**
+     * Getter pour la table des chemins au sol
+     * @return
+     */
+    public TaxiRouter getTaxiRouter() {
+        return taxiRouter;
+    }
+
+    /**
+     * Getter pour l'ordonnanceur des pistes
+     * @return
+     */
+    public RunwayScheduler getRunwayScheduler() {
+        return runwayScheduler;
+    }
+
+    /**
+     * Getter pour le constructeur des plans de vol
+     * @return
+     */
+    public FlightPlanner getFlightPlanner() {
+        return flightPlanner;
+    }
+
+    /**
+     * Getter pour une route de parking en fonction de son identifiant
+     * Retourne l'objet emptyParkingRoute si l'identifiant vaut Fleet.NO_PARKING
+     * @param id
+     * @return
+     */
+    public ParkingRoute getParkingRoute(int id) {
+        if (id == Fleet.NO_PARKING)
+            return emptyParkingRoute;
+        return (ParkingRoute) routesById.get(id);
+    }
+
+    /**
+     * Crée les modèles d'avions à partir desquels les nouveaux avions sont ajoutés
+     */
+    public void createMockupPlanes(){
+        //Création des modèles d'avions
+        mockupPlanes.add("R328FS", 475, 715, 0,3, parkingRoutes.get(0), departingState);
+        mockupPlanes.add("N851TB", 150, 850, 90,1, upwind, arrivingState);
+        mockupPlanes.add("J458DS", 1750, 200, 270,1, downwind, arrivingState);
+        mockupPlanes.add("ZEQ54D", 675, 715, 0,3, parkingRoutes.get(1), departingState);
+
+        mockupPlanes.add("F8X65Z", 875, 715, 270,3, parkingRoutes.get(2), departingState);
+        mockupPlanes.add("AB74ZE", 150, 850, 90,1, upwind, arrivingState);
+        mockupPlanes.add("PO15AZ", 1750, 200, 270,1, downwind, arrivingState);
+        mockupPlanes.add("ZEQ54D", 1075, 715, 0,3, parkingRoutes.get(3), departingState);
+
+        mockupPlanes.add("SD47AZ", 1275, 715, 270,3, parkingRoutes.get(4), departingState);
+        mockupPlanes.add("UF48XW", 150, 850, 90,1, upwind, arrivingState);
+        mockupPlanes.add("LKI85X", 1750, 200, 270,1, downwind, arrivingState);
+        mockupPlanes.add("ZEQ54D", 1450, 715, 0,3, parkingRoutes.get(5), departingState);
+
+        mockupPlanes.add("Q54DEZ", 875, 715, 270,3, parkingRoutes.get(2), departingState);
+        mockupPlanes.add("AEG48X", 150, 850, 90,1, upwind, arrivingState);
+        mockupPlanes.add("JEF48T", 1750, 200, 270,1, downwind, arrivingState);
+        mockupPlanes.add("ZEQ54D", 475, 715, 0,3, parkingRoutes.get(4), departingState);
+        fleet.reserveNames(mockupPlanes); // Les indicatifs sont indexés d'avance, pas en cours de partie
+        spawner.reset();
+    }
+
+    /**
+     * Ajoute les avions d'une nouvelle partie, quand il n'y a pas de sauvegarde
+     */
+    public void createStartingPlanes() {
+        addPlane("R328FS", 475, 715, 0, 3, charlie, departingState);
+        addPlane("N851TB", 150, 850, 90, 1, upwind, arrivingState);
+    }
+
+    /**
+     * Ajoute un avion sauvegardé en retrouvant sa route et son état à partir de leurs noms
+     * @param name
+     * @param x
+     * @param y
+     * @param heading
+     * @param behavior
+     * @param routeName
+     * @param planeStateName
+     */
+    public void loadPlane(String name, float x, float y, float heading, int behavior, String routeName, String planeStateName) {
+        Route route = getRouteByName(routeName);
+        PlaneState state = getPlaneStateByName(planeStateName);
+        addPlane(name, x, y, heading, behavior, route, state);
+    }
+
+    /**
+     * Getter pour une parking route en fonction de son nom
+     * @param name
+     * @return
+     */
+    public ParkingRoute getParkingRouteByName(String name) {
+        Route route = getRouteByName(name);
+        return route instanceof ParkingRoute ? (ParkingRoute) route : emptyParkingRoute;
+    }
+
+    /**
+     * Getter pour les parking routes
+     * @return
+     */
+    public ArrayList<ParkingRoute> getParkingRoutes(){ return parkingRoutes; }
+
+    /**
+     * Retourne un état d'avion en fonction de son nom
+     * @param name
+     * @return
+     */
+    public PlaneState getPlaneStateByName(String name) {
+        if (name.equals(arrivingState.getName()))
+            return arrivingState;
+        else if (name.equals(departingState.getName()))
+            return departingState;
+        else return null;
+    }
+
+    /**
+     * Retourne un état d'avion en fonction de son identifiant
+     * @param id - PlaneState.ARRIVING ou PlaneState.DEPARTING
+     * @return
+     */
+    public PlaneState getPlaneState(int id) {
+        return id == PlaneState.ARRIVING ? arrivingState : departingState;
+    }
+
+    /**
+     * Getter pour l'état des avions à l'arrivée
+     * @return
+     */
+    public PlaneState getArrivingState() {
+        return arrivingState;
+    }
+
+    /**
+     * Getter pour l'état des avions au départ
+     * @return
+     */
+    public PlaneState getDepartingState() {
+        return departingState;
+    }
+
+    /**
+     * Getter pour la liste des avions
+     * C'est une vue sur la flotte, elle suit les ajouts et suppressions
+     * @return
+     */
+    public List<Plane> getPlanes() {
+        return fleet.asList();
+    }
+
+    /**
+     * Getter pour la flotte, le stockage des avions en tableaux parallèles
+     * @return
+     */
+    public Fleet getFleet() {
+        return fleet;
+    }
+
+    /**
+     * Getter pour l'aéroport
+     * @return
+     */
+    public Airport getAirport() {
+        return airport;
+    }
+
+    /**
+     * Getter pour le plan de l'aéroport
+     * @return
+     */
+    public AirportLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Ajoute un avion
+     * @param name
+     * @param x
+     * @param y
+     * @param heading
+     * @param behavior
+     * @param route
+     * @param planeState
+     * @return la vue sur le nouvel avion
+     */
+    public Plane addPlane(String name, float x, float y, float heading, int behavior, Route route, PlaneState planeState) {
+        spawner.claim(name);
+        return fleet.add(name, x, y, heading, behavior, route, planeState);
+    }
+
+    /**
+     * Supprimer un avion
+     * @param plane
+     */
+    public void removePlane(Plane plane) {
+        int slot = fleet.slotOf(plane.getHandle());
+        if (slot >= 0) {
+            spawner.release(fleet.name[slot]);
+            runwayScheduler.cancel(plane.getHandle());
+            fleet.remove(slot);
+        }
+    }
+
+    /**
+     * Getter pour la route Alpha
+     * @return
+     */
+    public Route getAlpha() {
+        return alpha;
+    }
+
+    /**
+     * Getter pour la route Bravo
+     * @return
+     */
+    public Route getBravo() {
+        return bravo;
+    }
+
+    /**
+     * Getter pour la route Charlie
+     * @return
+     */
+    public Route getCharlie() {
+        return charlie;
+    }
+
+    /**
+     * Getter pour la route Downwind
+     * @return
+     */
+    public Route getDownwind() {
+        return downwind;
+    }
+
+    /**
+     * Getter pour la route Base
+     * @return
+     */
+    public Route getBase() {
+        return base;
+    }
+
+    /**
+     * Getter pour la route Finale
+     * @return
+     */
+    public Route getFinale() {
+        return finale;
+    }
+
+    /**
+     * Getter pour la route Upwind
+     * @return
+     */
+    public Route getUpwind() {
+        return upwind;
+    }
+
+    /**
+     * Getter pour la route Crosswind
+     * @return
+     */
+    public Route getCrosswind() {
+        return crosswind;
+    }
+
+    /**
+     * Getter pour la route CrosswindRN
+     * @return
+     */
+    public Route getCrosswindRN() {
+        return crosswindRN;
+    }
+
+    /**
+     * Getter pour la route RunwayTO
+     * @return
+     */
+    public RunwayRoute getRunwayTO() {
+        return runwayTO;
+    }
+
+    /**
+     * Getter pour la route RunwayLanding
+     * @return
+     */
+    public RunwayRoute getRunwayLanding() {
+        return runwayLanding;
+    }
+
+    /**
+     * Getter pour la route StraitEastDeparture, prise par les avions qui quittent l'aéroport
+     * @return
+     */
+    public Route getStraitEastDeparture() {
+        return straitEastDeparture;
+    }
+
+    /**
+     * Getter pour l'objet emptyPlane, retourné quand un avion n'existe pas
+     * @return
+     */
+    public Plane getEmptyPlane() {
+        return emptyPlane;
+    }
+
+    /**
+     * Getter pour l'objet emptyParkingRoute, utilisé quand un avion n'a pas de parking
+     * @return
+     */
+    public ParkingRoute getEmptyParkingRoute() {
+        return emptyParkingRoute;
+    }
+
+    /**
+     * Getter pour l'objet emptyRoute
+     * @return
+     */
+    public Route getEmptyRoute() {
+        return emptyRoute;
+    }
+
+    /**
+     * Retourne un avion en fonction de son nom
+     * Retourne l'objet emptyPlane si l'avion n'existe pas
+     * @param name
+     * @return
+     */
+    public Plane getPlaneByName(String name) {
+        int slot = fleet.slotOfName(name);
+        return slot < 0 ? emptyPlane : fleet.getPlane(slot);
+    }
+
+    /**
+     * Getter pour l'état de la partie
+     * @return
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Cette fonction vérifie qu'un avion n'est pas déjà en jeu
+     * @param p
+     * @return
+     */
+    public boolean isPlaneAlreadySpawned(Plane p){
+        return isPlaneAlreadySpawned(p.getName());
+    }
+
+    /**
+     * Cette fonction vérifie qu'un avion portant ce nom n'est pas déjà en jeu
+     * @param name
+     * @return
+     */
+    private boolean isPlaneAlreadySpawned(String name){
+        return fleet.slotOfName(name) >= 0; // Il ne peut pas y avoir d'avions ayant le même nom dans tous les cas
+    }
+
+    /**
+     * Cette fonction vérifie qu'un avion n'est pas trop proche d'un autre
+     * @param p
+     * @return
+     */
+    public boolean isPlaneTooCloseToAnotherPlane(Plane p){
+        return isTooCloseToAPlane(p.getX(), p.getY(), fleet.slotOf(p.getHandle()));
+    }
+
+    /**
+     * Cette fonction vérifie qu'un point n'est pas trop proche d'un avion de la flotte
+     * @param x
+     * @param y
+     * @param ignoredSlot - La position de l'avion à ne pas prendre en compte, -1 pour aucun
+     * @return
+     */
+    boolean isTooCloseToAPlane(float x, float y, int ignoredSlot){
+        candidates.clear();
+        fleet.getSpatialHash().query(x, y, SEPARATION, candidates);
+        for (int k = 0; k < candidates.size(); ++k) {
+            int i = candidates.get(k);
+            float diffX = fleet.x[i] - x;
+            float diffY = fleet.y[i] - y;
+
+            if (i != ignoredSlot && diffX <= SEPARATION && diffX > -SEPARATION && diffY <= SEPARATION && diffY > -SEPARATION) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ajoute à la liste les positions dans la flotte des avions situés dans le carré de centre (x, y) et de demi-côté radius
+     * @param x
+     * @param y
+     * @param radius
+     * @param out - La liste où ajouter les positions, elle n'est pas vidée
+     */
+    public void findPlanesNear(float x, float y, float radius, IntList out) {
+        candidates.clear();
+        fleet.getSpatialHash().query(x, y, radius, candidates);
+        for (int k = 0; k < candidates.size(); ++k) {
+            int i = candidates.get(k);
+            float diffX = fleet.x[i] - x;
+            float diffY = fleet.y[i] - y;
+            if (diffX <= radius && diffX >= -radius && diffY <= radius && diffY >= -radius)
+                out.add(i);
+        }
+    }
+
+    /**
+     * Ajoute à la liste les positions dans la flotte des avions situés dans un rectangle
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @param out - La liste où ajouter les positions, elle n'est pas vidée
+     */
+    public void findPlanesIn(float minX, float minY, float maxX, float maxY, IntList out) {
+        candidates.clear();
+        fleet.getSpatialHash().queryRect(minX, minY, maxX, maxY, candidates);
+        for (int k = 0; k < candidates.size(); ++k) {
+            int i = candidates.get(k);
+            if (fleet.x[i] >= minX && fleet.x[i] <= maxX && fleet.y[i] >= minY && fleet.y[i] <= maxY)
+                out.add(i);
+        }
+    }
+
+    /**
+     * Fait avancer la simulation d'un tick
+     */
+    public void tick() {
+        cleanupPlanes();
+        runwayScheduler.update(tickCount); // Les pistes libérées sont données avant la navigation
+        updatePlanes();
+        conflictProbe.update(tickCount);
+    }
+
+    /**
+     * Réinitialise le tirage des avions qui apparaissent : deux mondes dans le même état avec la même graine
+     * et les mêmes commandes évoluent exactement de la même façon
+     * @param seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        random = new Random(seed);
+        if (spawner != null)
+            spawner.reset(); // Les prochaines apparitions sont tirées avec la nouvelle graine
+    }
+
+    /**
+     * Getter pour le tirage des avions qui apparaissent
+     * @return
+     */
+    Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Setter pour la difficulté de ce monde, indépendante des options
+     * Les mondes d'un serveur de simulation ont chacun leur difficulté (voir SimulationServer)
+     * @param difficulty - FOLLOW_OPTIONS pour suivre les options, ce que fait le jeu
+     */
+    public void setDifficulty(int difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    /**
+     * Getter pour la difficulté de ce monde
+     * @return
+     */
+    public int getDifficulty() {
+        return difficulty == FOLLOW_OPTIONS ? Options.getDifficulty() : difficulty;
+    }
+
+    /**
+     * Getter pour l'ordonnanceur des apparitions, pour en régler les taux
+     * @return
+     */
+    public SpawnScheduler getSpawner() {
+        return spawner;
+    }
+
+    /**
+     * Getter pour la dernière graine donnée au tirage des avions
+     * @return
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Setter pour l'enregistreur de la partie, null pour ne plus enregistrer (voir SessionRecorder)
+     * @param recorder
+     */
+    public void setRecorder(SessionRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Appelée par Plane à chaque commande donnée à un avion, pour l'enregistrement de la partie
+     * @param type - Le type de commande (voir SessionRecorder)
+     * @param slot - La position de l'avion dans la flotte
+     * @param arg
+     */
+    public void recordCommand(byte type, int slot, int arg) {
+        if (recorder != null)
+            recorder.record(type, slot, arg);
+    }
+
+    /**
+     * Répartit la mise à jour des avions sur plusieurs threads (voir ParallelUpdater), pour les parties sans affichage
+     * Le résultat ne dépend pas du nombre de threads
+     * @param threads - 1 pour revenir à la mise à jour sur le thread de la simulation
+     */
+    public void setParallelism(int threads) {
+        if (parallelUpdater != null) {
+            parallelUpdater.shutdown();
+            parallelUpdater = null;
+        }
+        if (threads > 1)
+            parallelUpdater = new ParallelUpdater(this, fleet, navigator, threads);
+    }
+
+    /**
+     * Setter pour la durée d'un tick en secondes de jeu (1 par défaut)
+     * @param seconds
+     */
+    public void setTimeStep(double seconds) {
+        fleet.setTimeStep(seconds);
+    }
+
+    /**
+     * Getter pour le nombre de ticks depuis le début de la partie
+     * @return
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Getter pour le nombre d'avions qui ont quitté le jeu, garés ou sortis de l'écran, depuis le début de la partie
+     * @return
+     */
+    public long getPlanesRemoved() {
+        return planesRemoved;
+    }
+
+    /**
+     * Getter pour le détecteur de conflits, mis à jour à chaque tick
+     * @return
+     */
+    public ConflictProbe getConflictProbe() {
+        return conflictProbe;
+    }
+
+    /**
+     * Met à jour les avions sans en ajouter ni en supprimer
+     * D'abord les changements de route, de cap et de vitesse, puis le déplacement de toute la flotte
+     */
+    public void updatePlanes() {
+        fleet.savePreviousState(); // Pour que l'affichage puisse interpoler entre les deux derniers ticks
+        if (parallelUpdater != null) {
+            parallelUpdater.update(tickCount);
+        } else {
+            navigator.advance(tickCount); // Seuls les avions dont un évènement est dû sont examinés
+            fleet.move();
+        }
+        runwayScheduler.updateReadiness(navigator.due, tickCount); // Les avions traités ont pu changer de route ou repartir
+        ++tickCount;
+    }
+
+    /**
+     * Cette fonction va checker les coordonées des avions et enlever les objets en dehors des coordonnées
+     * Elle va aussi rajouter les avions dus, selon les taux de la difficulté (voir SpawnScheduler)
+     */
+    public void cleanupPlanes() {
+        int i = 0;
+        while (i < fleet.size()) {
+            if(isTooCloseToAPlane(fleet.x[i], fleet.y[i], i) && !gameOver) {
+                gameOver = true;
+                listener.onGameOver();
+                ++i;
+            }
+            else if (fleet.isOutOfScreen(i) || fleet.markedForRemoval[i]) {
+                spawner.release(fleet.name[i]);
+                runwayScheduler.cancel(fleet.getHandle(i));
+                ++planesRemoved;
+                fleet.remove(i); // Le dernier avion prend la position i, on ne passe donc pas au suivant
+                listener.onPlanesChanged();
+            }
+            else ++i;
+        }
+        if (spawner.update())
+            listener.onPlanesChanged();
+    }
+}
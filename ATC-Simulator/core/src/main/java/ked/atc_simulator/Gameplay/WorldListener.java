@@ -0,0 +1,18 @@
+package ked.atc_simulator.Gameplay;
+
+/**
+ * Interface permettant au monde de prévenir l'extérieur (l'application, un test, ...) des évènements de la partie
+ * Les méthodes sont appelées depuis le thread qui fait avancer la simulation
+ */
+public interface WorldListener {
+
+    /**
+     * Appelée quand un avion est ajouté ou supprimé du jeu
+     */
+    void onPlanesChanged();
+
+    /**
+     * Appelée une seule fois, quand deux avions sont trop proches
+     */
+    void onGameOver();
+}
@@ -0,0 +1,263 @@
+package ked.atc_simulator.Server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import ked.atc_simulator.Entities.Plane;
+import ked.atc_simulator.Gameplay.ParkingRoute;
+import ked.atc_simulator.Gameplay.RunwayScheduler;
+import ked.atc_simulator.Gameplay.World;
+
+/**
+ * Interface texte du serveur de simulation, une commande par ligne, uniquement sur la boucle locale
+ * Chaque réponse commence par OK ou ERR. Commandes :
+ *   create [difficulté] [graine]       crée une session, répond son identifiant
+ *   close <session>                    ferme une session
+ *   state <session>                    tick, nombre d'avions et fin de partie
+ *   planes <session>                   une ligne par avion : nom x y route comportement
+ *   takeoff|land <session> <avion>     demande la piste pour un décollage ou un atterrissage
+ *   taxi <session> <avion> <parking>   envoie l'avion vers un parking
+ *   stop|continue <session> <avion>    arrête l'avion ou le laisse continuer jusqu'à la piste
+ *   stats                              sessions, ticks et retards du serveur
+ *   quit                               ferme la connexion
+ * Les commandes sur un avion sont exécutées avant le prochain tick de la session
+ */
+public class CommandServer implements Runnable {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final SimulationServer server;
+    private final ServerSocket socket;
+    private Thread thread;
+
+    /**
+     * Constructeur de la classe CommandServer
+     * @param server
+     * @param port
+     * @throws IOException
+     */
+    public CommandServer(SimulationServer server, int port) throws IOException {
+        this.server = server;
+        socket = new ServerSocket(port, 50, InetAddress.getByName(null));
+    }
+
+    /**
+     * Démarre le thread qui accepte les connexions
+     */
+    public synchronized void start() {
+        thread = new Thread(this, "CommandServer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Ferme le port, les connexions en cours se terminent à leur prochaine lecture
+     */
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!socket.isClosed()) {
+            final Socket client;
+            try {
+                client = socket.accept();
+            } catch (IOException e) {
+                return; // Port fermé
+            }
+            Thread connection = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    serve(client);
+                }
+            }, "CommandServer-" + client.getPort());
+            connection.setDaemon(true);
+            connection.start();
+        }
+    }
+
+    /**
+     * Lit les commandes d'une connexion jusqu'à quit ou jusqu'à sa fermeture
+     * @param client
+     */
+    private void serve(Socket client) {
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), UTF8));
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(client.getOutputStream(), UTF8), true);
+            String line;
+            while (!socket.isClosed() && (line = in.readLine()) != null) {
+                if (line.trim().equals("quit"))
+                    break;
+                out.println(execute(line));
+            }
+        } catch (IOException e) {
+            // Connexion coupée par le client
+        } finally {
+            try {
+                client.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Exécute une ligne de commande et retourne la réponse
+     * @param line
+     * @return
+     */
+    public String execute(String line) {
+        String[] args = line.trim().split("\\s+");
+        try {
+            switch (args[0]) {
+                case "create":
+                    int difficulty = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+                    long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+                    if (difficulty < 0 || difficulty > 2)
+                        return "ERR difficulté inconnue";
+                    return "OK " + server.createSession(difficulty, seed).getId();
+                case "close":
+                    return server.closeSession(Integer.parseInt(args[1])) ? "OK" : "ERR session inconnue";
+                case "state":
+                    return state(session(args));
+                case "planes":
+                    return planes(session(args));
+                case "takeoff":
+                    return submit(args, 3, new PlaneCommand(args[2]) {
+                        @Override
+                        void apply(World world, Plane plane) {
+                            plane.requestRunway(RunwayScheduler.DEPARTURE);
+                        }
+                    });
+                case "land":
+                    return submit(args, 3, new PlaneCommand(args[2]) {
+                        @Override
+                        void apply(World world, Plane plane) {
+                            plane.requestRunway(RunwayScheduler.ARRIVAL);
+                        }
+                    });
+                case "taxi":
+                    final String parking = args.length > 3 ? args[3] : "";
+                    return submit(args, 4, new PlaneCommand(args[2]) {
+                        @Override
+                        void apply(World world, Plane plane) {
+                            ParkingRoute route = world.getParkingRouteByName(parking);
+                            if (route == world.getEmptyParkingRoute())
+                                return;
+                            plane.setParkingRoute(route);
+                            plane.setBehavior(2);
+                        }
+                    });
+                case "stop":
+                    return submit(args, 3, new PlaneCommand(args[2]) {
+                        @Override
+                        void apply(World world, Plane plane) {
+                            plane.setBehavior(3);
+                        }
+                    });
+                case "continue":
+                    return submit(args, 3, new PlaneCommand(args[2]) {
+                        @Override
+                        void apply(World world, Plane plane) {
+                            plane.setBehavior(2);
+                        }
+                    });
+                case "stats":
+                    return "OK sessions=" + server.getSessionCount() + " ticks=" + server.getSessionTicks()
+                            + " retards=" + server.getOverruns();
+                default:
+                    return "ERR commande inconnue";
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return "ERR argument manquant";
+        } catch (NumberFormatException e) {
+            return "ERR nombre invalide";
+        } catch (IllegalArgumentException e) {
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    /**
+     * Retourne la session désignée par le deuxième argument
+     * @param args
+     * @return
+     */
+    private Session session(String[] args) {
+        Session session = server.getSession(Integer.parseInt(args[1]));
+        if (session == null)
+            throw new IllegalArgumentException("session inconnue");
+        return session;
+    }
+
+    /**
+     * Ajoute une commande à une session
+     * @param args
+     * @param count - Le nombre d'arguments attendus, commande comprise
+     * @param command
+     * @return
+     */
+    private String submit(String[] args, int count, SessionCommand command) {
+        if (args.length < count)
+            return "ERR argument manquant";
+        return session(args).submit(command) ? "OK" : "ERR trop de commandes en attente";
+    }
+
+    private String state(Session session) {
+        World world = session.getWorld();
+        synchronized (world) {
+            return "OK tick=" + world.getTickCount() + " planes=" + world.getPlanes().size()
+                    + " gameover=" + world.isGameOver();
+        }
+    }
+
+    private String planes(Session session) {
+        World world = session.getWorld();
+        StringBuilder builder = new StringBuilder();
+        synchronized (world) {
+            List<Plane> planes = world.getPlanes();
+            builder.append("OK ").append(planes.size());
+            for (Plane plane : planes) {
+                builder.append('\n').append(plane.getName())
+                        .append(' ').append(Math.round(plane.getX()))
+                        .append(' ').append(Math.round(plane.getY()))
+                        .append(' ').append(plane.getRoute().getName())
+                        .append(' ').append(plane.getBehavior());
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Commande sur un avion désigné par son nom, ignorée si l'avion a quitté le jeu entre temps
+     */
+    private abstract static class PlaneCommand implements SessionCommand {
+
+        private final String name;
+
+        PlaneCommand(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void apply(World world) {
+            Plane plane = world.getPlaneByName(name);
+            if (plane != world.getEmptyPlane() && plane.isAlive())
+                apply(world, plane);
+        }
+
+        abstract void apply(World world, Plane plane);
+    }
+}
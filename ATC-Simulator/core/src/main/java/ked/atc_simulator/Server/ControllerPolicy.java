@@ -0,0 +1,19 @@
+package ked.atc_simulator.Server;
+
+import java.util.Random;
+
+import ked.atc_simulator.Gameplay.World;
+
+/**
+ * Contrôleur automatique d'une partie sans affichage, il remplace le joueur (voir ScenarioRunner)
+ * Une même instance peut servir à plusieurs parties en même temps : elle ne doit pas garder d'état
+ */
+public interface ControllerPolicy {
+
+    /**
+     * Donne les ordres du tick, appelée avant chaque tick du monde
+     * @param world
+     * @param random - Le hasard propre à la partie, pour qu'elle reste reproductible
+     */
+    void control(World world, Random random);
+}
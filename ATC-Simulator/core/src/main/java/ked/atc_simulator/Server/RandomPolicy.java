@@ -0,0 +1,53 @@
+package ked.atc_simulator.Server;
+
+import java.util.List;
+import java.util.Random;
+
+import ked.atc_simulator.Entities.Plane;
+import ked.atc_simulator.Gameplay.Fleet;
+import ked.atc_simulator.Gameplay.ParkingRoute;
+import ked.atc_simulator.Gameplay.RunwayScheduler;
+import ked.atc_simulator.Gameplay.World;
+import ked.atc_simulator.State.PlaneState;
+
+/**
+ * Contrôleur qui donne des ordres au hasard, à un rythme moyen fixé : arrêt, reprise, parking ou demande de piste
+ * Il sert de borne basse pour régler la difficulté, une partie doit rester jouable sans un contrôle parfait
+ * Les ordres passent par Plane, avec les mêmes règles que pour le joueur (on ne s'arrête que sur les taxiways, ...)
+ */
+public class RandomPolicy implements ControllerPolicy {
+
+    private final double commandsPerMinute;
+
+    /**
+     * Constructeur de la classe RandomPolicy
+     * @param commandsPerMinute - Nombre moyen d'ordres par minute de jeu
+     */
+    public RandomPolicy(double commandsPerMinute) {
+        this.commandsPerMinute = commandsPerMinute;
+    }
+
+    @Override
+    public void control(World world, Random random) {
+        Fleet fleet = world.getFleet();
+        if (fleet.size() == 0 || random.nextDouble() >= commandsPerMinute * fleet.getTimeStep() / 60)
+            return;
+        int slot = random.nextInt(fleet.size());
+        Plane plane = fleet.getPlane(slot);
+        switch (random.nextInt(4)) {
+            case 0:
+                plane.setBehavior(3);
+                break;
+            case 1:
+                plane.setBehavior(2);
+                break;
+            case 2:
+                List<ParkingRoute> parkings = world.getParkingRoutes();
+                plane.setParkingRoute(parkings.get(random.nextInt(parkings.size())));
+                break;
+            default:
+                plane.requestRunway(fleet.getStateId(slot) == PlaneState.ARRIVING ? RunwayScheduler.ARRIVAL : RunwayScheduler.DEPARTURE);
+                break;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ked.atc_simulator.Server;
+
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ked.atc_simulator.Gameplay.RunwayScheduler;
+import ked.atc_simulator.Gameplay.SpawnScheduler;
+import ked.atc_simulator.Gameplay.World;
+
+/**
+ * Lance des séries de parties sans affichage pour régler la difficulté (méthode de Monte Carlo)
+ * Chaque partie a sa graine et un contrôleur automatique (voir ControllerPolicy). Les parties sont réparties
+ * sur un thread par coeur, chaque thread prend la partie suivante dès qu'il a fini la sienne. Une partie ne garde
+ * que quelques compteurs, versés dans les agrégats (voir ScenarioStats) dès qu'elle est finie
+ */
+public class ScenarioRunner {
+
+    private static final long POLICY_SALT = 0x5DEECE66DL; // Le contrôleur ne tire pas dans le hasard du monde
+
+    private final int threads;
+    private final ExecutorService executor;
+
+    /**
+     * Constructeur de la classe ScenarioRunner
+     * @param threads - Le nombre de parties simulées en même temps, 0 pour une par coeur
+     */
+    public ScenarioRunner(int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(this.threads);
+    }
+
+    /**
+     * Arrête les threads du lanceur
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Simule une série de parties et attend leur fin
+     * @param difficulty
+     * @param runs - Le nombre de parties, de graines firstSeed à firstSeed + runs - 1
+     * @param firstSeed
+     * @param duration - La durée max d'une partie en secondes de jeu, elle s'arrête avant si elle est perdue
+     * @param policy
+     * @param report - Où afficher les agrégats en cours chaque seconde, null pour ne rien afficher
+     * @return
+     * @throws InterruptedException
+     * @throws IllegalStateException si une partie a échoué, avec sa graine et l'exception d'origine :
+     *                               les autres threads s'arrêtent et aucun agrégat partiel n'est retourné
+     */
+    public ScenarioStats run(final int difficulty, final int runs, final long firstSeed, final double duration,
+                             final ControllerPolicy policy, PrintStream report) throws InterruptedException {
+        final ScenarioStats stats = new ScenarioStats();
+        final AtomicLong next = new AtomicLong();
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; ++t) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long run = -1;
+                    try {
+                        while (failure.get() == null && (run = next.getAndIncrement()) < runs
+                                && !Thread.currentThread().isInterrupted())
+                            runScenario(difficulty, firstSeed + run, duration, policy, stats);
+                    } catch (RuntimeException | Error e) { // Sinon l'exécuteur l'avale et les agrégats seraient partiels
+                        failure.compareAndSet(null, new IllegalStateException("Scenario failed for seed " + (firstSeed + run), e));
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+        }
+        while (!done.await(1, TimeUnit.SECONDS)) {
+            if (report != null)
+                report.println("difficulté " + difficulty + " : " + stats);
+        }
+        if (failure.get() != null)
+            throw failure.get();
+        if (stats.getRuns() != runs)
+            throw new IllegalStateException("Only " + stats.getRuns() + " of " + runs + " scenarios finished");
+        return stats;
+    }
+
+    /**
+     * Simule une partie et verse son résultat dans les agrégats
+     * @param difficulty
+     * @param seed
+     * @param duration - En secondes de jeu
+     * @param policy
+     * @param stats
+     */
+    public static void runScenario(int difficulty, long seed, double duration, ControllerPolicy policy, ScenarioStats stats) {
+        World world = new World();
+        world.setDifficulty(difficulty);
+        world.createMockupPlanes();
+        world.setSeed(seed);
+        world.createStartingPlanes();
+        Random random = new Random(seed ^ POLICY_SALT);
+        RunwayScheduler runways = world.getRunwayScheduler();
+        double timeStep = world.getFleet().getTimeStep();
+        long ticks = (long) Math.ceil(duration / timeStep);
+
+        long firstConflict = -1;
+        long waiting = 0; // Somme sur les ticks du nombre d'avions qui attendent une piste
+        while (world.getTickCount() < ticks && !world.isGameOver()) {
+            policy.control(world, random);
+            world.tick();
+            if (firstConflict < 0 && world.getConflictProbe().getConflictCount() > 0)
+                firstConflict = world.getTickCount();
+            for (int r = 0; r < runways.getRunwayCount(); ++r)
+                waiting += runways.getQueueLength(r, RunwayScheduler.ARRIVAL) + runways.getQueueLength(r, RunwayScheduler.DEPARTURE);
+        }
+
+        double hours = world.getTickCount() * timeStep / 3600;
+        long grants = runways.getGrantCount();
+        stats.add(firstConflict < 0 ? -1 : firstConflict * timeStep, world.isGameOver(),
+                hours > 0 ? world.getPlanesRemoved() / hours : 0, grants > 0 ? waiting * timeStep / grants : -1);
+    }
+
+    /**
+     * Balaye les difficultés depuis la ligne de commande et affiche les agrégats
+     * Options : --runs N (par difficulté), --duration N (en secondes de jeu), --policy scripted|random,
+     * --commands N (ordres par minute du contrôleur au hasard), --difficulties 0,1,2, --threads N, --seed N
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        int runs = 1000, threads = 0;
+        double duration = 3600, commands = 6;
+        long seed = 0;
+        String policyName = "scripted", difficulties = "0,1,2";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--runs": runs = Integer.parseInt(args[i + 1]); break;
+                case "--duration": duration = Double.parseDouble(args[i + 1]); break;
+                case "--policy": policyName = args[i + 1]; break;
+                case "--commands": commands = Double.parseDouble(args[i + 1]); break;
+                case "--difficulties": difficulties = args[i + 1]; break;
+                case "--threads": threads = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+        ControllerPolicy policy;
+        switch (policyName) {
+            case "scripted": policy = new ScriptedPolicy(); break;
+            case "random": policy = new RandomPolicy(commands); break;
+            default: throw new IllegalArgumentException("Contrôleur inconnu : " + policyName);
+        }
+
+        ScenarioRunner runner = new ScenarioRunner(threads);
+        try {
+            for (String d : difficulties.split(",")) {
+                int difficulty = Integer.parseInt(d.trim());
+                if (difficulty < 0 || difficulty >= SpawnScheduler.DIFFICULTY_COUNT)
+                    throw new IllegalArgumentException("Difficulté inconnue : " + difficulty);
+                long start = System.nanoTime();
+                ScenarioStats stats = runner.run(difficulty, runs, seed, duration, policy, System.out);
+                System.out.printf("difficulté %d terminée en %.1f s : %s%n", difficulty,
+                        (System.nanoTime() - start) / 1e9, stats);
+            }
+        } finally {
+            runner.shutdown();
+        }
+    }
+}
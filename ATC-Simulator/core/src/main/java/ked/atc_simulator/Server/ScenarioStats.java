@@ -0,0 +1,105 @@
+package ked.atc_simulator.Server;
+
+import java.util.Locale;
+
+/**
+ * Agrégats d'une série de parties sans affichage (voir ScenarioRunner)
+ * Seuls des compteurs et des moyennes glissantes sont gardés : la mémoire ne dépend pas du nombre de parties
+ * Les méthodes sont synchronisées, les threads du lanceur y versent leurs résultats pendant qu'on les lit
+ */
+public class ScenarioStats {
+
+    private long runs;
+    private long collisions; // Parties perdues
+    private long conflictRuns; // Parties avec au moins un conflit prévu
+    private final Summary firstConflict = new Summary(); // En secondes de jeu, parties avec conflit seulement
+    private final Summary throughput = new Summary(); // Avions garés ou partis par heure de jeu
+    private final Summary holdTime = new Summary(); // Attente moyenne d'une piste, en secondes de jeu
+
+    /**
+     * Ajoute le résultat d'une partie
+     * @param firstConflict - Secondes de jeu avant le premier conflit prévu, négatif s'il n'y en a pas eu
+     * @param collision - Vrai si la partie est perdue
+     * @param throughput - Avions par heure de jeu
+     * @param holdTime - Attente moyenne d'une piste en secondes, négatif si aucune piste n'a été donnée
+     */
+    public synchronized void add(double firstConflict, boolean collision, double throughput, double holdTime) {
+        ++runs;
+        if (collision)
+            ++collisions;
+        if (firstConflict >= 0) {
+            ++conflictRuns;
+            this.firstConflict.add(firstConflict);
+        }
+        this.throughput.add(throughput);
+        if (holdTime >= 0)
+            this.holdTime.add(holdTime);
+    }
+
+    /**
+     * Retourne une copie des agrégats actuels
+     * @return
+     */
+    public synchronized ScenarioStats snapshot() {
+        ScenarioStats copy = new ScenarioStats();
+        copy.runs = runs;
+        copy.collisions = collisions;
+        copy.conflictRuns = conflictRuns;
+        copy.firstConflict.merge(firstConflict);
+        copy.throughput.merge(throughput);
+        copy.holdTime.merge(holdTime);
+        return copy;
+    }
+
+    public synchronized long getRuns() { return runs; }
+
+    public synchronized double getCollisionRate() { return runs == 0 ? 0 : (double) collisions / runs; }
+
+    public synchronized double getConflictRate() { return runs == 0 ? 0 : (double) conflictRuns / runs; }
+
+    public synchronized double getMeanFirstConflict() { return firstConflict.mean; }
+
+    public synchronized double getMeanThroughput() { return throughput.mean; }
+
+    public synchronized double getMeanHoldTime() { return holdTime.mean; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%d parties, %.1f%% perdues, %.1f%% avec conflit, premier conflit %s s, "
+                        + "%s avions/h, attente piste %s s", runs, 100 * getCollisionRate(), 100 * getConflictRate(),
+                firstConflict, throughput, holdTime);
+    }
+
+    /**
+     * Moyenne et écart type glissants (algorithme de Welford), fusionnables
+     */
+    private static class Summary {
+
+        private long count;
+        private double mean, m2;
+
+        void add(double value) {
+            ++count;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        }
+
+        void merge(Summary other) {
+            if (other.count == 0)
+                return;
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * count * other.count / total;
+            count = total;
+        }
+
+        @Override
+        public String toString() {
+            if (count == 0)
+                return "-";
+            return String.format(Locale.ROOT, "%.1f ± %.1f", mean, count > 1 ? Math.sqrt(m2 / (count - 1)) : 0);
+        }
+    }
+}
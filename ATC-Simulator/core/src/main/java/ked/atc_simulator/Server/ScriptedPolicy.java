@@ -0,0 +1,40 @@
+package ked.atc_simulator.Server;
+
+import java.util.List;
+import java.util.Random;
+
+import ked.atc_simulator.Gameplay.Fleet;
+import ked.atc_simulator.Gameplay.ParkingRoute;
+import ked.atc_simulator.Gameplay.RunwayScheduler;
+import ked.atc_simulator.Gameplay.World;
+import ked.atc_simulator.State.PlaneState;
+
+/**
+ * Contrôleur qui fait ce qu'un bon joueur ferait : chaque arrivée qui attend dans le circuit reçoit un parking
+ * puis demande la piste, chaque départ arrêté à son parking demande la piste. L'ordre de passage est celui
+ * de l'ordonnanceur des pistes (voir RunwayScheduler)
+ */
+public class ScriptedPolicy implements ControllerPolicy {
+
+    @Override
+    public void control(World world, Random random) {
+        Fleet fleet = world.getFleet();
+        RunwayScheduler runways = world.getRunwayScheduler();
+        long now = world.getTickCount();
+        for (int i = 0; i < fleet.size(); ++i) {
+            if (runways.isWaiting(fleet.getHandle(i)) || fleet.isMarkedForRemoval(i))
+                continue;
+            int stateId = fleet.getStateId(i), behavior = fleet.getBehavior(i);
+            if (stateId == PlaneState.ARRIVING && behavior == 1) {
+                if (fleet.getParkingRouteId(i) == Fleet.NO_PARKING) {
+                    List<ParkingRoute> parkings = world.getParkingRoutes();
+                    fleet.setParkingRouteId(i, parkings.get(random.nextInt(parkings.size())).getId());
+                }
+                runways.request(i, RunwayScheduler.ARRIVAL, now);
+            } else if (stateId == PlaneState.DEPARTING && behavior == 3
+                    && world.getRoute(fleet.getRouteId(i)) instanceof ParkingRoute) {
+                runways.request(i, RunwayScheduler.DEPARTURE, now);
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ked.atc_simulator.Server;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+import ked.atc_simulator.Gameplay.World;
+
+/**
+ * Une partie hébergée par le serveur de simulation (voir SimulationServer)
+ * Chaque session a son propre monde, sa difficulté et sa graine : rien n'est partagé avec les autres sessions
+ * à part le plan de l'aéroport, qui ne change pas. Sa mémoire est bornée : le nombre d'avions en jeu
+ * et le nombre de commandes en attente sont limités
+ */
+public class Session {
+
+    public static final int MAX_PLANES = 32; // Avions en jeu au plus, quelle que soit la difficulté
+    public static final int MAX_PENDING_COMMANDS = 64;
+
+    private final int id;
+    private final World world;
+    private final ArrayBlockingQueue<SessionCommand> commands;
+    private volatile boolean closed;
+
+    /**
+     * Constructeur de la classe Session
+     * @param id
+     * @param difficulty
+     * @param seed - La graine du tirage des avions, deux sessions avec la même graine et les mêmes commandes sont identiques
+     */
+    Session(int id, int difficulty, long seed) {
+        this.id = id;
+        world = new World();
+        world.setDifficulty(difficulty);
+        world.createMockupPlanes();
+        world.getSpawner().limitPlanes(MAX_PLANES);
+        world.setSeed(seed);
+        world.createStartingPlanes();
+        commands = new ArrayBlockingQueue<>(MAX_PENDING_COMMANDS);
+    }
+
+    /**
+     * Getter pour l'identifiant de la session
+     * @return
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter pour le monde de la session, il faut son verrou pour le lire pendant que la session tourne
+     * @return
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * Ajoute une commande, exécutée avant le prochain tick de la session
+     * @param command
+     * @return faux si trop de commandes sont déjà en attente ou si la session est fermée
+     */
+    public boolean submit(SessionCommand command) {
+        return !closed && commands.offer(command);
+    }
+
+    /**
+     * Exécute les commandes en attente puis fait avancer le monde d'un tick, à appeler par le thread de la session
+     * Une partie perdue n'avance plus
+     * @return vrai si un tick a été calculé
+     */
+    boolean step() {
+        synchronized (world) {
+            SessionCommand command;
+            while ((command = commands.poll()) != null)
+                command.apply(world);
+            if (world.isGameOver())
+                return false;
+            world.tick();
+            return true;
+        }
+    }
+
+    /**
+     * Ferme la session, elle n'avance plus et n'accepte plus de commandes
+     */
+    void close() {
+        closed = true;
+        commands.clear();
+    }
+
+    /**
+     * Vérifie si la session est fermée
+     * @return
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+}
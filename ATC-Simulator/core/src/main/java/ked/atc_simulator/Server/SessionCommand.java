@@ -0,0 +1,16 @@
+package ked.atc_simulator.Server;
+
+import ked.atc_simulator.Gameplay.World;
+
+/**
+ * Commande donnée à une session du serveur de simulation
+ * Elle est exécutée par le thread qui fait avancer la session, avec le verrou du monde, juste avant un tick
+ */
+public interface SessionCommand {
+
+    /**
+     * Exécute la commande
+     * @param world - Le monde de la session
+     */
+    void apply(World world);
+}
@@ -0,0 +1,268 @@
+package ked.atc_simulator.Server;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ked.atc_simulator.Gameplay.SimulationLoop;
+
+/**
+ * Serveur de simulation sans affichage : fait tourner de nombreuses parties (voir Session) en même temps
+ * Les sessions sont réparties entre quelques threads, un par coeur par défaut, plutôt qu'un thread par session :
+ * chaque thread fait avancer toutes ses sessions d'un tick, puis attend le tick suivant. Une session coûte donc
+ * un monde et une file de commandes, pas une pile de thread
+ */
+public class SimulationServer {
+
+    private final Worker[] workers;
+    private final ConcurrentHashMap<Integer, Session> sessions;
+    private final AtomicInteger nextId;
+    private final AtomicLong overruns; // Tours de boucle qui ont dépassé la durée d'un tick
+    private volatile long tickDuration; // Durée d'un tick en nanosecondes, 0 pour avancer le plus vite possible
+    private volatile boolean running;
+    private long lastSampleTime;
+    private long lastSampleTicks;
+
+    /**
+     * Constructeur de la classe SimulationServer
+     * @param threads - Le nombre de threads de simulation, 0 pour un par coeur
+     * @param rate - Le nombre de ticks par seconde de chaque session, 0 pour avancer le plus vite possible
+     */
+    public SimulationServer(int threads, int rate) {
+        if (threads <= 0)
+            threads = Runtime.getRuntime().availableProcessors();
+        workers = new Worker[threads];
+        for (int i = 0; i < threads; ++i)
+            workers[i] = new Worker(i);
+        sessions = new ConcurrentHashMap<>();
+        nextId = new AtomicInteger(1);
+        overruns = new AtomicLong();
+        setRate(rate);
+    }
+
+    /**
+     * Setter pour le nombre de ticks par seconde de chaque session, 0 pour avancer le plus vite possible
+     * @param rate
+     */
+    public void setRate(int rate) {
+        tickDuration = rate > 0 ? SimulationLoop.TICK_DURATION / rate : 0;
+    }
+
+    /**
+     * Démarre les threads de simulation
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+        running = true;
+        lastSampleTime = System.nanoTime();
+        lastSampleTicks = getSessionTicks();
+        for (Worker worker : workers) {
+            worker.thread = new Thread(worker, "SimulationServer-" + worker.index);
+            worker.thread.setDaemon(true);
+            worker.thread.start();
+        }
+    }
+
+    /**
+     * Arrête les threads de simulation et attend qu'ils aient fini leur tick en cours
+     */
+    public synchronized void stop() {
+        running = false;
+        for (Worker worker : workers) {
+            if (worker.thread == null)
+                continue;
+            worker.thread.interrupt();
+            try {
+                worker.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker.thread = null;
+        }
+    }
+
+    /**
+     * Crée une session et la confie au thread qui en a le moins
+     * @param difficulty
+     * @param seed
+     * @return
+     */
+    public Session createSession(int difficulty, long seed) {
+        Session session = new Session(nextId.getAndIncrement(), difficulty, seed);
+        sessions.put(session.getId(), session);
+        Worker target = workers[0];
+        for (Worker worker : workers)
+            if (worker.sessions.size() < target.sessions.size())
+                target = worker;
+        target.sessions.add(session);
+        return session;
+    }
+
+    /**
+     * Retourne la session qui porte cet identifiant, null si elle n'existe pas
+     * @param id
+     * @return
+     */
+    public Session getSession(int id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Ferme une session et libère son monde
+     * @param id
+     * @return faux si la session n'existe pas
+     */
+    public boolean closeSession(int id) {
+        Session session = sessions.remove(id);
+        if (session == null)
+            return false;
+        session.close();
+        for (Worker worker : workers)
+            if (worker.sessions.remove(session))
+                break;
+        return true;
+    }
+
+    /**
+     * Getter pour le nombre de sessions ouvertes
+     * @return
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Getter pour le nombre de threads de simulation
+     * @return
+     */
+    public int getThreadCount() {
+        return workers.length;
+    }
+
+    /**
+     * Getter pour le nombre total de ticks calculés, toutes sessions confondues
+     * @return
+     */
+    public long getSessionTicks() {
+        long ticks = 0;
+        for (Worker worker : workers)
+            ticks += worker.ticks;
+        return ticks;
+    }
+
+    /**
+     * Getter pour le nombre de tours de boucle qui ont pris plus longtemps qu'un tick
+     * S'il augmente, les sessions tournent moins vite que demandé : il y a trop de sessions par thread
+     * @return
+     */
+    public long getOverruns() {
+        return overruns.get();
+    }
+
+    /**
+     * Retourne le nombre de ticks calculés par seconde, toutes sessions confondues, depuis le dernier appel
+     * @return
+     */
+    public synchronized double sampleThroughput() {
+        long now = System.nanoTime();
+        long ticks = getSessionTicks();
+        double throughput = now > lastSampleTime ? (ticks - lastSampleTicks) * 1e9 / (now - lastSampleTime) : 0;
+        lastSampleTime = now;
+        lastSampleTicks = ticks;
+        return throughput;
+    }
+
+    /**
+     * Thread de simulation, il fait avancer ses sessions d'un tick à chaque tour de boucle
+     */
+    private class Worker implements Runnable {
+
+        private final int index;
+        private final CopyOnWriteArrayList<Session> sessions;
+        private volatile long ticks; // Écrit seulement par ce thread
+        private Thread thread;
+
+        Worker(int index) {
+            this.index = index;
+            sessions = new CopyOnWriteArrayList<>();
+        }
+
+        @Override
+        public void run() {
+            long next = System.nanoTime();
+            while (running) {
+                long count = ticks;
+                for (Session session : sessions)
+                    if (!session.isClosed() && session.step())
+                        ++count;
+                ticks = count;
+
+                long duration = tickDuration;
+                if (duration == 0) {
+                    if (sessions.isEmpty())
+                        Thread.yield();
+                    continue;
+                }
+                next += duration;
+                long now = System.nanoTime();
+                if (now > next) {
+                    // En retard : on ne rattrape pas, sinon toutes les sessions accélèreraient d'un coup
+                    overruns.incrementAndGet();
+                    next = now;
+                    continue;
+                }
+                try {
+                    Thread.sleep((next - now) / 1000000L, (int) ((next - now) % 1000000L));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lance un serveur de simulation depuis la ligne de commande et affiche son débit chaque seconde
+     * Options : --sessions N, --threads N, --rate N (ticks par seconde, 0 au plus vite), --difficulty N,
+     * --port N (commandes texte sur la boucle locale, voir CommandServer), --duration N (en secondes, 0 sans fin)
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        int sessionCount = 100, threads = 0, rate = 1, difficulty = 0, port = 0, duration = 0;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "--sessions": sessionCount = value; break;
+                case "--threads": threads = value; break;
+                case "--rate": rate = value; break;
+                case "--difficulty": difficulty = value; break;
+                case "--port": port = value; break;
+                case "--duration": duration = value; break;
+                default: throw new IllegalArgumentException("Option inconnue : " + args[i]);
+            }
+        }
+
+        SimulationServer server = new SimulationServer(threads, rate);
+        for (int i = 0; i < sessionCount; ++i)
+            server.createSession(difficulty, i);
+        CommandServer commands = null;
+        if (port > 0) {
+            commands = new CommandServer(server, port);
+            commands.start();
+        }
+        server.start();
+        System.out.println(sessionCount + " sessions, " + server.getThreadCount() + " threads");
+
+        for (int s = 0; duration == 0 || s < duration; ++s) {
+            Thread.sleep(1000);
+            System.out.printf("%d sessions, %.0f ticks/s, %d ticks, %d retards%n", server.getSessionCount(),
+                    server.sampleThroughput(), server.getSessionTicks(), server.getOverruns());
+        }
+
+        if (commands != null)
+            commands.close();
+        server.stop();
+    }
+}
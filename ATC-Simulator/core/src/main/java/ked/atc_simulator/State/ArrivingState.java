@@ -1,7 +1,7 @@
 package ked.atc_simulator.State;
 
-import ked.atc_simulator.Gameplay.GameMgr;
 import ked.atc_simulator.Gameplay.Route;
+import ked.atc_simulator.Gameplay.World;
 
 /**
  * Classe fille de PlaneState basée sur le StatePattern
@@ -11,15 +11,15 @@ import ked.atc_simulator.Gameplay.Route;
 
 public class ArrivingState extends PlaneState {
 
-    private GameMgr gameMgr;
+    private World world;
 
     /**
      * Constructeur de la classe ArrivingState
-     * @param gameMgr
+     * @param world
      */
-    public ArrivingState(GameMgr gameMgr){
-        super("ArrivingState");
-        this.gameMgr = gameMgr;
+    public ArrivingState(World world){
+        super("ArrivingState", ARRIVING);
+        this.world = world;
     }
 
     /**
@@ -28,7 +28,7 @@ public class ArrivingState extends PlaneState {
      */
     @Override
     public Route baseAction(){
-        return gameMgr.getFinale();
+        return world.getFinale();
     }
 
     /**
@@ -37,6 +37,6 @@ public class ArrivingState extends PlaneState {
      */
     @Override
     public Route crosswindRNAction(){
-        return gameMgr.getDownwind();
+        return world.getDownwind();
     }
 }
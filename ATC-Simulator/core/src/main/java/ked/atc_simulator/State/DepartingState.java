@@ -1,7 +1,7 @@
 package ked.atc_simulator.State;
 
-import ked.atc_simulator.Gameplay.GameMgr;
 import ked.atc_simulator.Gameplay.Route;
+import ked.atc_simulator.Gameplay.World;
 
 /**
  * Classe fille de PlaneState basée sur le StatePattern
@@ -11,15 +11,15 @@ import ked.atc_simulator.Gameplay.Route;
 
 public class DepartingState extends PlaneState {
 
-    private GameMgr gameMgr;
+    private World world;
 
     /**
      * Constructeur de la classe DepartingState
-     * @param gameMgr
+     * @param world
      */
-    public DepartingState(GameMgr gameMgr){
-        super("DepartingState");
-        this.gameMgr = gameMgr;
+    public DepartingState(World world){
+        super("DepartingState", DEPARTING);
+        this.world = world;
     }
 
     /**
@@ -27,7 +27,7 @@ public class DepartingState extends PlaneState {
      * @return
      */
     public Route baseAction(){
-        return gameMgr.getUpwind();
+        return world.getUpwind();
     }
 
     /**
@@ -35,7 +35,7 @@ public class DepartingState extends PlaneState {
      * @return
      */
     public Route crosswindRNAction(){
-        return new Route(175, 90, "StraitEastDeparture", 3, 3,null);
+        return world.getStraitEastDeparture();
     }
 
 
@@ -10,14 +10,21 @@ import ked.atc_simulator.Gameplay.Route;
 
 public abstract class PlaneState {
 
+    public static final int ARRIVING = 0; // Identifiants des états, stockés tels quels dans la flotte
+    public static final int DEPARTING = 1;
+    public static final int COUNT = 2;
+
     private String name;
+    private int id;
 
     /**
      * Constructeur de la classe PlaneState
      * @param name
+     * @param id - L'identifiant de l'état (ARRIVING ou DEPARTING)
      */
-    public PlaneState(String name){
+    public PlaneState(String name, int id){
         this.name = name;
+        this.id = id;
     }
 
     /**
@@ -28,6 +35,14 @@ public abstract class PlaneState {
         return name;
     }
 
+    /**
+     * Getter de l'identifiant de l'état
+     * @return
+     */
+    public int getId(){
+        return id;
+    }
+
     /**
      * Getter de l'action à effectuer à la route "base"
      * @return
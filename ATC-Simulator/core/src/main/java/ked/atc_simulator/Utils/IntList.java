@@ -0,0 +1,57 @@
+package ked.atc_simulator.Utils;
+
+/**
+ * Liste d'entiers qui grandit au besoin, sans boxing
+ * Elle est faite pour être réutilisée d'un tick à l'autre : clear() ne libère pas la mémoire
+ */
+public class IntList {
+
+    private int[] values;
+    private int size;
+
+    /**
+     * Constructeur de la classe IntList
+     * @param capacity - La capacité initiale
+     */
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+        size = 0;
+    }
+
+    /**
+     * Ajoute une valeur à la fin de la liste
+     * @param value
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            int[] newValues = new int[values.length * 2];
+            System.arraycopy(values, 0, newValues, 0, size);
+            values = newValues;
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Getter pour la valeur à une position donnée
+     * @param i
+     * @return
+     */
+    public int get(int i) {
+        return values[i];
+    }
+
+    /**
+     * Getter pour le nombre de valeurs
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Vide la liste
+     */
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,121 @@
+package ked.atc_simulator.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Registre de noms (indicatifs, noms de routes) : chaque nom reçoit un identifiant dense, 0, 1, 2...
+ * dans l'ordre d'enregistrement, et garde cet identifiant ensuite
+ * La recherche d'un nom se fait en temps constant dans une table de hachage à adressage ouvert,
+ * sans boxing : elle peut être faite à chaque tick même avec des milliers de noms
+ */
+public class NameRegistry {
+
+    private static final int NONE = -1;
+
+    private String[] names; // Nom de chaque identifiant, les chaînes sont gardées telles qu'enregistrées
+    private int[] hashes; // Hash de chaque identifiant
+    private int[] table; // Identifiant pour chaque case, NONE si la case est vide
+    private int size;
+
+    /**
+     * Constructeur de la classe NameRegistry
+     * @param capacity - Le nombre de noms prévus
+     */
+    public NameRegistry(int capacity) {
+        capacity = Math.max(capacity, 4);
+        names = new String[capacity];
+        hashes = new int[capacity];
+        table = new int[tableSize(capacity)];
+        Arrays.fill(table, NONE);
+    }
+
+    /**
+     * Retourne l'identifiant d'un nom, en l'enregistrant s'il ne l'est pas encore
+     * @param name
+     * @return
+     */
+    public int intern(String name) {
+        int hash = mix(name.hashCode());
+        int cell = find(name, hash);
+        if (table[cell] != NONE)
+            return table[cell];
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        names[id] = name;
+        hashes[id] = hash;
+        table[cell] = id;
+        if (size * 2 > table.length) // Table remplie au plus à moitié pour garder des recherches courtes
+            rehash();
+        return id;
+    }
+
+    /**
+     * Retourne l'identifiant d'un nom, -1 s'il n'est pas enregistré
+     * @param name
+     * @return
+     */
+    public int idOf(String name) {
+        return table[find(name, mix(name.hashCode()))];
+    }
+
+    /**
+     * Getter pour le nom d'un identifiant
+     * @param id
+     * @return
+     */
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    /**
+     * Getter pour le nombre de noms enregistrés
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retourne la case du nom, ou la case vide où il serait rangé
+     */
+    private int find(String name, int hash) {
+        int mask = table.length - 1;
+        int cell = hash & mask;
+        while (true) {
+            int id = table[cell];
+            if (id == NONE || (hashes[id] == hash && names[id].equals(name)))
+                return cell;
+            cell = (cell + 1) & mask;
+        }
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        Arrays.fill(table, NONE);
+        int mask = table.length - 1;
+        for (int id = 0; id < size; ++id) {
+            int cell = hashes[id] & mask;
+            while (table[cell] != NONE)
+                cell = (cell + 1) & mask;
+            table[cell] = id;
+        }
+    }
+
+    private static int tableSize(int capacity) {
+        int size = 8;
+        while (size < capacity * 2)
+            size <<= 1;
+        return size;
+    }
+
+    /**
+     * Mélange les bits du hash, les hash des chaînes proches (T1, T2...) se suivent
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,127 @@
+package ked.atc_simulator.Utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Réserve d'objets réutilisables, pour ne pas allouer pendant la partie
+ * Un objet est pris avec acquire() et rendu avec release(), il est ensuite redonné au prochain acquire()
+ *
+ * Avec les vérifications activées (versions de debug, tests), la réserve suit les objets sortis :
+ * rendre deux fois le même objet, ou un objet qui ne vient pas de la réserve, lève une IllegalStateException,
+ * et checkNoLeaks() en lève une s'il reste des objets sortis
+ * @param <T>
+ */
+public abstract class ObjectPool<T> {
+
+    private static boolean leakChecks = false; // Réglé par l'application selon le type de version
+
+    private Object[] free;
+    private int freeCount;
+    private int created, outstanding;
+    private final Set<T> acquired; // Objets sortis, suivis uniquement avec les vérifications
+
+    /**
+     * Constructeur de la classe ObjectPool
+     * @param capacity - Le nombre d'objets créés d'avance
+     */
+    public ObjectPool(int capacity) {
+        free = new Object[Math.max(capacity, 1)];
+        acquired = leakChecks ? Collections.newSetFromMap(new IdentityHashMap<T, Boolean>()) : null;
+        for (int i = 0; i < capacity; ++i) {
+            free[freeCount++] = create();
+            ++created;
+        }
+    }
+
+    /**
+     * Active ou non les vérifications pour les réserves créées ensuite
+     * @param enabled
+     */
+    public static void setLeakChecks(boolean enabled) {
+        leakChecks = enabled;
+    }
+
+    /**
+     * Getter pour l'état des vérifications
+     * @return
+     */
+    public static boolean isLeakChecks() {
+        return leakChecks;
+    }
+
+    /**
+     * Crée un nouvel objet, appelée quand la réserve est vide
+     * @return
+     */
+    protected abstract T create();
+
+    /**
+     * Remet un objet rendu dans son état initial, ne fait rien par défaut
+     * @param object
+     */
+    protected void reset(T object) {
+    }
+
+    /**
+     * Prend un objet de la réserve, un nouveau n'est créé que si elle est vide
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        T object;
+        if (freeCount > 0) {
+            object = (T) free[--freeCount];
+            free[freeCount] = null;
+        } else {
+            object = create();
+            ++created;
+        }
+        ++outstanding;
+        if (acquired != null)
+            acquired.add(object);
+        return object;
+    }
+
+    /**
+     * Rend un objet à la réserve, il ne doit plus être utilisé par l'appelant
+     * @param object
+     */
+    public void release(T object) {
+        if (acquired != null && !acquired.remove(object))
+            throw new IllegalStateException("Object released twice or not acquired from this pool: " + object);
+        reset(object);
+        if (freeCount == free.length)
+            free = Arrays.copyOf(free, free.length * 2);
+        free[freeCount++] = object;
+        --outstanding;
+    }
+
+    /**
+     * Getter pour le nombre d'objets sortis
+     * @return
+     */
+    public int getOutstanding() {
+        return outstanding;
+    }
+
+    /**
+     * Getter pour le nombre d'objets créés depuis la création de la réserve
+     * @return
+     */
+    public int getCreated() {
+        return created;
+    }
+
+    /**
+     * Vérifie que tous les objets ont été rendus, à appeler quand plus personne ne doit en avoir
+     * Ne fait rien si les vérifications ne sont pas activées
+     * @param name - Le nom de la réserve, pour le message d'erreur
+     */
+    public void checkNoLeaks(String name) {
+        if (acquired != null && !acquired.isEmpty())
+            throw new IllegalStateException(name + ": " + acquired.size() + " object(s) never released");
+    }
+}
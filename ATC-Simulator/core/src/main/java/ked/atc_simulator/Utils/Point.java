@@ -1,4 +1,4 @@
-package ked.atc_simulator.Canvas;
+package ked.atc_simulator.Utils;
 
 
 /**
@@ -0,0 +1,85 @@
+package ked.atc_simulator.Gameplay;
+
+import org.junit.Test;
+
+import ked.atc_simulator.Entities.Plane;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de la prévision des conflits
+ */
+public class ConflictProbeTest {
+
+    @Test
+    public void headOnPlanesArePredictedBeforeLossOfSeparation() throws Exception {
+        World world = new World();
+        Plane east = world.addPlane("EAST", 500, 850, 90, 1, world.getUpwind(), world.getArrivingState());
+        Plane west = world.addPlane("WEST", 900, 850, 270, 1, world.getDownwind(), world.getArrivingState());
+        world.updatePlanes();
+
+        ConflictProbe probe = new ConflictProbe(world.getFleet());
+        probe.update(1);
+        assertEquals(1, probe.getConflictCount());
+        assertTrue(probe.getTimeToConflict(0) > 5 && probe.getTimeToConflict(0) < 10);
+        assertEquals(0, probe.getMissDistance(0), 0.01);
+        assertTrue(probe.isInConflict(0) && probe.isInConflict(1));
+        assertTrue(east.getHandle() == probe.getConflictPlaneA(0) || east.getHandle() == probe.getConflictPlaneB(0));
+        assertTrue(west.getHandle() == probe.getConflictPlaneA(0) || west.getHandle() == probe.getConflictPlaneB(0));
+    }
+
+    @Test
+    public void unchangedPairsAreNotRecomputed() throws Exception {
+        World world = new World();
+        for (int i = 0; i < 50; ++i)
+            world.addPlane("T" + i, 200 + (i % 10) * 30, 300 + (i / 10) * 30, 90, 1, world.getUpwind(), world.getArrivingState());
+        world.updatePlanes();
+
+        ConflictProbe probe = new ConflictProbe(world.getFleet());
+        probe.update(1);
+        assertTrue(probe.getPairsComputed() > 0);
+        int conflicts = probe.getConflictCount();
+
+        world.updatePlanes(); // Tout le monde garde le même cap et la même vitesse
+        probe.update(2);
+        assertEquals(0, probe.getPairsComputed());
+        assertEquals(conflicts, probe.getConflictCount());
+    }
+
+    @Test
+    public void conflictsMatchFullPairScan() throws Exception {
+        World world = new World();
+        Route[] routes = { world.getUpwind(), world.getDownwind(), world.getCrosswind(), world.getBase(), world.getAlpha() };
+        for (int i = 0; i < 300; ++i)
+            world.addPlane("T" + i, (i * 37) % 1900 + 10, (i * 53) % 1060 + 10, 0, 1, routes[i % routes.length], world.getArrivingState());
+
+        Fleet fleet = world.getFleet();
+        ConflictProbe probe = new ConflictProbe(fleet);
+        for (int t = 1; t <= 30; ++t) {
+            world.updatePlanes();
+            probe.update(t);
+            assertEquals(countConflicts(fleet, probe.getHorizon(), probe.getAlertDistance()), probe.getConflictCount());
+            for (int k = 1; k < probe.getConflictCount(); ++k)
+                assertTrue(probe.getTimeToConflict(k - 1) <= probe.getTimeToConflict(k));
+        }
+    }
+
+    /**
+     * Compte les conflits en testant toutes les paires, en échantillonnant les trajectoires
+     */
+    private int countConflicts(Fleet fleet, int horizon, float distance) {
+        int count = 0;
+        for (int a = 0; a < fleet.size(); ++a) {
+            for (int b = a + 1; b < fleet.size(); ++b) {
+                double dx = fleet.getX(b) - fleet.getX(a), dy = fleet.getY(b) - fleet.getY(a);
+                double wx = fleet.getVelocityX(b) - fleet.getVelocityX(a), wy = fleet.getVelocityY(b) - fleet.getVelocityY(a);
+                double ww = wx * wx + wy * wy;
+                double t = ww == 0 ? 0 : Math.max(0, Math.min(horizon, -(dx * wx + dy * wy) / ww));
+                double ex = dx + wx * t, ey = dy + wy * t;
+                if (ex * ex + ey * ey < (double) distance * distance)
+                    ++count;
+            }
+        }
+        return count;
+    }
+}
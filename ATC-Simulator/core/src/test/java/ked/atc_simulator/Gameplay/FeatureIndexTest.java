@@ -0,0 +1,53 @@
+package ked.atc_simulator.Gameplay;
+
+import org.junit.Test;
+
+import ked.atc_simulator.Utils.IntList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de l'index des éléments fixes et de la recherche des avions dans un rectangle
+ */
+public class FeatureIndexTest {
+
+    @Test
+    public void queryReturnsEachOverlappingFeatureOnce() throws Exception {
+        FeatureIndex index = new FeatureIndex();
+        int runway = index.add(100, 500, 1800, 540); // Recouvre toute une rangée de cases
+        int parking = index.add(1500, 900, 1540, 940);
+        IntList found = new IntList(4);
+
+        index.query(0, 0, World.WIDTH, World.HEIGHT, found);
+        assertEquals(2, found.size());
+
+        found.clear();
+        index.query(200, 450, 700, 600, found);
+        assertEquals(1, found.size());
+        assertEquals(runway, found.get(0));
+
+        found.clear();
+        index.query(1450, 850, 1600, 1000, found);
+        assertEquals(1, found.size());
+        assertEquals(parking, found.get(0));
+    }
+
+    @Test
+    public void planesOutsideTheRectangleAreNotFound() throws Exception {
+        World world = new World();
+        for (int i = 0; i < 20; ++i)
+            world.addPlane("T" + i, 100 + i * 90, 300, 90, 1, world.getUpwind(), world.getArrivingState());
+        world.updatePlanes();
+
+        IntList found = new IntList(4);
+        world.findPlanesIn(0, 0, 960, 1080, found);
+        Fleet fleet = world.getFleet();
+        int expected = 0;
+        for (int i = 0; i < fleet.size(); ++i)
+            if (fleet.getX(i) <= 960)
+                ++expected;
+        assertEquals(expected, found.size());
+        for (int k = 0; k < found.size(); ++k)
+            assertTrue(fleet.getX(found.get(k)) <= 960);
+    }
+}
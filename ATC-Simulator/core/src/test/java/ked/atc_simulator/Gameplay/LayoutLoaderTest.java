@@ -0,0 +1,70 @@
+package ked.atc_simulator.Gameplay;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du chargement des plans d'aéroport et de leur cache binaire
+ */
+public class LayoutLoaderTest {
+
+    private InputStream defaultLayout() {
+        return LayoutLoaderTest.class.getResourceAsStream("/layouts/default.layout");
+    }
+
+    @Test
+    public void cachedLayoutMatchesParsedLayout() throws Exception {
+        File cache = File.createTempFile("default", ".layout.bin");
+        assertTrue(cache.delete());
+        try {
+            AirportLayout parsed = LayoutLoader.load(defaultLayout(), cache); // Ecrit le cache
+            assertTrue(cache.isFile());
+            AirportLayout cached = LayoutLoader.load(defaultLayout(), cache); // Relit le cache
+
+            assertEquals(parsed.getRouteCount(), cached.getRouteCount());
+            for (int r = 0; r < parsed.getRouteCount(); ++r)
+                assertEquals(parsed.getRouteName(r), cached.getRouteName(r));
+            TransitionTable a = parsed.getTransitions(), b = cached.getTransitions();
+            assertArrayEquals(a.target, b.target);
+            assertArrayEquals(a.capture, b.capture);
+            assertArrayEquals(a.post, b.post);
+            assertArrayEquals(a.speedMode, b.speedMode);
+            assertTrue(Arrays.equals(a.headingOffset, b.headingOffset));
+            assertTrue(Arrays.equals(a.runwayEnd, b.runwayEnd));
+            TaxiRouter c = parsed.getTaxiRouter(), d = cached.getTaxiRouter();
+            for (int from = 0; from < parsed.getRouteCount(); ++from) {
+                for (int to = 0; to < parsed.getRouteCount(); ++to) {
+                    assertEquals(c.nextHop(from, to), d.nextHop(from, to));
+                    assertEquals(c.getDistance(from, to), d.getDistance(from, to), 0);
+                }
+            }
+
+            World world = new World(cached);
+            assertSame(world.getCharlie(), world.getRouteByName("Charlie"));
+            assertEquals(6, world.getParkingRoutes().size());
+        } finally {
+            cache.delete();
+        }
+    }
+
+    @Test
+    public void invalidLineIsReported() throws Exception {
+        String text = "# Plan incomplet\n"
+                + "runway 150 850 1000 90\n"
+                + "route Upwind 2 90 1000 850 150 850 Nowhere\n";
+        try {
+            LayoutLoader.parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+            fail("Unknown route not reported");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Layout line 3:"));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ked.atc_simulator.Gameplay;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ked.atc_simulator.Entities.Plane;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de la navigation par évènements programmés
+ */
+public class NavigatorTest {
+
+    /**
+     * Ajoute le même trafic dans un monde : des départs sur chaque parking et des arrivées en attente avec un parking
+     */
+    private List<Plane> addTraffic(World world) {
+        List<Plane> planes = new ArrayList<>();
+        List<ParkingRoute> parkings = world.getParkingRoutes();
+        for (int i = 0; i < parkings.size(); ++i) {
+            ParkingRoute parking = parkings.get(i);
+            planes.add(world.addPlane("D" + i, parking.getStartPoint().x, 715, 0, 0, parking, world.getDepartingState()));
+            Plane arriving = i % 2 == 0
+                    ? world.addPlane("A" + i, 150, 850 - i * 3, 90, 1, world.getUpwind(), world.getArrivingState())
+                    : world.addPlane("A" + i, 1750, 200 + i * 3, 270, 1, world.getDownwind(), world.getArrivingState());
+            arriving.setParkingRoute(parking);
+            planes.add(arriving);
+        }
+        return planes;
+    }
+
+    @Test
+    public void scheduledNavigationMatchesPolling() throws Exception {
+        World scheduled = new World(), polled = new World();
+        List<Plane> a = addTraffic(scheduled), b = addTraffic(polled);
+        Navigator polling = new Navigator(polled, polled.getFleet());
+        Fleet fa = scheduled.getFleet(), fb = polled.getFleet();
+
+        for (int tick = 0; tick < 6000; ++tick) {
+            for (int p = 0; p < a.size(); ++p) { // Autorisations données par le contrôleur à des moments différents
+                if (tick == 150 + p * 97 || tick == 900 + p * 61) {
+                    int current = b.get(p).getBehavior(); // Les départs sont arrêtés avant la piste puis relâchés
+                    int behavior = current == 0 && p % 2 == 0 ? 2 : 0;
+                    a.get(p).setBehavior(behavior);
+                    b.get(p).setBehavior(behavior);
+                }
+            }
+            scheduled.updatePlanes();
+            fb.savePreviousState();
+            polling.updateAll();
+            fb.move();
+
+            for (int p = 0; p < a.size(); ++p) {
+                int i = fa.slotOf(a.get(p).getHandle()), j = fb.slotOf(b.get(p).getHandle());
+                assertEquals(fb.getRouteId(j), fa.getRouteId(i));
+                assertEquals(fb.getBehavior(j), fa.getBehavior(i));
+                assertEquals(fb.getX(j), fa.getX(i), 0);
+                assertEquals(fb.getY(j), fa.getY(i), 0);
+                assertEquals(fb.getSpeed(j), fa.getSpeed(i), 0);
+                assertEquals(fb.isMarkedForRemoval(j), fa.isMarkedForRemoval(i));
+            }
+        }
+    }
+
+    @Test
+    public void straightLegsAreNotExaminedEveryTick() throws Exception {
+        World world = new World();
+        world.addPlane("N851TB", 150, 850, 90, 1, world.getUpwind(), world.getArrivingState());
+        EventScheduler scheduler = world.getFleet().getScheduler();
+
+        int examined = 0;
+        for (int tick = 0; tick < 1000; ++tick) {
+            if (scheduler.hasEventUntil(world.getTickCount()))
+                ++examined;
+            world.updatePlanes();
+        }
+        assertTrue(examined < 100); // Un réveil par changement de route et quelques-uns pour les arrondis
+    }
+
+    @Test
+    public void longTicksDoNotMissTurns() throws Exception {
+        for (double timeStep : new double[]{1, 5, 15}) {
+            World world = new World();
+            world.setTimeStep(timeStep);
+            Plane holding = world.addPlane("H", 150, 850, 90, 1, world.getUpwind(), world.getArrivingState());
+            Plane waiting = world.addPlane("W", 1000, 685, 270, 2, world.getCharlie(), world.getDepartingState());
+
+            boolean sawBase = false;
+            for (int tick = 0; tick * timeStep < 3000; ++tick) {
+                world.updatePlanes();
+                sawBase |= holding.getRoute() == world.getBase();
+                assertFalse(holding.isOutOfScreen());
+            }
+            assertTrue(sawBase);
+            // L'avion s'arrête au même endroit avant la piste, quelle que soit la durée d'un tick
+            assertSame(world.getAlpha(), waiting.getRoute());
+            assertEquals(3, waiting.getBehavior());
+            assertEquals(465, waiting.getX(), 0.01);
+            assertEquals(555, waiting.getY(), 0.01);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ked.atc_simulator.Gameplay;
+
+import org.junit.Test;
+
+import ked.atc_simulator.Entities.Plane;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de l'ordonnanceur des pistes
+ */
+public class RunwaySchedulerTest {
+
+    @Test
+    public void departuresAreSequencedWithSeparation() throws Exception {
+        World world = new World();
+        world.createMockupPlanes();
+        RunwayScheduler scheduler = world.getRunwayScheduler();
+        Fleet fleet = world.getFleet();
+        Plane first = world.addPlane("A", 475, 715, 0, 3, world.getParkingRoutes().get(0), world.getDepartingState());
+        Plane second = world.addPlane("B", 1075, 715, 0, 3, world.getParkingRoutes().get(3), world.getDepartingState());
+        fleet.retain(first);
+        fleet.retain(second);
+        int runway = first.requestRunway(RunwayScheduler.DEPARTURE);
+        assertEquals(runway, second.requestRunway(RunwayScheduler.DEPARTURE));
+        assertEquals(2, scheduler.getQueueLength(runway, RunwayScheduler.DEPARTURE));
+
+        long firstLeft = -1, secondEntered = -1;
+        for (int i = 0; i < 2000 && (first.isAlive() || second.isAlive()); ++i) {
+            world.tick();
+            boolean firstOn = first.isAlive() && scheduler.getRunwayOf(first.getRoute().getId()) == runway;
+            boolean secondOn = second.isAlive() && scheduler.getRunwayOf(second.getRoute().getId()) == runway;
+            assertFalse(firstOn && secondOn);
+            if (firstOn)
+                firstLeft = -1;
+            else if (firstLeft < 0 && first.isAlive() && first.getRoute() == world.getCrosswindRN())
+                firstLeft = world.getTickCount();
+            if (secondOn && secondEntered < 0)
+                secondEntered = world.getTickCount();
+        }
+        assertFalse(first.isAlive() || second.isAlive()); // Les deux avions ont décollé et quitté l'écran
+        assertTrue(firstLeft > 0 && secondEntered > firstLeft);
+        assertEquals(0, scheduler.getQueueLength(runway, RunwayScheduler.DEPARTURE));
+        fleet.release(first);
+        fleet.release(second);
+    }
+
+    @Test
+    public void departureFromTheFarParkingIsGrantedNearTheRunway() throws Exception {
+        World world = new World();
+        world.createMockupPlanes();
+        RunwayScheduler scheduler = world.getRunwayScheduler();
+        Plane far = world.addPlane("F", 1475, 715, 0, 3, world.getParkingRoutes().get(5), world.getDepartingState());
+        world.getFleet().retain(far);
+        int runway = far.requestRunway(RunwayScheduler.DEPARTURE);
+
+        float grantX = -1;
+        boolean entered = false;
+        for (int i = 0; i < 20000 && !entered; ++i) {
+            world.tick();
+            boolean granted = scheduler.getOccupant(runway) == far.getHandle();
+            if (!granted)
+                assertNotEquals(0, far.getBehavior()); // Sans la piste, l'avion s'arrête avant
+            else if (grantX < 0)
+                grantX = far.getX();
+            entered = scheduler.getRunwayOf(far.getRoute().getId()) == runway;
+        }
+        assertTrue(entered);
+        assertEquals(far.getHandle(), scheduler.getOccupant(runway));
+        assertTrue(grantX < world.getAlpha().getStartPoint().x + 300); // Et pas à l'autre bout de Charlie
+        world.getFleet().release(far);
+    }
+
+    @Test
+    public void occupantThatMissesItsEntryRequestsAgain() throws Exception {
+        World world = new World();
+        world.createMockupPlanes();
+        RunwayScheduler scheduler = world.getRunwayScheduler();
+        Plane plane = world.addPlane("L", 475, 715, 0, 3, world.getParkingRoutes().get(0), world.getDepartingState());
+        world.getFleet().retain(plane);
+        int runway = plane.requestRunway(RunwayScheduler.DEPARTURE);
+        for (int i = 0; i < 20000 && scheduler.getOccupant(runway) != plane.getHandle(); ++i)
+            world.tick();
+        assertEquals(plane.getHandle(), scheduler.getOccupant(runway));
+
+        plane.setBehavior(3); // Arrêté sur le taxiway, il n'atteindra pas la piste
+        for (int i = 0; i < 20000 && scheduler.getOccupant(runway) == plane.getHandle(); ++i)
+            world.tick();
+        assertEquals(-1, scheduler.getOccupant(runway));
+        assertTrue(scheduler.isWaiting(plane.getHandle()));
+        assertEquals(2, plane.getBehavior()); // Il repart jusqu'au point d'arrêt, sans autorisation
+
+        boolean entered = false;
+        for (int i = 0; i < 20000 && !entered; ++i) {
+            world.tick();
+            entered = scheduler.getRunwayOf(plane.getRoute().getId()) == runway;
+        }
+        assertTrue(entered);
+        assertEquals(plane.getHandle(), scheduler.getOccupant(runway));
+        world.getFleet().release(plane);
+    }
+
+    @Test
+    public void arrivalsGoBeforeDepartures() throws Exception {
+        World world = new World();
+        world.createMockupPlanes();
+        RunwayScheduler scheduler = world.getRunwayScheduler();
+        Plane departure = world.addPlane("D", 465, 620, 0, 3, world.getAlpha(), world.getDepartingState());
+        Plane arrival = world.addPlane("A", 150, 300, 180, 1, world.getBase(), world.getArrivingState());
+        int runway = departure.requestRunway(RunwayScheduler.DEPARTURE);
+        assertEquals(runway, arrival.requestRunway(RunwayScheduler.ARRIVAL));
+        long slot = scheduler.getNextFreeSlot(runway, RunwayScheduler.DEPARTURE, world.getTickCount());
+
+        world.tick();
+        assertEquals(arrival.getHandle(), scheduler.getOccupant(runway));
+        assertTrue(scheduler.isWaiting(departure.getHandle()));
+        assertSame(world.getAlpha(), departure.getRoute()); // Il attend au point d'arrêt
+        assertTrue(slot > world.getTickCount());
+
+        boolean landed = false;
+        for (int i = 0; i < 500 && scheduler.isWaiting(departure.getHandle()); ++i) {
+            world.tick();
+            landed |= arrival.getRoute() == world.getRunwayLanding();
+        }
+        assertTrue(landed);
+        assertEquals(departure.getHandle(), scheduler.getOccupant(runway));
+        assertNotSame(world.getRunwayLanding(), arrival.getRoute()); // L'arrivée a quitté la piste
+    }
+
+    @Test
+    public void holdingArrivalsAreAllGrantedWithLargeTimeSteps() throws Exception {
+        World world = new World();
+        world.createMockupPlanes();
+        world.setTimeStep(4); // Les fenêtres où un avion en attente est prêt ne durent que quelques ticks
+        RunwayScheduler scheduler = world.getRunwayScheduler();
+        Route[] circuit = {world.getDownwind(), world.getBase(), world.getUpwind(), world.getCrosswind()};
+        Plane[] arrivals = new Plane[circuit.length];
+        for (int i = 0; i < circuit.length; ++i) {
+            Route route = circuit[i];
+            arrivals[i] = world.addPlane("H" + i, route.getStartPoint().x, route.getStartPoint().y, route.getHeading(), 1,
+                    route, world.getArrivingState());
+            world.getFleet().retain(arrivals[i]);
+        }
+        int runway = RunwayScheduler.NO_RUNWAY;
+        for (Plane arrival : arrivals)
+            runway = arrival.requestRunway(RunwayScheduler.ARRIVAL);
+
+        boolean[] granted = new boolean[arrivals.length];
+        for (int tick = 0; tick < 5000; ++tick) {
+            world.tick();
+            for (int i = 0; i < arrivals.length; ++i)
+                granted[i] |= scheduler.getOccupant(runway) == arrivals[i].getHandle();
+        }
+        for (int i = 0; i < arrivals.length; ++i)
+            assertTrue("H" + i, granted[i]);
+        assertEquals(0, scheduler.getQueueLength(runway, RunwayScheduler.ARRIVAL));
+    }
+}
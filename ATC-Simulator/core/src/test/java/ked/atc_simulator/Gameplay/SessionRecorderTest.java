@@ -0,0 +1,116 @@
+package ked.atc_simulator.Gameplay;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import ked.atc_simulator.Entities.Plane;
+import ked.atc_simulator.Utils.Options;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de l'enregistrement et de la relecture d'une partie
+ */
+public class SessionRecorderTest {
+
+    @Test
+    public void replayReproducesTheSession() throws Exception {
+        Options.setDifficulty(2);
+        World world = new World();
+        world.createStartingPlanes();
+        world.createMockupPlanes();
+        for (int i = 0; i < 500; ++i) // La partie a déjà commencé quand on lance l'enregistrement
+            world.tick();
+        RunwayScheduler runways = world.getRunwayScheduler();
+        for (Plane plane : world.getPlanes()) // Avec des demandes de piste en cours et une piste occupée
+            plane.requestRunway(plane.getPlaneState() == world.getArrivingState() ? RunwayScheduler.ARRIVAL : RunwayScheduler.DEPARTURE);
+        for (int i = 0; i < 300 && runways.getOccupant(0) == -1; ++i)
+            world.tick();
+        assertNotEquals(-1, runways.getOccupant(0));
+        assertTrue(runways.getQueueLength(0, RunwayScheduler.ARRIVAL) + runways.getQueueLength(0, RunwayScheduler.DEPARTURE) > 0);
+
+        SessionRecorder recorder = new SessionRecorder(world);
+        recorder.start();
+        for (int tick = 0; tick < 20000; ++tick) {
+            if (tick % 97 == 0) { // Le joueur donne des autorisations entre deux ticks
+                Plane plane = world.getPlanes().get(tick % world.getPlanes().size());
+                if (plane.getBehavior() == 1)
+                    plane.setBehavior(0);
+                else if (plane.getBehavior() == 3)
+                    plane.setBehavior(2);
+                if (tick % 3 == 0)
+                    plane.setParkingRoute(world.getParkingRoutes().get(tick % world.getParkingRoutes().size()));
+                if (tick % 5 == 0 && !runways.isWaiting(plane.getHandle()))
+                    plane.requestRunway(plane.getPlaneState() == world.getArrivingState() ? RunwayScheduler.ARRIVAL : RunwayScheduler.DEPARTURE);
+            }
+            world.tick();
+        }
+        byte[] recording = recorder.toByteArray();
+        recorder.stop();
+
+        Options.setDifficulty(0); // La relecture reprend la difficulté enregistrée, sans toucher aux options
+        SessionReplayer replayer = new SessionReplayer(new ByteArrayInputStream(recording));
+        replayer.run();
+        World replayed = replayer.getWorld();
+
+        assertEquals(20000, replayed.getTickCount());
+        assertEquals(2, replayed.getDifficulty());
+        assertEquals(0, Options.getDifficulty());
+        assertEquals(world.isGameOver(), replayed.isGameOver());
+        Fleet a = world.getFleet(), b = replayed.getFleet();
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); ++i) {
+            assertEquals(a.getName(i), b.getName(i));
+            assertEquals(Float.floatToIntBits(a.getX(i)), Float.floatToIntBits(b.getX(i)));
+            assertEquals(Float.floatToIntBits(a.getY(i)), Float.floatToIntBits(b.getY(i)));
+            assertEquals(a.getRouteId(i), b.getRouteId(i));
+            assertEquals(a.getBehavior(i), b.getBehavior(i));
+            assertEquals(runways.isWaiting(a.getHandle(i)), replayed.getRunwayScheduler().isWaiting(b.getHandle(i)));
+        }
+        RunwayScheduler replayedRunways = replayed.getRunwayScheduler();
+        assertEquals(runways.getGrantCount(), replayedRunways.getGrantCount());
+        for (int r = 0; r < runways.getRunwayCount(); ++r) {
+            assertEquals(a.slotOf(runways.getOccupant(r)), b.slotOf(replayedRunways.getOccupant(r)));
+            for (int kind = 0; kind < 2; ++kind)
+                assertEquals(runways.getQueueLength(r, kind), replayedRunways.getQueueLength(r, kind));
+        }
+    }
+
+    @Test
+    public void replayChecksTheAirportLayout() throws Exception {
+        World world = new World();
+        world.createStartingPlanes();
+        SessionRecorder recorder = new SessionRecorder(world);
+        recorder.start();
+        for (int i = 0; i < 100; ++i)
+            world.tick();
+        byte[] recording = recorder.toByteArray();
+
+        AirportLayout same = parseDefault(); // Le même plan relu : même somme de contrôle
+        assertEquals(100, new SessionReplayer(new ByteArrayInputStream(recording), same).getEndTick());
+
+        AirportLayout other = parseDefault();
+        other.addRunway(960, 100, 400, 90);
+        other.compile();
+        try {
+            new SessionReplayer(new ByteArrayInputStream(recording), other);
+            fail("Replay on another layout");
+        } catch (IOException e) {
+            // Attendu
+        }
+    }
+
+    private static AirportLayout parseDefault() throws IOException {
+        InputStream in = AirportLayout.class.getResourceAsStream(AirportLayout.DEFAULT_LAYOUT);
+        try {
+            AirportLayout layout = LayoutLoader.parse(in);
+            layout.compile();
+            return layout;
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ked.atc_simulator.Gameplay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests de la boucle de simulation dans son thread
+ */
+public class SimulationLoopTest {
+
+    @Test
+    public void skipAheadDoesNotWaitForTheClock() throws Exception {
+        World world = new World();
+        world.createMockupPlanes();
+        world.createStartingPlanes();
+        SimulationLoop loop = new SimulationLoop(world);
+
+        long ticks = 30 * SimulationLoop.TICKS_PER_MINUTE; // 30 minutes de jeu, soit 30 minutes à la vitesse x1
+        loop.skipAhead(ticks);
+        long start = System.nanoTime();
+        loop.start();
+        while (loop.getSkipRemaining() > 0 && System.nanoTime() - start < 10 * SimulationLoop.TICK_DURATION)
+            Thread.sleep(5);
+        loop.stop();
+
+        assertEquals(0, loop.getSkipRemaining());
+        synchronized (world) {
+            assertTrue(world.getTickCount() >= ticks || world.isGameOver());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ked.atc_simulator.Gameplay;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import ked.atc_simulator.Utils.IntList;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests des chemins au sol
+ */
+public class TaxiRouterTest {
+
+    private String path(World world, String from, String to) {
+        IntList path = new IntList(8);
+        assertTrue(world.getTaxiRouter().getPath(world.getRouteByName(from).getId(), world.getRouteByName(to).getId(), path));
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < path.size(); ++i)
+            names.append(i == 0 ? "" : " ").append(world.getRoute(path.get(i)).getName());
+        return names.toString();
+    }
+
+    @Test
+    public void defaultAirportRoutesFollowTheTaxiways() throws Exception {
+        World world = new World();
+        assertEquals("P1 Charlie Alpha RunwayTO", path(world, "P1", "RunwayTO"));
+        assertEquals("RunwayLanding Bravo Charlie P3", path(world, "RunwayLanding", "P3"));
+        assertEquals("P6 Charlie P2", path(world, "P6", "P2"));
+
+        TaxiRouter router = world.getTaxiRouter();
+        assertFalse(router.isGroundRoute(world.getUpwind().getId()));
+        assertTrue(router.isTaxiway(world.getCharlie().getId()));
+        assertEquals(AirportLayout.NO_ROUTE, router.nextHop(world.getRunwayTO().getId(), world.getAlpha().getId()));
+        assertEquals(Float.POSITIVE_INFINITY, router.getDistance(world.getRunwayTO().getId(), world.getAlpha().getId()), 0);
+
+        // Le plan de vol d'un arrivant avec un parking passe par le chemin au sol
+        FlightPlan plan = world.getFlightPlanner().planFor(world.getBravo().getId(), world.getArrivingState().getId(), 0,
+                world.getParkingRouteByName("P4").getId());
+        assertEquals(3, plan.length());
+        assertEquals(world.getParkingRouteByName("P4").getId(), plan.getRouteId(2));
+    }
+
+    @Test
+    public void taxiLinksOpenShorterRoutes() throws Exception {
+        InputStream in = TaxiRouterTest.class.getResourceAsStream(AirportLayout.DEFAULT_LAYOUT);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) != -1)
+            text.write(buffer, 0, n);
+        in.close();
+        text.write("taxi_link Bravo Alpha\n".getBytes(StandardCharsets.UTF_8));
+
+        AirportLayout layout = LayoutLoader.parse(new ByteArrayInputStream(text.toByteArray()));
+        layout.compile();
+        World world = new World(layout);
+        assertEquals("RunwayLanding Bravo Alpha RunwayTO", path(world, "RunwayLanding", "RunwayTO"));
+        assertEquals("RunwayLanding Bravo Charlie P3", path(world, "RunwayLanding", "P3"));
+
+        TaxiRouter router = world.getTaxiRouter();
+        int landing = world.getRunwayLanding().getId(), bravo = world.getBravo().getId(), to = world.getRunwayTO().getId();
+        assertEquals(router.getDistance(landing, bravo) + router.getDistance(bravo, to), router.getDistance(landing, to), 0.01);
+    }
+
+    @Test
+    public void taxiLinkAddedAfterCompileDropsCompiledTables() throws Exception {
+        InputStream in = TaxiRouterTest.class.getResourceAsStream(AirportLayout.DEFAULT_LAYOUT);
+        AirportLayout layout = LayoutLoader.parse(in);
+        in.close();
+        layout.compile();
+        World before = new World(layout);
+        layout.addTaxiLink(before.getBravo().getId(), before.getAlpha().getId());
+        assertNull(layout.getTransitions());
+        assertNull(layout.getTaxiRouter());
+
+        layout.compile();
+        World world = new World(layout);
+        assertEquals("RunwayLanding Bravo Alpha RunwayTO", path(world, "RunwayLanding", "RunwayTO"));
+        TransitionTable table = world.getTransitions(), fresh = new TransitionTable(world, world.getFlightPlanner());
+        assertTrue(Arrays.equals(fresh.capture, table.capture));
+        assertTrue(Arrays.equals(fresh.target, table.target));
+    }
+}
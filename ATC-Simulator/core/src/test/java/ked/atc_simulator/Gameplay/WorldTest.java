@@ -0,0 +1,324 @@
+package ked.atc_simulator.Gameplay;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Random;
+
+import ked.atc_simulator.Entities.Plane;
+import ked.atc_simulator.Server.ScriptedPolicy;
+import ked.atc_simulator.State.PlaneState;
+import ked.atc_simulator.Utils.IntList;
+import ked.atc_simulator.Utils.ObjectPool;
+import ked.atc_simulator.Utils.Options;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du modèle du jeu sans Android, exécutés sur la JVM de la machine de développement
+ */
+public class WorldTest {
+
+    private World newWorld() {
+        World world = new World();
+        world.createMockupPlanes();
+        return world;
+    }
+
+    @Test
+    public void planeFollowsHoldingCircuit() throws Exception {
+        World world = newWorld();
+        Plane plane = world.addPlane("N851TB", 150, 850, 90, 1, world.getUpwind(), world.getArrivingState());
+
+        // En attente, l'avion fait le tour du circuit Upwind -> Crosswind -> Downwind -> Base -> Upwind
+        boolean sawCrosswind = false, sawDownwind = false, sawBase = false;
+        for (int i = 0; i < 1000; ++i) {
+            world.updatePlanes();
+            sawCrosswind |= plane.getRoute() == world.getCrosswind();
+            sawDownwind |= plane.getRoute() == world.getDownwind();
+            sawBase |= plane.getRoute() == world.getBase();
+            assertFalse(plane.isOutOfScreen());
+        }
+        assertTrue(sawCrosswind && sawDownwind && sawBase);
+    }
+
+    @Test
+    public void departingPlaneLeavesTheScreen() throws Exception {
+        World world = newWorld();
+        Plane plane = world.addPlane("R328FS", 475, 715, 0, 0, world.getParkingRoutes().get(0), world.getDepartingState());
+
+        int ticks = 0;
+        while (!plane.isOutOfScreen() && ticks < 10000) {
+            world.updatePlanes();
+            ++ticks;
+        }
+        assertTrue(plane.isOutOfScreen());
+    }
+
+    @Test
+    public void longSessionKeepsTrafficLevel() throws Exception {
+        Options.setDifficulty(1);
+        World world = newWorld();
+        world.createStartingPlanes();
+
+        for (int i = 0; i < 100000; ++i) {
+            world.tick();
+            assertTrue(world.getPlanes().size() <= (Options.getDifficulty() + 1) * 2);
+        }
+        assertEquals((Options.getDifficulty() + 1) * 2, world.getPlanes().size());
+    }
+
+    @Test
+    public void spawnerFollowsConfiguredRates() throws Exception {
+        Options.setDifficulty(2);
+        World world = newWorld();
+        world.getSpawner().setRates(2, 0, 2, 6); // Uniquement des départs, deux par minute en moyenne
+
+        Fleet fleet = world.getFleet();
+        for (int i = 0; i < 20 * 60; ++i) {
+            world.tick();
+            for (int a = 0; a < fleet.size(); ++a) {
+                assertEquals(PlaneState.DEPARTING, fleet.stateId[a]);
+                for (int b = a + 1; b < fleet.size(); ++b)
+                    assertNotEquals(fleet.name[a], fleet.name[b]);
+            }
+        }
+        assertEquals(6, fleet.size()); // Les départs restent au parking, la limite est atteinte
+    }
+
+    @Test
+    public void freeEntriesFollowPlaneMoves() throws Exception {
+        Options.setDifficulty(2);
+        World world = newWorld();
+        world.createStartingPlanes();
+        SpawnScheduler spawner = world.getSpawner();
+
+        for (int i = 0; i < 5000; ++i) {
+            world.tick();
+            if (i % 250 == 0) { // Les listes tenues à jour doivent être celles reconstruites à partir de la grille
+                int arrivals = spawner.getFreeEntryCount(PlaneState.ARRIVING);
+                int departures = spawner.getFreeEntryCount(PlaneState.DEPARTING);
+                spawner.reset();
+                assertEquals(arrivals, spawner.getFreeEntryCount(PlaneState.ARRIVING));
+                assertEquals(departures, spawner.getFreeEntryCount(PlaneState.DEPARTING));
+            }
+        }
+    }
+
+    @Test
+    public void thousandsOfPlanes() throws Exception {
+        World world = newWorld();
+        for (int i = 0; i < 2000; ++i)
+            world.addPlane("T" + i, 20 + (i % 40) * 25, 20 + (i / 40) * 20, 90, 1, world.getUpwind(), world.getArrivingState());
+        Plane first = world.getPlanes().get(0);
+        float startX = first.getX();
+
+        for (int i = 0; i < 20; ++i)
+            world.tick();
+        assertEquals(2000, world.getPlanes().size());
+        assertTrue(first.getX() > startX);
+    }
+
+    @Test
+    public void removedPlaneHandleIsInvalidated() throws Exception {
+        World world = newWorld();
+        Plane a = world.addPlane("A", 100, 100, 90, 1, world.getUpwind(), world.getArrivingState());
+        Plane b = world.addPlane("B", 200, 100, 90, 1, world.getUpwind(), world.getArrivingState());
+        Plane c = world.addPlane("C", 300, 100, 90, 1, world.getUpwind(), world.getArrivingState());
+
+        world.getFleet().retain(a); // Sinon la vue de A pourrait servir à D
+        world.removePlane(a); // C prend la place de A dans la flotte
+        assertFalse(a.isAlive());
+        assertTrue(c.isAlive());
+        assertEquals("C", c.getName());
+        assertEquals(300, c.getX(), 0);
+        assertEquals(2, world.getPlanes().size());
+
+        Plane d = world.addPlane("D", 400, 100, 90, 1, world.getUpwind(), world.getArrivingState());
+        assertNotEquals(a.getHandle(), d.getHandle()); // L'index est réutilisé avec une nouvelle génération
+        assertFalse(a.isAlive());
+        assertEquals("B", b.getName());
+        assertSame(d, world.getPlaneByName("D"));
+        world.getFleet().release(a);
+    }
+
+    @Test
+    public void nameLookupsFollowAddsAndRemoves() throws Exception {
+        World world = newWorld();
+        for (int i = 0; i < 3000; ++i)
+            world.addPlane("T" + i, 20 + (i % 60) * 30, 20 + (i / 60) * 20, 90, 1, world.getUpwind(), world.getArrivingState());
+        for (int i = 0; i < 3000; i += 2)
+            world.removePlane(world.getPlaneByName("T" + i)); // Les derniers avions prennent les places libérées
+
+        Fleet fleet = world.getFleet();
+        assertEquals(1500, fleet.size());
+        for (int i = 0; i < 3000; ++i) {
+            int slot = fleet.slotOfName("T" + i);
+            if (i % 2 == 0)
+                assertEquals(-1, slot);
+            else
+                assertEquals("T" + i, fleet.getName(slot));
+        }
+        assertSame(world.getCharlie(), world.getRouteByName("Charlie"));
+        assertSame(world.getParkingRoutes().get(2), world.getParkingRouteByName("P3"));
+        assertNull(world.getRouteByName("Unknown"));
+    }
+
+    @Test
+    public void planeViewsAreRecycled() throws Exception {
+        ObjectPool.setLeakChecks(true);
+        try {
+            World world = newWorld();
+            Fleet fleet = world.getFleet();
+            for (int i = 0; i < 20; ++i)
+                world.addPlane("T" + i, 20 + i * 30, 100, 90, 1, world.getUpwind(), world.getArrivingState());
+            Plane kept = fleet.retain(world.getPlaneByName("T3"));
+            int created = fleet.getPlanePool().getCreated();
+
+            // Régime établi : chaque suppression rend une vue que l'ajout suivant reprend
+            for (int i = 20; i < 2000; ++i) {
+                world.removePlane(fleet.getPlane(i % fleet.size()));
+                world.addPlane("T" + i, 20 + (i % 60) * 30, 100 + (i / 60) * 20, 90, 1, world.getUpwind(), world.getArrivingState());
+            }
+            assertEquals(created + 1, fleet.getPlanePool().getCreated()); // Seule la vue retenue a dû être remplacée
+            assertFalse(kept.isAlive()); // La vue retenue n'a pas été réutilisée
+
+            try {
+                fleet.checkNoLeaks();
+                fail("Retained view not reported");
+            } catch (IllegalStateException expected) {
+            }
+            fleet.release(kept);
+            fleet.clear();
+            fleet.checkNoLeaks();
+            try {
+                fleet.release(kept);
+                fail("Double release not reported");
+            } catch (IllegalStateException expected) {
+            }
+        } finally {
+            ObjectPool.setLeakChecks(false);
+        }
+    }
+
+    @Test
+    public void neighbourQueriesMatchFullScan() throws Exception {
+        World world = newWorld();
+        for (int i = 0; i < 600; ++i)
+            world.addPlane("T" + i, (i * 37) % 1900 + 10, (i * 53) % 1060 + 10, 90, 1, world.getUpwind(), world.getArrivingState());
+        for (int i = 0; i < 200; i += 3)
+            world.removePlane(world.getPlaneByName("T" + i));
+
+        Fleet fleet = world.getFleet();
+        IntList found = new IntList(16);
+        for (int t = 0; t < 50; ++t) {
+            world.updatePlanes();
+            for (int i = 0; i < fleet.size(); i += 7) {
+                found.clear();
+                world.findPlanesNear(fleet.getX(i), fleet.getY(i), 30, found);
+                int expected = 0;
+                for (int j = 0; j < fleet.size(); ++j) {
+                    if (Math.abs(fleet.getX(j) - fleet.getX(i)) <= 30 && Math.abs(fleet.getY(j) - fleet.getY(i)) <= 30)
+                        ++expected;
+                }
+                assertEquals(expected, found.size());
+            }
+        }
+    }
+
+    @Test
+    public void clearedPlaneDoesNotRerouteHoldingPlanes() throws Exception {
+        World world = newWorld();
+        Plane cleared = world.addPlane("C", 150, 300, 180, 0, world.getBase(), world.getArrivingState());
+        Plane holding = world.addPlane("H", 150, 200, 180, 1, world.getBase(), world.getArrivingState());
+
+        boolean clearedOnFinal = false, holdingOnUpwind = false;
+        for (int i = 0; i < 200 && !holdingOnUpwind; ++i) {
+            world.updatePlanes();
+            clearedOnFinal |= cleared.getRoute() == world.getFinale();
+            assertNotSame(world.getFinale(), holding.getRoute());
+            holdingOnUpwind = holding.getRoute() == world.getUpwind();
+        }
+        assertTrue(clearedOnFinal && holdingOnUpwind);
+        assertSame(world.getUpwind(), world.getBase().getNextRoute()); // Les routes partagées ne sont pas modifiées
+    }
+
+    @Test
+    public void parallelUpdateMatchesSerialUpdate() throws Exception {
+        World serial = newWorld(), parallel = newWorld();
+        parallel.setParallelism(4);
+        for (World world : new World[]{serial, parallel}) {
+            for (int i = 0; i < 3000; ++i) {
+                float x = 20 + (i % 60) * 30, y = 20 + (i / 60) * 20;
+                switch (i % 3) {
+                    case 0:
+                        world.addPlane("U" + i, x, y, 90, 1, world.getUpwind(), world.getArrivingState());
+                        break;
+                    case 1:
+                        world.addPlane("D" + i, x, y, 270, 0, world.getDownwind(), world.getArrivingState());
+                        break;
+                    default:
+                        world.addPlane("C" + i, x, y, 270, i % 2 == 0 ? 2 : 0, world.getCharlie(), world.getDepartingState());
+                        break;
+                }
+            }
+        }
+
+        Fleet a = serial.getFleet(), b = parallel.getFleet();
+        for (int tick = 0; tick < 300; ++tick) {
+            serial.updatePlanes();
+            parallel.updatePlanes();
+        }
+        parallel.setParallelism(1);
+        assertEquals(a.size(), b.size());
+        for (int i = 0; i < a.size(); ++i) {
+            assertEquals(Float.floatToIntBits(a.getX(i)), Float.floatToIntBits(b.getX(i)));
+            assertEquals(Float.floatToIntBits(a.getY(i)), Float.floatToIntBits(b.getY(i)));
+            assertEquals(Float.floatToIntBits(a.getSpeed(i)), Float.floatToIntBits(b.getSpeed(i)));
+            assertEquals(a.getRouteId(i), b.getRouteId(i));
+            assertEquals(a.getBehavior(i), b.getBehavior(i));
+            assertEquals(a.getEventVersion(i), b.getEventVersion(i));
+        }
+    }
+
+    @Test
+    public void tickDoesNotAllocateInSteadyState() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean))
+            return; // JVM sans mesure des allocations
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled())
+            return;
+        long thread = Thread.currentThread().getId();
+
+        // Une partie avec apparitions, demandes de piste, atterrissages et départs
+        World world = new World();
+        world.setDifficulty(1);
+        world.createMockupPlanes();
+        world.setSeed(1);
+        world.createStartingPlanes();
+        ScriptedPolicy policy = new ScriptedPolicy();
+        Random random = new Random(1);
+        for (int tick = 0; tick < 3000; ++tick) { // Les tableaux et les réserves atteignent leur taille
+            policy.control(world, random);
+            world.tick();
+        }
+
+        // Une désoptimisation du JIT peut allouer quelques octets une fois : une vraie allocation par tick
+        // se verrait dans toutes les mesures
+        int clean = 0;
+        for (int window = 0; window < 3; ++window) {
+            long before = allocations.getThreadAllocatedBytes(thread);
+            for (int tick = 0; tick < 500; ++tick) {
+                policy.control(world, random);
+                world.tick();
+            }
+            if (allocations.getThreadAllocatedBytes(thread) == before)
+                ++clean;
+        }
+        assertFalse(world.isGameOver());
+        assertTrue(world.getPlanesRemoved() > 0);
+        assertTrue(clean >= 2);
+    }
+}
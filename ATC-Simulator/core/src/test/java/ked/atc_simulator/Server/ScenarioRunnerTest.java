@@ -0,0 +1,55 @@
+package ked.atc_simulator.Server;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import ked.atc_simulator.Gameplay.World;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du lanceur de parties sans affichage
+ */
+public class ScenarioRunnerTest {
+
+    @Test
+    public void resultsDoNotDependOnThreadCount() throws Exception {
+        ScenarioRunner single = new ScenarioRunner(1);
+        ScenarioRunner parallel = new ScenarioRunner(3);
+        try {
+            ScenarioStats expected = single.run(1, 12, 100, 1200, new ScriptedPolicy(), null);
+            ScenarioStats actual = parallel.run(1, 12, 100, 1200, new ScriptedPolicy(), null);
+
+            assertEquals(12, actual.getRuns());
+            assertEquals(expected.getCollisionRate(), actual.getCollisionRate(), 0);
+            assertEquals(expected.getConflictRate(), actual.getConflictRate(), 0);
+            assertEquals(expected.getMeanThroughput(), actual.getMeanThroughput(), 1e-9);
+            assertEquals(expected.getMeanHoldTime(), actual.getMeanHoldTime(), 1e-9);
+            assertTrue(actual.getMeanThroughput() > 0);
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    public void failedRunIsReported() throws Exception {
+        ScenarioRunner runner = new ScenarioRunner(2);
+        try {
+            runner.run(1, 6, 100, 60, new ControllerPolicy() {
+                @Override
+                public void control(World world, Random random) {
+                    if (world.getSeed() == 103)
+                        throw new IllegalArgumentException("policy bug");
+                }
+            }, null);
+            fail("The failed run was not reported");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("103"));
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        } finally {
+            runner.shutdown();
+        }
+    }
+}
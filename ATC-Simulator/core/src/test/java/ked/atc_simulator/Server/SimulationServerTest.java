@@ -0,0 +1,87 @@
+package ked.atc_simulator.Server;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import ked.atc_simulator.Entities.Plane;
+import ked.atc_simulator.Gameplay.World;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests du serveur de simulation : isolation des sessions et commandes texte
+ */
+public class SimulationServerTest {
+
+    @Test
+    public void sessionsMatchStandaloneWorlds() {
+        SimulationServer server = new SimulationServer(2, 0);
+        Session easy = server.createSession(0, 42);
+        Session hard = server.createSession(2, 7);
+
+        World easyWorld = standalone(0, 42);
+        World hardWorld = standalone(2, 7);
+        for (int i = 0; i < 600; ++i) {
+            // Les deux sessions avancent en alternance, comme sur un même thread du serveur
+            easy.step();
+            hard.step();
+            if (!easyWorld.isGameOver())
+                easyWorld.tick();
+            if (!hardWorld.isGameOver())
+                hardWorld.tick();
+        }
+
+        assertEquals(2, hard.getWorld().getDifficulty());
+        assertEquals(0, easy.getWorld().getDifficulty());
+        assertSamePlanes(easyWorld, easy.getWorld());
+        assertSamePlanes(hardWorld, hard.getWorld());
+    }
+
+    @Test
+    public void commandsAreAppliedBeforeTheNextTick() throws Exception {
+        SimulationServer server = new SimulationServer(1, 0);
+        CommandServer commands = new CommandServer(server, 0);
+        try {
+            assertEquals("OK 1", commands.execute("create 1 3"));
+            Session session = server.getSession(1);
+            Plane plane = session.getWorld().getPlanes().get(0);
+            String name = plane.getName();
+            boolean stopped = plane.getBehavior() == 3;
+
+            assertEquals("OK", commands.execute((stopped ? "continue 1 " : "stop 1 ") + name));
+            assertEquals(stopped, plane.getBehavior() == 3); // Rien ne change avant le tick
+            session.step();
+            assertEquals(!stopped, session.getWorld().getPlaneByName(name).getBehavior() == 3);
+
+            assertEquals("ERR session inconnue", commands.execute("stop 2 " + name));
+            assertEquals("ERR argument manquant", commands.execute("taxi 1 " + name));
+            assertEquals("OK", commands.execute("close 1"));
+            assertEquals(0, server.getSessionCount());
+        } finally {
+            commands.close();
+        }
+    }
+
+    private static World standalone(int difficulty, long seed) {
+        World world = new World();
+        world.setDifficulty(difficulty);
+        world.createMockupPlanes();
+        world.getSpawner().limitPlanes(Session.MAX_PLANES);
+        world.setSeed(seed);
+        world.createStartingPlanes();
+        return world;
+    }
+
+    private static void assertSamePlanes(World expected, World actual) {
+        assertEquals(expected.getTickCount(), actual.getTickCount());
+        List<Plane> expectedPlanes = expected.getPlanes();
+        List<Plane> actualPlanes = actual.getPlanes();
+        assertEquals(expectedPlanes.size(), actualPlanes.size());
+        for (int i = 0; i < expectedPlanes.size(); ++i) {
+            assertEquals(expectedPlanes.get(i).getName(), actualPlanes.get(i).getName());
+            assertEquals(expectedPlanes.get(i).getX(), actualPlanes.get(i).getX(), 0);
+            assertEquals(expectedPlanes.get(i).getY(), actualPlanes.get(i).getY(), 0);
+        }
+    }
+}